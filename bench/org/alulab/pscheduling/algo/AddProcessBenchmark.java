@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.alulab.pscheduling.model.Workload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading processes into a scheduler and computing its horizon,
+ * both with processes added in order of arrival and in random order, and
+ * with the horizon read after every add as the main form does.
+ *
+ * @author Dipu
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AddProcessBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int count;
+
+    @Param({"UNIFORM", "EXPONENTIAL", "BIMODAL"})
+    BenchWorkloads.Distribution distribution;
+
+    private Workload mWorkload;
+    private int[] mShuffled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mWorkload = BenchWorkloads.generate(count, distribution, BenchWorkloads.SEED);
+        mShuffled = new int[count];
+        for (int i = 0; i < count; ++i) {
+            mShuffled[i] = i;
+        }
+        Random random = new Random(BenchWorkloads.SEED);
+        for (int i = count - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            int t = mShuffled[i];
+            mShuffled[i] = mShuffled[j];
+            mShuffled[j] = t;
+        }
+    }
+
+    @Benchmark
+    public int addInOrder() {
+        Scheduler s = new FirstComeFirstServe();
+        for (int i = 0; i < count; ++i) {
+            s.addProcess(mWorkload.getArriveTime(i), mWorkload.getBurstTime(i),
+                    mWorkload.getPriority(i));
+        }
+        return s.getTotalBurst();
+    }
+
+    @Benchmark
+    public int addShuffled() {
+        Scheduler s = new FirstComeFirstServe();
+        for (int i : mShuffled) {
+            s.addProcess(mWorkload.getArriveTime(i), mWorkload.getBurstTime(i),
+                    mWorkload.getPriority(i));
+        }
+        return s.getTotalBurst();
+    }
+
+    @Benchmark
+    public int addWorkload() {
+        Scheduler s = new FirstComeFirstServe();
+        s.addProcesses(mWorkload);
+        return s.getTotalBurst();
+    }
+
+    @Benchmark
+    public long addShuffledReadingHorizon() {
+        Scheduler s = new FirstComeFirstServe();
+        long sum = 0;
+        for (int i : mShuffled) {
+            s.addProcess(mWorkload.getArriveTime(i), mWorkload.getBurstTime(i),
+                    mWorkload.getPriority(i));
+            sum += s.getTotalBurst();
+        }
+        return sum;
+    }
+}
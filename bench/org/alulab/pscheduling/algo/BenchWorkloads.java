@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Random;
+import org.alulab.pscheduling.model.Workload;
+
+/**
+ * Generates the workloads used by the benchmarks
+ *
+ * @author Dipu
+ */
+final class BenchWorkloads {
+
+    /**
+     * Shape of the burst time distribution
+     */
+    enum Distribution {
+        /**
+         * Bursts spread evenly over 1..19
+         */
+        UNIFORM,
+        /**
+         * Mostly short bursts with a long tail
+         */
+        EXPONENTIAL,
+        /**
+         * Nine short interactive bursts to one long batch burst
+         */
+        BIMODAL;
+
+        int burst(Random random) {
+            switch (this) {
+                case EXPONENTIAL:
+                    return 1 + (int) (-Math.log(1 - random.nextDouble()) * 9);
+                case BIMODAL:
+                    return random.nextInt(10) == 0
+                            ? 50 + random.nextInt(50) : 1 + random.nextInt(5);
+                default:
+                    return 1 + random.nextInt(19);
+            }
+        }
+    }
+
+    static final long SEED = 42;
+
+    private BenchWorkloads() {
+    }
+
+    /**
+     * Generates processes arriving a few units apart, so the ready queue
+     * holds a number of processes at any time
+     *
+     * @param count
+     * @param distribution
+     * @param seed
+     * @return
+     */
+    static Workload generate(int count, Distribution distribution, long seed) {
+        Random random = new Random(seed);
+        Workload w = new Workload(count);
+        int arrive = 0;
+        for (int i = 0; i < count; ++i) {
+            arrive += random.nextInt(10);
+            w.add(arrive, distribution.burst(random), random.nextInt(20));
+        }
+        return w;
+    }
+}
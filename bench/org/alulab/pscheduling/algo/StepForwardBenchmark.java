@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.concurrent.TimeUnit;
+import org.alulab.pscheduling.model.Workload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the dispatch cost of every algorithm. A tick steps one time unit,
+ * which asks the algorithm for the next process once, so its cost is the cost
+ * of a single dispatch decision at the given ready queue size.
+ *
+ * @author Dipu
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StepForwardBenchmark {
+
+    @Param({"fcfs", "sjf", "psjf", "ps", "pps", "rr"})
+    String algorithm;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int count;
+
+    @Param({"UNIFORM", "EXPONENTIAL", "BIMODAL"})
+    BenchWorkloads.Distribution distribution;
+
+    private Scheduler mTick;
+    private Scheduler mEvent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Workload w = BenchWorkloads.generate(count, distribution, BenchWorkloads.SEED);
+        mTick = Algorithm.forName(algorithm).create();
+        mTick.addProcesses(w);
+        mEvent = Algorithm.forName(algorithm).create();
+        mEvent.setEventDriven(true);
+        mEvent.addProcesses(w);
+    }
+
+    /**
+     * One time unit in tick mode, starting over when the schedule ends
+     *
+     * @return
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int tick() {
+        if (mTick.isFinished()) {
+            mTick.restart();
+        }
+        mTick.stepForward(1);
+        return mTick.getCurrentTime();
+    }
+
+    /**
+     * The whole schedule in event-driven mode
+     *
+     * @return
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int run() {
+        mEvent.restart();
+        mEvent.stepForward(Integer.MAX_VALUE);
+        return mEvent.getContextSwitches();
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import javax.swing.JComponent;
+import org.alulab.pscheduling.algo.Scheduler;
+import org.alulab.pscheduling.algo.SchedulerSnapshot;
+import org.alulab.pscheduling.model.Timeline;
+
+/**
+ * Draws the timelines of a scheduler as a Gantt chart, one row per CPU.
+ * <p>
+ * Where the visible segments of a row are fewer than its pixels they are
+ * drawn one by one. Otherwise each pixel column is drawn on its own, in the
+ * color of the first process it covers and as strong as the CPU was busy,
+ * which costs a few binary searches per column however many segments it
+ * covers. The plot is drawn into one image that is kept while the view
+ * stays the same. As the timelines grow only the time from the last segment
+ * drawn of each row is drawn again, and panning moves the image and draws
+ * only the uncovered columns.
+ * <p>
+ * The timelines may grow on another thread while they are drawn, so each is
+ * drawn only up to the segment count and end time recorded by the latest
+ * snapshot passed to update, and not at all once it has been cleared since.
+ * <p>
+ * The wheel zooms around the mouse, dragging pans, and a double click fits
+ * the whole run again.
+ *
+ * @author Dipu
+ */
+public class GanttChart extends JComponent {
+
+    private static final int GUTTER = 48;
+    private static final int AXIS = 20;
+    private static final double ZOOM_STEP = 1.25;
+    // most pixels per time unit
+    private static final double MIN_SCALE = 1.0 / 64;
+    private static final Color[] PALETTE = new Color[32];
+
+    static {
+        for (int i = 0; i < PALETTE.length; ++i) {
+            PALETTE[i] = Color.getHSBColor((i * 0.618034f) % 1, 0.55f, 0.95f);
+        }
+    }
+
+    private Scheduler mScheduler;
+    private SchedulerSnapshot mSnapshot;
+    // time at the left edge of the plot and time units per pixel
+    private double mStart;
+    private double mScale = 1;
+    // follow the whole run until the user zooms or pans
+    private boolean mFit = true;
+    private BufferedImage mImage;
+    private double mImageStart;
+    private double mImageScale;
+    // state of each timeline when the image was drawn
+    private int[] mImageSizes = new int[0];
+    private int[] mImageEnds = new int[0];
+    private int[] mImageClears = new int[0];
+    private int mDragX;
+    private double mDragStart;
+
+    public GanttChart() {
+        setBackground(Color.WHITE);
+        setForeground(Color.DARK_GRAY);
+        setOpaque(true);
+        setPreferredSize(new Dimension(400, 120));
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                mDragX = e.getX();
+                mDragStart = mStart;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                mFit = false;
+                mStart = Math.max(0, mDragStart - (e.getX() - mDragX) * mScale);
+                repaint();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    mFit = true;
+                    repaint();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(e.getX() - GUTTER, Math.pow(ZOOM_STEP, e.getPreciseWheelRotation()));
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Shows the timelines of a scheduler, which must be recording them
+     *
+     * @param scheduler
+     */
+    public void setScheduler(Scheduler scheduler) {
+        mScheduler = scheduler;
+        mSnapshot = null;
+        mFit = true;
+        mImage = null;
+        repaint();
+    }
+
+    public Scheduler getScheduler() {
+        return mScheduler;
+    }
+
+    /**
+     * Moves the chart to the time of a snapshot of the scheduler
+     *
+     * @param snapshot
+     */
+    public void update(SchedulerSnapshot snapshot) {
+        mSnapshot = snapshot;
+        repaint();
+    }
+
+    /**
+     * Changes the time units per pixel, keeping the time under a point of
+     * the plot in place
+     *
+     * @param x
+     * @param factor
+     */
+    public void zoom(int x, double factor) {
+        double time = mStart + x * mScale;
+        mFit = false;
+        mScale = Math.max(MIN_SCALE, mScale * factor);
+        mStart = Math.max(0, time - x * mScale);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth() - GUTTER;
+        int height = getHeight() - AXIS;
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (mScheduler == null || mSnapshot == null || width <= 0 || height <= 0) {
+            return;
+        }
+        int currentTime = mSnapshot.getCurrentTime();
+        int end = Math.max(1, Math.max(mSnapshot.getTotalBurst(), currentTime));
+        if (mFit) {
+            mStart = 0;
+            mScale = Math.max(MIN_SCALE, (double) end / width);
+        }
+        updateImage(width, height);
+        g.drawImage(mImage, GUTTER, 0, null);
+        paintLabels(g, height);
+        paintAxis(g, width, height);
+        // current time
+        int now = GUTTER + (int) Math.floor((currentTime - mStart) / mScale);
+        if (now >= GUTTER) {
+            g.setColor(Color.RED);
+            g.drawLine(now, 0, now, height);
+        }
+    }
+
+    /**
+     * Brings the image of the plot up to date, drawing as few columns as
+     * possible
+     */
+    private void updateImage(int width, int height) {
+        int cpus = mSnapshot.getCpuCount();
+        int[] sizes = new int[cpus];
+        int[] ends = new int[cpus];
+        int[] clears = new int[cpus];
+        boolean same = mImage != null && mImage.getWidth() == width
+                && mImage.getHeight() == height && mImageScale == mScale
+                && mImageSizes.length == cpus;
+        for (int cpu = 0; cpu < cpus; ++cpu) {
+            clears[cpu] = mSnapshot.getTimelineClears(cpu);
+            sizes[cpu] = mSnapshot.getTimelineSize(cpu);
+            ends[cpu] = mSnapshot.getTimelineEnd(cpu);
+            same = same && clears[cpu] == mImageClears[cpu]
+                    && sizes[cpu] >= mImageSizes[cpu];
+        }
+        if (mImage == null || mImage.getWidth() != width || mImage.getHeight() != height) {
+            mImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g = mImage.createGraphics();
+        double shift = (mStart - mImageStart) / mScale;
+        int dx = (int) Math.round(shift);
+        if (!same || Math.abs(shift - dx) >= 1e-6 || Math.abs(dx) >= width) {
+            render(g, 0, width, height);
+        } else {
+            if (dx != 0) {
+                // panned by whole pixels: keep what is still visible
+                g.copyArea(Math.max(dx, 0), 0, width - Math.abs(dx), height, -dx, 0);
+                if (dx > 0) {
+                    render(g, width - dx, width, height);
+                } else {
+                    render(g, 0, -dx, height);
+                }
+            }
+            for (int cpu = 0; cpu < cpus; ++cpu) {
+                Timeline t = mScheduler.getTimeline(cpu);
+                if (t == null || (sizes[cpu] == mImageSizes[cpu] && ends[cpu] == mImageEnds[cpu])) {
+                    continue;
+                }
+                // the last segment drawn may have grown since
+                int from = t.getStart(Math.max(0, mImageSizes[cpu] - 1));
+                double x = Math.floor((from - mStart) / mScale);
+                if (x < width) {
+                    renderRow(g, cpu, (int) Math.max(0, x), width, height);
+                }
+            }
+        }
+        g.dispose();
+        mImageStart = mStart;
+        mImageScale = mScale;
+        mImageSizes = sizes;
+        mImageEnds = ends;
+        mImageClears = clears;
+    }
+
+    /**
+     * Draws the columns x0 to x1 of the plot
+     */
+    private void render(Graphics2D g, int x0, int x1, int height) {
+        for (int cpu = 0; cpu < mSnapshot.getCpuCount(); ++cpu) {
+            renderRow(g, cpu, x0, x1, height);
+        }
+    }
+
+    /**
+     * Draws the columns x0 to x1 of the row of a CPU
+     */
+    private void renderRow(Graphics2D g, int cpu, int x0, int x1, int height) {
+        int cpus = mSnapshot.getCpuCount();
+        int top = cpu * height / cpus;
+        int rowHeight = (cpu + 1) * height / cpus - top;
+        g.setColor(getBackground());
+        g.fillRect(x0, top, x1 - x0, rowHeight);
+        Timeline t = mScheduler.getTimeline(cpu);
+        if (t == null || t.getClearCount() != mSnapshot.getTimelineClears(cpu)) {
+            // started over since the snapshot; the next one shows it
+            return;
+        }
+        // segments after the end of the snapshot start at or after it, so
+        // no search below reaches them
+        int end = mSnapshot.getTimelineEnd(cpu);
+        int from = (int) Math.floor(mStart + x0 * mScale);
+        int to = (int) Math.min(end, Math.ceil(mStart + x1 * mScale));
+        if (from >= to) {
+            return;
+        }
+        int first = t.indexAfter(from);
+        int last = t.indexFrom(to);
+        if (last - first <= x1 - x0) {
+            renderSegments(g, t, first, last, end, x0, x1, top + 1, rowHeight - 2);
+        } else {
+            renderColumns(g, t, end, x0, x1, top + 1, rowHeight - 2);
+        }
+    }
+
+    private void renderSegments(Graphics2D g, Timeline t, int first, int last,
+            int end, int x0, int x1, int y, int h) {
+        FontMetrics fm = g.getFontMetrics();
+        g.setClip(x0, y, x1 - x0, h);
+        for (int i = first; i < last; ++i) {
+            int xs = (int) Math.floor((t.getStart(i) - mStart) / mScale);
+            // the last segment may have grown since the snapshot
+            int xe = (int) Math.floor((Math.min(t.getEnd(i), end) - mStart) / mScale);
+            int w = Math.max(1, xe - xs);
+            g.setColor(color(t.getPID(i)));
+            g.fillRect(xs, y, w, h);
+            if (w > 3) {
+                g.setColor(getForeground());
+                g.drawRect(xs, y, w - 1, h - 1);
+                String label = String.valueOf(t.getPID(i));
+                if (fm.stringWidth(label) + 4 <= w) {
+                    g.drawString(label, xs + (w - fm.stringWidth(label)) / 2,
+                            y + (h + fm.getAscent() - fm.getDescent()) / 2);
+                }
+            }
+        }
+        g.setClip(null);
+    }
+
+    private void renderColumns(Graphics2D g, Timeline t, int end, int x0, int x1,
+            int y, int h) {
+        Color background = getBackground();
+        for (int x = x0; x < x1; ++x) {
+            int from = (int) Math.floor(mStart + x * mScale);
+            if (from >= end) {
+                break;
+            }
+            int to = Math.min(end,
+                    Math.max(from + 1, (int) Math.floor(mStart + (x + 1) * mScale)));
+            int busy = t.getBusyTime(from, to);
+            if (busy == 0) {
+                continue;
+            }
+            Color c = color(t.getPID(t.indexAfter(from)));
+            float f = (float) busy / (to - from);
+            g.setColor(new Color(
+                    mix(c.getRed(), background.getRed(), f),
+                    mix(c.getGreen(), background.getGreen(), f),
+                    mix(c.getBlue(), background.getBlue(), f)));
+            g.drawLine(x, y, x, y + h - 1);
+        }
+    }
+
+    private static int mix(int a, int b, float f) {
+        return Math.round(a * f + b * (1 - f));
+    }
+
+    private static Color color(int pid) {
+        return PALETTE[Math.floorMod(pid, PALETTE.length)];
+    }
+
+    private void paintLabels(Graphics g, int height) {
+        int cpus = mSnapshot.getCpuCount();
+        FontMetrics fm = g.getFontMetrics();
+        g.setColor(getForeground());
+        for (int cpu = 0; cpu < cpus; ++cpu) {
+            int top = cpu * height / cpus;
+            int bottom = (cpu + 1) * height / cpus;
+            g.drawString("CPU " + cpu, 4, (top + bottom + fm.getAscent() - fm.getDescent()) / 2);
+        }
+    }
+
+    /**
+     * Draws time labels at a round step at least 60 pixels apart
+     */
+    private void paintAxis(Graphics g, int width, int height) {
+        long step = axisStep();
+        FontMetrics fm = g.getFontMetrics();
+        g.setColor(getForeground());
+        g.drawLine(GUTTER, height, GUTTER + width, height);
+        double end = mStart + width * mScale;
+        for (long t = (long) Math.ceil(mStart / step) * step; t <= end; t += step) {
+            int x = GUTTER + (int) Math.floor((t - mStart) / mScale);
+            g.drawLine(x, height, x, height + 4);
+            String label = String.valueOf(t);
+            g.drawString(label, x - fm.stringWidth(label) / 2, height + 4 + fm.getAscent());
+        }
+    }
+
+    /**
+     * Gets the smallest step of 1, 2 or 5 times a power of ten that is at
+     * least 60 pixels wide
+     */
+    private long axisStep() {
+        for (long base = 1;; base *= 10) {
+            for (int m : new int[]{1, 2, 5}) {
+                if (m * base / mScale >= 60) {
+                    return m * base;
+                }
+            }
+        }
+    }
+}
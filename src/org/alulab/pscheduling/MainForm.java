@@ -12,10 +12,18 @@ package org.alulab.pscheduling;
 
 import org.alulab.pscheduling.model.ProgressCellRender;
 import java.awt.EventQueue;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.AbstractButton;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.Timer;
 import javax.swing.table.DefaultTableCellRenderer;
 import org.alulab.pscheduling.model.Process;
-import javax.swing.table.DefaultTableModel;
+import org.alulab.pscheduling.model.ProcessTableModel;
 import org.alulab.pscheduling.algo.FirstComeFirstServe;
 import org.alulab.pscheduling.algo.NonPreemptiveSJF;
 import org.alulab.pscheduling.algo.NonPreemtivePS;
@@ -23,6 +31,8 @@ import org.alulab.pscheduling.algo.PreemptivePS;
 import org.alulab.pscheduling.algo.PreemptiveSJF;
 import org.alulab.pscheduling.algo.RoundRobin;
 import org.alulab.pscheduling.algo.Scheduler;
+import org.alulab.pscheduling.algo.SchedulerSnapshot;
+import org.alulab.pscheduling.model.ProcessTable;
 
 /**
  *
@@ -30,8 +40,20 @@ import org.alulab.pscheduling.algo.Scheduler;
  */
 public final class MainForm extends javax.swing.JFrame {
 
-    private Thread mThread;
+    private final SimulationRunner mRunner = new SimulationRunner();
     private Scheduler mSchedular;
+    private final ProcessTableModel mTableModel = new ProcessTableModel();
+    // latest state not shown yet, taken by the next frame
+    private final AtomicReference<SchedulerSnapshot> mSnapshot = new AtomicReference<>();
+    // quantum chosen while running, set by the stepping thread before its
+    // next step; 0 when there is none
+    private final AtomicInteger mPendingQuantum = new AtomicInteger();
+    // redraws at most once per frame, however often the scheduler steps
+    private final Timer mRefreshTimer = new Timer(1000 / 60, e -> refreshFrame());
+    // a stop gave up on a step that is still running; the controls come
+    // back, and a chosen algorithm is loaded, once it is over
+    private boolean mWaitingForStep;
+    private boolean mLoadPending;
 
     /**
      * Creates new form MainForm
@@ -51,18 +73,27 @@ public final class MainForm extends javax.swing.JFrame {
         DefaultTableCellRenderer cellRenderer
                 = (DefaultTableCellRenderer) processTable.getDefaultRenderer(Object.class);
         cellRenderer.setHorizontalAlignment(JLabel.CENTER);
+        // show the processes of the scheduler
+        processTable.setModel(mTableModel);
+        processTable.getTableHeader().setReorderingAllowed(false);
+        processTable.getColumn("Progress").setCellRenderer(new ProgressCellRender());
 
         // load an algorithm
         loadAlgorithm();
+
+        mRefreshTimer.setCoalesce(true);
+        mRefreshTimer.start();
     }
 
     void loadAlgorithm() {
-        stopSchedular();
+        if (!stopSchedular()) {
+            mLoadPending = true;
+            return;
+        }
         Process.PROCESS_ID_NUMBER = 1;
 
         rrQuantumSpinner.setVisible(false);
         rrQuantumLabelHint.setVisible(false);
-        rrQuantumSpinner.setValue(RoundRobin.QUANTUM);
 
         int selected = algoButtonGroup.getSelection().getMnemonic();
         switch (selected) {
@@ -82,17 +113,20 @@ public final class MainForm extends javax.swing.JFrame {
                 mSchedular = new PreemptivePS();
                 break;
             case '5': //rr
-                mSchedular = new RoundRobin();
+                mSchedular = new RoundRobin((int) rrQuantumSpinner.getValue());
                 rrQuantumSpinner.setVisible(true);
                 rrQuantumLabelHint.setVisible(true);
                 break;
         }
 
         algoNameLabel.setText(mSchedular.getName());
+        mSchedular.setRecordTimeline(true);
+        ganttChart.setScheduler(mSchedular);
+        mTableModel.setTable(null);
 
         addDummyProcess();
 
-        loadSchedular();
+        refreshValues();
     }
 
     void addDummyProcess() {
@@ -105,61 +139,30 @@ public final class MainForm extends javax.swing.JFrame {
         });
     }
 
-    synchronized void loadSchedular() {
-        DefaultTableModel model = new DefaultTableModel();
-        model.addColumn("PID");
-        model.addColumn("Arrival Time");
-        model.addColumn("Burst Time");
-        model.addColumn("Priority");
-        model.addColumn("State");
-        model.addColumn("Execution Time");
-        model.addColumn("Progress");
-        model.addColumn("Start Time");
-        model.addColumn("Finish Time");
-
-        int t = 0, index = -1;
-        for (Process p : mSchedular.getProcessList()) {
-            if (p.isRunning()) {
-                index = t;
-            }
-            model.addRow(new Object[]{
-                p.getPID(),
-                p.getArriveTime(),
-                p.getBurstTime(),
-                p.getPriority(),
-                p.getState(),
-                p.getCounter(),
-                p.getProgress(),
-                p.getStartTime(),
-                p.getFinishTime()
-            });
-            t++;
-        }
-        // set model
-        processTable.setModel(model);
-        processTable.getTableHeader().setReorderingAllowed(false);
-        // show progress
-        processTable.getColumn("Progress").setCellRenderer(new ProgressCellRender());
+    void loadSchedular(SchedulerSnapshot snapshot) {
+        mTableModel.refresh(snapshot.getTable());
 
         // select running process
+        int index = mTableModel.getRunningRow();
         if (index >= 0) {
             processTable.setRowSelectionInterval(index, index);
         }
     }
 
-    synchronized void showRunning() {
+    void showRunning(SchedulerSnapshot snapshot) {
         // time slide
         timeSlider.setMinimum(0);
-        timeSlider.setMaximum(mSchedular.getTotalBurst());
-        timeSlider.setValue(mSchedular.getCurrentTime());
-        arrivalTimeSpinner.setValue(mSchedular.getCurrentTime());
+        timeSlider.setMaximum(snapshot.getTotalBurst());
+        timeSlider.setValue(snapshot.getCurrentTime());
+        arrivalTimeSpinner.setValue(snapshot.getCurrentTime());
 
         // cpu time
-        cpuTimeLabel.setText(String.valueOf(mSchedular.getCurrentTime()));
+        cpuTimeLabel.setText(String.valueOf(snapshot.getCurrentTime()));
 
         // running process
-        Process p = mSchedular.getRunning();
-        if (p != null) {
+        int row = snapshot.getRunningRow();
+        if (row >= 0) {
+            Process p = snapshot.getTable().view(row);
             pidLabel.setText(String.valueOf(p.getPID()));
             priorityLabel.setText(String.valueOf(p.getPriority()));
             startTimeLabel.setText(String.valueOf(p.getStartTime()));
@@ -178,14 +181,16 @@ public final class MainForm extends javax.swing.JFrame {
         }
     }
 
-    synchronized void showStatistics() {
-        if (mSchedular.isFinished()) {
-            int wait = 0;
-            int turn = 0;
-            int n = mSchedular.getProcessList().size();
-            for (Process p : mSchedular.getProcessList()) {
-                wait += p.getStartTime();
-                turn += p.getFinishTime();
+    void showStatistics(SchedulerSnapshot snapshot) {
+        if (snapshot.isFinished()) {
+            long wait = 0;
+            long turn = 0;
+            ProcessTable table = snapshot.getTable();
+            int n = table.size();
+            for (int row = 0; row < n; ++row) {
+                int turnaround = table.getFinishTime(row) + 1 - table.getArriveTime(row);
+                turn += turnaround;
+                wait += turnaround - table.getBurstTime(row);
             }
             double avgWait = (double) wait / n;
             double avgTurn = (double) turn / n;
@@ -197,79 +202,148 @@ public final class MainForm extends javax.swing.JFrame {
         }
     }
 
+    /**
+     * Publishes the state of the scheduler for the next frame to show. Must
+     * be called by the thread stepping the scheduler.
+     */
     void refreshValues() {
-        java.awt.EventQueue.invokeLater(() -> {
-            loadSchedular();
-            showRunning();
-            showStatistics();
-        });
+        mSnapshot.set(mSchedular.snapshot());
+    }
+
+    /**
+     * Shows the latest published state, if any was published since the last
+     * frame. Never touches the scheduler.
+     */
+    void refreshFrame() {
+        if (mWaitingForStep && !mRunner.isRunning()) {
+            // the abandoned step is over; the scheduler is ours again
+            stopSchedular();
+            if (mLoadPending) {
+                mLoadPending = false;
+                loadAlgorithm();
+            } else {
+                refreshValues();
+            }
+        }
+        SchedulerSnapshot snapshot = mSnapshot.getAndSet(null);
+        if (snapshot != null) {
+            loadSchedular(snapshot);
+            showRunning(snapshot);
+            showStatistics(snapshot);
+            ganttChart.update(snapshot);
+        }
     }
 
     void startSchedular() {
         //disable some
         startButton.setEnabled(false);
+        pauseButton.setEnabled(true);
+        pauseButton.setText("Pause");
         stopButton.setEnabled(true);
         addProcessPanel.setEnabled(false);
         forwardButton.setEnabled(false);
 
         // restart scheduling if finished
-        if (mSchedular.getCurrentTime() == mSchedular.getTotalBurst()) {
+        if (mSchedular.isFinished()) {
             mSchedular.restart();
         }
+        applyQuantum();
 
-        // create and run thread
-        mThread = new Thread(() -> {
-            try {
-                while (!mSchedular.isFinished()) {
-                    mSchedular.stepForward(1);
-                    refreshValues();
-                    Thread.sleep((int) 50 * animeSpeed.getValue());
-                }
-                // calculate average
-                refreshValues();
-            } catch (Exception ex) {
-                //ex.printStackTrace();
+        mRunner.start(() -> {
+            if (mSchedular.isFinished()) {
+                return false;
             }
-            mThread = null;
-            stopSchedular();
+            applyQuantum();
+            mSchedular.stepForward(1);
+            // replace any snapshot not shown yet, so the last step before a
+            // pause is never lost; steps are at least 50 ms apart
+            refreshValues();
+            return true;
+        }, () -> 50 * animeSpeed.getValue(), failure -> {
+            EventQueue.invokeLater(() -> {
+                stopSchedular();
+                if (failure != null) {
+                    showFailure(failure);
+                }
+            });
+            // calculate average
+            refreshValues();
         });
-        mThread.start();
     }
 
     boolean isRunning() {
-        return mThread != null && mThread.isAlive();
+        return mRunner.isRunning();
     }
 
-    void stopSchedular() {
-        try {
-            while (isRunning()) {
-                mThread.interrupt();
-            }
-        } catch (Exception ex) {
+    /**
+     * Gives the scheduler the quantum chosen last, on the thread that steps
+     * it
+     */
+    private void applyQuantum() {
+        int quantum = mPendingQuantum.getAndSet(0);
+        if (quantum > 0 && mSchedular instanceof RoundRobin) {
+            ((RoundRobin) mSchedular).setQuantum(quantum);
+        }
+    }
+
+    private void showFailure(RuntimeException failure) {
+        Logger.getLogger(MainForm.class.getName())
+                .log(Level.SEVERE, "Simulation step failed", failure);
+        JOptionPane.showMessageDialog(this, "The simulation stopped: " + failure,
+                "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    void pauseSchedular() {
+        if (mRunner.isPaused()) {
+            mRunner.resume();
+            pauseButton.setText("Pause");
+        } else {
+            mRunner.pause();
+            pauseButton.setText("Resume");
         }
+    }
+
+    /**
+     * Stops the animation. A step that does not end within the runner's
+     * wait is left to finish on its own, with every control that touches
+     * the scheduler disabled until then.
+     *
+     * @return false if a step is still running
+     */
+    boolean stopSchedular() {
+        boolean stopped = mRunner.stop();
+        mWaitingForStep = !stopped;
 
-        // enable all
-        mThread = null;
-        startButton.setEnabled(true);
+        pauseButton.setEnabled(false);
+        pauseButton.setText("Pause");
         stopButton.setEnabled(false);
-        addProcessPanel.setEnabled(true);
-        forwardButton.setEnabled(true);
+        startButton.setEnabled(stopped);
+        forwardButton.setEnabled(stopped);
+        resetButton.setEnabled(stopped);
+        clearAllButton.setEnabled(stopped);
+        addProcessPanel.setEnabled(stopped);
+        for (Enumeration<AbstractButton> e = algoButtonGroup.getElements(); e.hasMoreElements();) {
+            e.nextElement().setEnabled(stopped);
+        }
+        return stopped;
     }
 
     void resetAll() {
-        stopSchedular();
-        mSchedular.reset();
-        refreshValues();
+        if (stopSchedular()) {
+            mSchedular.reset();
+            refreshValues();
+        }
     }
 
     void restart() {
-        stopSchedular();
-        mSchedular.restart();
-        refreshValues();
+        if (stopSchedular()) {
+            mSchedular.restart();
+            refreshValues();
+        }
     }
 
     void addProcess(int arrival, int burst, int priority) {
-        if (mThread == null) {
+        if (!isRunning()) {
             Process p = new Process(arrival, burst, priority);
             mSchedular.addProcess(p);
             refreshValues();
@@ -297,6 +371,7 @@ public final class MainForm extends javax.swing.JFrame {
         algoNameLabel = new javax.swing.JLabel();
         jPanel2 = new javax.swing.JPanel();
         startButton = new javax.swing.JButton();
+        pauseButton = new javax.swing.JButton();
         stopButton = new javax.swing.JButton();
         forwardButton = new javax.swing.JButton();
         resetButton = new javax.swing.JButton();
@@ -339,6 +414,7 @@ public final class MainForm extends javax.swing.JFrame {
         jPanel4 = new javax.swing.JPanel();
         jScrollPane2 = new javax.swing.JScrollPane();
         processTable = new javax.swing.JTable();
+        ganttChart = new org.alulab.pscheduling.GanttChart();
         addProcessPanel = new javax.swing.JPanel();
         jLabel17 = new javax.swing.JLabel();
         arrivalTimeSpinner = new javax.swing.JSpinner();
@@ -390,6 +466,14 @@ public final class MainForm extends javax.swing.JFrame {
             }
         });
 
+        pauseButton.setText("Pause");
+        pauseButton.setEnabled(false);
+        pauseButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                pauseButtonActionPerformed(evt);
+            }
+        });
+
         stopButton.setText("Stop");
         stopButton.setEnabled(false);
         stopButton.addActionListener(new java.awt.event.ActionListener() {
@@ -467,6 +551,8 @@ public final class MainForm extends javax.swing.JFrame {
                             .addGroup(jPanel2Layout.createSequentialGroup()
                                 .addComponent(startButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(pauseButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                 .addComponent(stopButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                 .addComponent(resetButton, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)))
@@ -483,6 +569,7 @@ public final class MainForm extends javax.swing.JFrame {
                 .addGap(5, 5, 5)
                 .addGroup(jPanel2Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(stopButton, javax.swing.GroupLayout.PREFERRED_SIZE, 32, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(pauseButton, javax.swing.GroupLayout.PREFERRED_SIZE, 32, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addComponent(startButton, javax.swing.GroupLayout.PREFERRED_SIZE, 32, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addComponent(resetButton, javax.swing.GroupLayout.PREFERRED_SIZE, 32, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -917,13 +1004,18 @@ public final class MainForm extends javax.swing.JFrame {
                 .addGap(3, 3, 3)
                 .addComponent(jScrollPane2))
             .addComponent(addProcessPanel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+            .addGroup(jPanel4Layout.createSequentialGroup()
+                .addGap(3, 3, 3)
+                .addComponent(ganttChart, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
         jPanel4Layout.setVerticalGroup(
             jPanel4Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel4Layout.createSequentialGroup()
                 .addComponent(addProcessPanel, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addComponent(jScrollPane2, javax.swing.GroupLayout.PREFERRED_SIZE, 168, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addComponent(jScrollPane2, javax.swing.GroupLayout.PREFERRED_SIZE, 168, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(ganttChart, javax.swing.GroupLayout.DEFAULT_SIZE, 120, Short.MAX_VALUE))
         );
 
         statisticsPanel.setBackground(new java.awt.Color(153, 255, 204));
@@ -1027,6 +1119,10 @@ public final class MainForm extends javax.swing.JFrame {
         startSchedular();
     }//GEN-LAST:event_startButtonActionPerformed
 
+    private void pauseButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_pauseButtonActionPerformed
+        pauseSchedular();
+    }//GEN-LAST:event_pauseButtonActionPerformed
+
     private void stopButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_stopButtonActionPerformed
         stopSchedular();
     }//GEN-LAST:event_stopButtonActionPerformed
@@ -1060,7 +1156,10 @@ public final class MainForm extends javax.swing.JFrame {
     }//GEN-LAST:event_animeSpeedStateChanged
 
     private void rrQuantumSpinnerStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_rrQuantumSpinnerStateChanged
-        RoundRobin.QUANTUM = (int) rrQuantumSpinner.getValue();
+        mPendingQuantum.set((int) rrQuantumSpinner.getValue());
+        if (!isRunning()) {
+            applyQuantum();
+        }
     }//GEN-LAST:event_rrQuantumSpinnerStateChanged
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
@@ -1087,6 +1186,7 @@ public final class MainForm extends javax.swing.JFrame {
     private javax.swing.JLabel cpuTimeLabel;
     private javax.swing.JLabel execTimeLabel;
     private javax.swing.JButton forwardButton;
+    private org.alulab.pscheduling.GanttChart ganttChart;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel10;
     private javax.swing.JLabel jLabel11;
@@ -1115,6 +1215,7 @@ public final class MainForm extends javax.swing.JFrame {
     private javax.swing.JSeparator jSeparator1;
     private javax.swing.JSeparator jSeparator2;
     private javax.swing.JTable jTable1;
+    private javax.swing.JButton pauseButton;
     private javax.swing.JLabel pidLabel;
     private javax.swing.JLabel priorityLabel;
     private javax.swing.JSpinner prioritySpinner;
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs the animation of a scheduler on one thread that is kept for the life
+ * of the form. The loop checks for a stop or a pause between steps and waits
+ * for the next step on a condition, so stopping wakes it at once instead of
+ * interrupting it, and a stop returns as soon as the current step is done.
+ * A step that does not end within a bounded wait, even when interrupted, is
+ * abandoned: stop returns false and the runner counts as running until the
+ * step is over.
+ *
+ * @author Dipu
+ */
+final class SimulationRunner {
+
+    // time stop waits for the loop before interrupting it
+    private static final long JOIN_TIMEOUT_MS = 1000;
+    // time stop waits for an interrupted step before abandoning it
+    private static final long INTERRUPT_TIMEOUT_MS = 200;
+
+    private final ExecutorService mExecutor;
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Condition mWake = mLock.newCondition();
+    private Thread mThread;
+    private Future<?> mTask;
+    private boolean mStopped;
+    private boolean mPaused;
+    // set when stop gave up waiting for a step
+    private volatile boolean mAbandoned;
+
+    SimulationRunner() {
+        mExecutor = Executors.newSingleThreadExecutor(r -> {
+            mThread = new Thread(r, "scheduler-animation");
+            mThread.setDaemon(true);
+            return mThread;
+        });
+    }
+
+    /**
+     * Calls step until it returns false or the runner is stopped, waiting
+     * the given number of milliseconds after each step. The delay is asked
+     * again before every wait, so it may change while running.
+     *
+     * @param step does one step, false when there is nothing left to do
+     * @param delay
+     * @param finished called on the loop thread when step returned false or
+     * failed, with the failure or null; not after a stop unless a step failed
+     * @throws IllegalStateException if already running
+     */
+    void start(BooleanSupplier step, IntSupplier delay, Consumer<RuntimeException> finished) {
+        if (isRunning()) {
+            throw new IllegalStateException("Already running");
+        }
+        mLock.lock();
+        try {
+            mStopped = false;
+            mPaused = false;
+        } finally {
+            mLock.unlock();
+        }
+        mAbandoned = false;
+        mTask = mExecutor.submit(() -> {
+            RuntimeException failure = null;
+            try {
+                while (step.getAsBoolean()) {
+                    if (!await(delay.getAsInt())) {
+                        return;
+                    }
+                }
+            } catch (RuntimeException ex) {
+                failure = ex;
+            } finally {
+                if (failure != null || !isStopped()) {
+                    finished.accept(failure);
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for the next step
+     *
+     * @return false if stopped
+     */
+    private boolean await(int millis) {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        mLock.lock();
+        try {
+            while (!mStopped && (mPaused || nanos > 0)) {
+                if (mPaused) {
+                    mWake.await();
+                } else {
+                    nanos = mWake.awaitNanos(nanos);
+                }
+            }
+            return !mStopped;
+        } catch (InterruptedException ex) {
+            return false;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    private boolean isStopped() {
+        mLock.lock();
+        try {
+            return mStopped;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the loop and waits a bounded time for it to end, interrupting
+     * the current step if it takes too long. If the step is still running
+     * after that it is abandoned and the caller must not touch the scheduler
+     * until isRunning turns false. Returns at once when called by the loop
+     * itself.
+     *
+     * @return true if the loop has ended, false if a step was abandoned
+     */
+    boolean stop() {
+        mLock.lock();
+        try {
+            mStopped = true;
+            mPaused = false;
+            mWake.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+        Future<?> task = mTask;
+        if (task == null || Thread.currentThread() == mThread) {
+            return true;
+        }
+        try {
+            try {
+                task.get(JOIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                // wake a step that blocks, then give it a little longer
+                mThread.interrupt();
+                task.get(INTERRUPT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException ex) {
+            mAbandoned = true;
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            mAbandoned = !task.isDone();
+            if (mAbandoned) {
+                return false;
+            }
+        } catch (ExecutionException ex) {
+            // a failed step was given to the finished callback
+        }
+        mTask = null;
+        return true;
+    }
+
+    /**
+     * Checks whether a stop gave up on a step that is still running
+     *
+     * @return
+     */
+    boolean isAbandoned() {
+        return mAbandoned && isRunning();
+    }
+
+    /**
+     * Holds the loop before its next step until resume or stop
+     */
+    void pause() {
+        mLock.lock();
+        try {
+            mPaused = true;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    void resume() {
+        mLock.lock();
+        try {
+            mPaused = false;
+            mWake.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    boolean isPaused() {
+        mLock.lock();
+        try {
+            return mPaused;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    boolean isRunning() {
+        return mTask != null && !mTask.isDone();
+    }
+}
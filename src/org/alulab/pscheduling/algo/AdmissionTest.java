@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import org.alulab.pscheduling.model.Workload;
+
+/**
+ * Result of testing a set of periodic tasks against the utilization bound
+ * of a real-time algorithm on one CPU. A task uses its burst time out of
+ * every period, or out of its deadline if that is shorter, so that tasks
+ * with deadlines before the end of their period are judged by their
+ * density.
+ *
+ * @author Dipu
+ */
+public final class AdmissionTest {
+
+    private final String mName;
+    private final int mTasks;
+    private final double mUtilization;
+    private final double mBound;
+
+    AdmissionTest(String name, Workload tasks, double bound) {
+        mName = name;
+        mTasks = countTasks(tasks);
+        mUtilization = utilization(tasks);
+        mBound = bound;
+    }
+
+    static int countTasks(Workload tasks) {
+        int n = 0;
+        for (int i = 0; i < tasks.size(); ++i) {
+            if (tasks.getPeriod(i) > 0) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Gets the share of one CPU the periodic tasks of a workload need
+     *
+     * @param tasks
+     * @return
+     */
+    public static double utilization(Workload tasks) {
+        double u = 0;
+        for (int i = 0; i < tasks.size(); ++i) {
+            int period = tasks.getPeriod(i);
+            if (period > 0) {
+                int deadline = tasks.getDeadline(i);
+                int window = deadline > 0 ? Math.min(deadline, period) : period;
+                u += (double) tasks.getBurstTime(i) / window;
+            }
+        }
+        return u;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public int getTaskCount() {
+        return mTasks;
+    }
+
+    public double getUtilization() {
+        return mUtilization;
+    }
+
+    public double getBound() {
+        return mBound;
+    }
+
+    /**
+     * Checks if the tasks are within the bound and so will meet their
+     * deadlines
+     *
+     * @return
+     */
+    public boolean isAdmitted() {
+        return mUtilization <= mBound + 1e-9;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d tasks, utilization %.4f %s bound %.4f, %s",
+                mName, mTasks, mUtilization, isAdmitted() ? "<=" : ">", mBound,
+                isAdmitted() ? "admitted" : "rejected");
+    }
+}
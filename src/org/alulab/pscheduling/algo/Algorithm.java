@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.function.Supplier;
+
+/**
+ * The available scheduling algorithms
+ *
+ * @author Dipu
+ */
+public enum Algorithm {
+
+    FCFS("fcfs", FirstComeFirstServe::new),
+    NON_PREEMPTIVE_SJF("sjf", NonPreemptiveSJF::new),
+    PREEMPTIVE_SJF("psjf", PreemptiveSJF::new),
+    NON_PREEMPTIVE_PS("ps", NonPreemtivePS::new),
+    PREEMPTIVE_PS("pps", PreemptivePS::new),
+    ROUND_ROBIN("rr", RoundRobin::new),
+    MLFQ("mlfq", MultiLevelFeedbackQueue::new),
+    CFS("cfs", FairScheduler::new),
+    EDF("edf", EarliestDeadlineFirst::new),
+    RATE_MONOTONIC("rm", RateMonotonic::new);
+
+    private final String mKey;
+    private final Supplier<Scheduler> mFactory;
+
+    private Algorithm(String key, Supplier<Scheduler> factory) {
+        mKey = key;
+        mFactory = factory;
+    }
+
+    /**
+     * Gets the short name used on the command line
+     *
+     * @return
+     */
+    public String getKey() {
+        return mKey;
+    }
+
+    /**
+     * Creates a new scheduler running this algorithm
+     *
+     * @return
+     */
+    public Scheduler create() {
+        return mFactory.get();
+    }
+
+    /**
+     * Finds an algorithm by its short or enum name
+     *
+     * @param name
+     * @return
+     * @throws IllegalArgumentException if there is no such algorithm
+     */
+    public static Algorithm forName(String name) {
+        for (Algorithm a : values()) {
+            if (a.mKey.equalsIgnoreCase(name) || a.name().equalsIgnoreCase(name)) {
+                return a;
+            }
+        }
+        throw new IllegalArgumentException("Unknown algorithm: " + name);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import org.alulab.pscheduling.model.Workload;
+
+/**
+ * Runs one workload under several algorithms at the same time, one fork-join
+ * task per algorithm. Every run loads its own copy of the workload.
+ *
+ * @author Dipu
+ */
+public class AlgorithmComparison {
+
+    /**
+     * Simulates one algorithm to completion
+     */
+    static class Run extends RecursiveTask<RunStatistics> {
+
+        private final Algorithm mAlgorithm;
+        private final Workload mWorkload;
+        private final Function<Algorithm, Scheduler> mFactory;
+
+        Run(Algorithm algorithm, Workload workload, Function<Algorithm, Scheduler> factory) {
+            mAlgorithm = algorithm;
+            mWorkload = workload;
+            mFactory = factory;
+        }
+
+        @Override
+        protected RunStatistics compute() {
+            Scheduler s = mFactory.apply(mAlgorithm);
+            s.setEventDriven(true);
+            s.addProcesses(mWorkload);
+            while (!s.isFinished()) {
+                s.stepForward(Integer.MAX_VALUE);
+            }
+            return RunStatistics.of(s);
+        }
+    }
+
+    /**
+     * Compares every algorithm on the common pool
+     *
+     * @param w
+     * @return statistics in the order of Algorithm.values()
+     */
+    public static List<RunStatistics> compare(Workload w) {
+        return compare(w, Arrays.asList(Algorithm.values()),
+                RoundRobin.DEFAULT_QUANTUM, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compares the given algorithms
+     *
+     * @param w
+     * @param algorithms
+     * @param quantum time quantum of round robin
+     * @param pool
+     * @return statistics in the order of the algorithms
+     */
+    public static List<RunStatistics> compare(Workload w,
+            Collection<Algorithm> algorithms, int quantum, ForkJoinPool pool) {
+        return compare(w, algorithms, a -> {
+            Scheduler s = a.create();
+            if (s instanceof RoundRobin) {
+                ((RoundRobin) s).setQuantum(quantum);
+            }
+            return s;
+        }, pool);
+    }
+
+    /**
+     * Compares the given algorithms on schedulers set up by a factory, which
+     * may for instance spread each algorithm over several CPUs. The factory
+     * is called from the tasks of the pool.
+     *
+     * @param w
+     * @param algorithms
+     * @param factory creates a new scheduler running an algorithm
+     * @param pool
+     * @return statistics in the order of the algorithms
+     */
+    public static List<RunStatistics> compare(Workload w, Collection<Algorithm> algorithms,
+            Function<Algorithm, Scheduler> factory, ForkJoinPool pool) {
+        return pool.invoke(new RecursiveTask<List<RunStatistics>>() {
+            @Override
+            protected List<RunStatistics> compute() {
+                List<Run> runs = new ArrayList<>();
+                for (Algorithm a : algorithms) {
+                    runs.add(new Run(a, w, factory));
+                }
+                ForkJoinTask.invokeAll(runs);
+                List<RunStatistics> result = new ArrayList<>();
+                for (Run r : runs) {
+                    result.add(r.join());
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Formats the statistics as a table with one row per algorithm
+     *
+     * @param stats
+     * @return
+     */
+    public static String format(List<RunStatistics> stats) {
+        int width = "Algorithm".length();
+        for (RunStatistics s : stats) {
+            width = Math.max(width, s.getName().length());
+        }
+        String row = "%-" + width + "s %12s %12s %12s %12s %10s%n";
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(row, "Algorithm", "Waiting", "Turnaround",
+                "Response", "Throughput", "Switches"));
+        for (RunStatistics s : stats) {
+            sb.append(String.format(row, s.getName(),
+                    String.format("%.2f", s.getAverageWaiting()),
+                    String.format("%.2f", s.getAverageTurnaround()),
+                    String.format("%.2f", s.getAverageResponse()),
+                    String.format("%.6f", s.getThroughput()),
+                    s.getContextSwitches()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+
+/**
+ * Process indices ordered by arrive time, ties by index, with a cursor over
+ * those admitted so far. Each entry is packed into a single long so the
+ * index sorts as a primitive array.
+ * <p>
+ * An entry that comes in order goes to the end of a sorted array. One that
+ * does not waits in a binary heap until the cursor reaches it, so inserting
+ * in any order costs O(log n) and nothing is shifted or sorted again.
+ *
+ * @author Dipu
+ */
+final class ArrivalIndex {
+
+    // mKeys[0..mNext) are admitted, mKeys[mNext..mSize) wait in order
+    private long[] mKeys;
+    private int mSize;
+    private int mNext;
+    private boolean mSorted;
+    // waiting entries inserted out of order, a min-heap
+    private long[] mHeap;
+    private int mHeapSize;
+    // entries admitted from the heap
+    private long[] mTaken;
+    private int mTakenSize;
+
+    ArrivalIndex() {
+        mKeys = new long[16];
+        mHeap = new long[0];
+        mTaken = new long[0];
+        mSorted = true;
+    }
+
+    private static long key(int arrival, int index) {
+        return ((long) arrival << 32) | index;
+    }
+
+    private static int arrival(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Appends an entry without keeping the order; call sort afterwards if
+     * isSorted turns false.
+     *
+     * @param arrival
+     * @param index
+     */
+    void append(int arrival, int index) {
+        long key = key(arrival, index);
+        if (mSize == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, mSize * 2);
+        }
+        if (mSize > 0 && mKeys[mSize - 1] > key) {
+            mSorted = false;
+        }
+        mKeys[mSize++] = key;
+    }
+
+    /**
+     * Inserts an entry at its sorted position, in O(log n)
+     *
+     * @param arrival
+     * @param index
+     */
+    void insert(int arrival, int index) {
+        long key = key(arrival, index);
+        if (mSorted && (mSize == 0 || mKeys[mSize - 1] <= key)) {
+            append(arrival, index);
+            return;
+        }
+        if (mHeapSize == mHeap.length) {
+            mHeap = Arrays.copyOf(mHeap, Math.max(16, mHeapSize * 2));
+        }
+        int slot = mHeapSize++;
+        while (slot > 0 && mHeap[(slot - 1) >>> 1] > key) {
+            mHeap[slot] = mHeap[(slot - 1) >>> 1];
+            slot = (slot - 1) >>> 1;
+        }
+        mHeap[slot] = key;
+    }
+
+    /**
+     * Sorts the entries appended out of order, together with those waiting
+     * in the heap. The admitted entries stay in front, followed by the
+     * waiting ones that arrive no later than them.
+     */
+    void sort() {
+        ensureCapacity(mSize + mHeapSize);
+        System.arraycopy(mHeap, 0, mKeys, mSize, mHeapSize);
+        mSize += mHeapSize;
+        mHeapSize = 0;
+        Arrays.sort(mKeys, 0, mSize);
+        mSorted = true;
+    }
+
+    boolean isSorted() {
+        return mSorted;
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, capacity);
+        }
+    }
+
+    /**
+     * Gets the arrive time of the first entry not admitted yet
+     *
+     * @return Integer.MAX_VALUE if every entry is admitted
+     */
+    int nextArrival() {
+        long key = Long.MAX_VALUE;
+        if (mNext < mSize) {
+            key = mKeys[mNext];
+        }
+        if (mHeapSize > 0 && mHeap[0] < key) {
+            key = mHeap[0];
+        }
+        return key == Long.MAX_VALUE ? Integer.MAX_VALUE : arrival(key);
+    }
+
+    /**
+     * Admits the first entry not admitted yet
+     *
+     * @return its process index
+     */
+    int next() {
+        if (mHeapSize > 0 && (mNext == mSize || mHeap[0] < mKeys[mNext])) {
+            long key = mHeap[0];
+            long last = mHeap[--mHeapSize];
+            // sift the last entry down from the top
+            int slot = 0;
+            int half = mHeapSize >>> 1;
+            while (slot < half) {
+                int child = 2 * slot + 1;
+                if (child + 1 < mHeapSize && mHeap[child + 1] < mHeap[child]) {
+                    child++;
+                }
+                if (last <= mHeap[child]) {
+                    break;
+                }
+                mHeap[slot] = mHeap[child];
+                slot = child;
+            }
+            mHeap[slot] = last;
+            if (mTakenSize == mTaken.length) {
+                mTaken = Arrays.copyOf(mTaken, Math.max(16, mTakenSize * 2));
+            }
+            mTaken[mTakenSize++] = key;
+            return (int) key;
+        }
+        return (int) mKeys[mNext++];
+    }
+
+    /**
+     * Gets the number of admitted entries
+     *
+     * @return
+     */
+    int admitted() {
+        return mNext + mTakenSize;
+    }
+
+    /**
+     * Takes every entry back, to be admitted again from the first one
+     */
+    void rewind() {
+        if (mTakenSize > 0 || mHeapSize > 0) {
+            ensureCapacity(mSize + mTakenSize);
+            System.arraycopy(mTaken, 0, mKeys, mSize, mTakenSize);
+            mSize += mTakenSize;
+            mTakenSize = 0;
+            sort();
+        }
+        mNext = 0;
+    }
+
+    int size() {
+        return mSize + mHeapSize + mTakenSize;
+    }
+
+    void clear() {
+        mSize = 0;
+        mNext = 0;
+        mHeapSize = 0;
+        mTakenSize = 0;
+        mSorted = true;
+    }
+}
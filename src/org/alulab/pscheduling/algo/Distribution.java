@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+/**
+ * Count, mean, extremes and estimated median, 95th and 99th percentiles of
+ * a stream of values, in constant memory.
+ *
+ * @author Dipu
+ */
+public final class Distribution {
+
+    private long mCount;
+    private double mSum;
+    private double mMin;
+    private double mMax;
+    private final P2Quantile mP50 = new P2Quantile(0.50);
+    private final P2Quantile mP95 = new P2Quantile(0.95);
+    private final P2Quantile mP99 = new P2Quantile(0.99);
+
+    public Distribution() {
+        clear();
+    }
+
+    public void add(double x) {
+        mCount++;
+        mSum += x;
+        mMin = Math.min(mMin, x);
+        mMax = Math.max(mMax, x);
+        mP50.add(x);
+        mP95.add(x);
+        mP99.add(x);
+    }
+
+    /**
+     * Adds the same value several times in constant time
+     *
+     * @param x
+     * @param n
+     */
+    public void add(double x, long n) {
+        if (n <= 0) {
+            return;
+        }
+        mCount += n;
+        mSum += x * n;
+        mMin = Math.min(mMin, x);
+        mMax = Math.max(mMax, x);
+        mP50.add(x, n);
+        mP95.add(x, n);
+        mP99.add(x, n);
+    }
+
+    public void clear() {
+        mCount = 0;
+        mSum = 0;
+        mMin = Double.POSITIVE_INFINITY;
+        mMax = Double.NEGATIVE_INFINITY;
+        mP50.clear();
+        mP95.clear();
+        mP99.clear();
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    public double getMean() {
+        return mCount == 0 ? Double.NaN : mSum / mCount;
+    }
+
+    public double getMin() {
+        return mCount == 0 ? Double.NaN : mMin;
+    }
+
+    public double getMax() {
+        return mCount == 0 ? Double.NaN : mMax;
+    }
+
+    public double getP50() {
+        return mP50.get();
+    }
+
+    public double getP95() {
+        return mP95.get();
+    }
+
+    public double getP99() {
+        return mP99.get();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import org.alulab.pscheduling.model.Workload;
+
+/**
+ * Earliest deadline first: the process with the nearest absolute deadline
+ * runs, preempting any other. Processes without a deadline run only when
+ * no other is waiting. On one CPU every set of periodic tasks whose
+ * utilization is at most 1 meets its deadlines.
+ *
+ * @author Dipu
+ */
+public class EarliestDeadlineFirst extends RealTimeScheduler {
+
+    @Override
+    public String getName() {
+        return "Earliest Deadline First";
+    }
+
+    /**
+     * Orders by absolute deadline, nearest first, ties by arrival, then
+     * process id
+     */
+    @Override
+    int compare(int a, int b) {
+        int d = Integer.compare(mTable.getAbsoluteDeadline(a), mTable.getAbsoluteDeadline(b));
+        if (d == 0) {
+            d = Integer.compare(mTable.getArriveTime(a), mTable.getArriveTime(b));
+        }
+        if (d == 0) {
+            d = Integer.compare(mTable.getPID(a), mTable.getPID(b));
+        }
+        return d != 0 ? d : Integer.compare(a, b);
+    }
+
+    @Override
+    public AdmissionTest admissionTest(Workload tasks) {
+        return new AdmissionTest(getName(), tasks, 1);
+    }
+}
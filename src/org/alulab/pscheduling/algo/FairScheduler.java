@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+
+/**
+ * Completely fair scheduling in the manner of Linux CFS. Every process
+ * accumulates virtual runtime, the time it ran scaled down by its weight,
+ * and the one with the least runs next. A higher priority weighs more, one
+ * priority step being one nice level of Linux, about 25% more CPU time.
+ * <p>
+ * The running process gets a slice of the target latency in proportion to
+ * its weight, but no less than the minimum granularity, and then yields to
+ * any process with less virtual runtime. An arriving process is placed at
+ * the minimum virtual runtime less half the target latency, so that it is
+ * served soon without being owed for all the time it was away, and it
+ * preempts the running process if that one is ahead by more than the
+ * minimum granularity.
+ * <p>
+ * The runnable processes are kept in an indexed heap on their virtual
+ * runtime, so the leftmost is found in O(1) and taken in O(log n).
+ *
+ * @author Dipu
+ */
+public class FairScheduler extends Scheduler {
+
+    public static final int DEFAULT_LATENCY = 24;
+    public static final int DEFAULT_MIN_GRANULARITY = 3;
+    /**
+     * The priority weighing as much as nice 0
+     */
+    public static final int DEFAULT_PRIORITY = 5;
+
+    // weights of nice -20 to 19, as in Linux
+    private static final int[] WEIGHTS = {
+        88761, 71755, 56483, 46273, 36291,
+        29154, 23254, 18705, 14949, 11916,
+        9548, 7620, 6100, 4904, 3906,
+        3121, 2501, 1991, 1586, 1277,
+        1024, 820, 655, 526, 423,
+        335, 272, 215, 172, 137,
+        110, 87, 70, 56, 45,
+        36, 29, 23, 18, 15
+    };
+    private static final int NICE_0_WEIGHT = 1024;
+    // virtual runtime is kept in units of 2^-10 time units at nice 0
+    private static final int SCALE = 20;
+
+    private int mLatency;
+    private int mMinGranularity;
+
+    // processes waiting to run, least virtual runtime first
+    IndexedHeap mReady;
+    private long[] mVruntime;
+    // never decreases; arrivals are placed relative to it
+    private long mMinVruntime;
+    // total weight of the waiting and running processes
+    private long mLoad;
+    // the running process has run since then without being charged
+    private int mRunStart;
+    private int mSliceEnd;
+    // a process arrived since the last selection
+    private boolean mWoken;
+
+    public FairScheduler() {
+        this(DEFAULT_LATENCY, DEFAULT_MIN_GRANULARITY);
+    }
+
+    /**
+     * @param latency time in which every runnable process should run once
+     * @param minGranularity shortest slice
+     */
+    public FairScheduler(int latency, int minGranularity) {
+        setLatency(latency);
+        setMinGranularity(minGranularity);
+    }
+
+    public int getLatency() {
+        return mLatency;
+    }
+
+    /**
+     * Sets the target latency, taking effect from the next slice
+     *
+     * @param latency
+     */
+    public final void setLatency(int latency) {
+        if (latency <= 0) {
+            throw new IllegalArgumentException("Latency must be positive: " + latency);
+        }
+        mLatency = latency;
+    }
+
+    public int getMinGranularity() {
+        return mMinGranularity;
+    }
+
+    /**
+     * Sets the minimum granularity, taking effect from the next slice
+     *
+     * @param minGranularity
+     */
+    public final void setMinGranularity(int minGranularity) {
+        if (minGranularity <= 0) {
+            throw new IllegalArgumentException("Minimum granularity must be positive: "
+                    + minGranularity);
+        }
+        mMinGranularity = minGranularity;
+    }
+
+    /**
+     * Gets the weight of a priority
+     *
+     * @param priority
+     * @return
+     */
+    public static int weight(int priority) {
+        int nice = Math.max(-20, Math.min(19, DEFAULT_PRIORITY - priority));
+        return WEIGHTS[nice + 20];
+    }
+
+    @Override
+    void initialize() {
+        mReady = new IndexedHeap(this::compare);
+        mVruntime = new long[16];
+        mMinVruntime = 0;
+        mLoad = 0;
+        mRunStart = 0;
+        mSliceEnd = 0;
+        mWoken = false;
+    }
+
+    @Override
+    public String getName() {
+        return "Completely Fair Scheduler";
+    }
+
+    @Override
+    void arrive(int index) {
+        ensureRows(index);
+        mVruntime[index] = mMinVruntime - virtual(mLatency / 2, NICE_0_WEIGHT);
+        enqueue(index);
+        mWoken = true;
+    }
+
+    @Override
+    void migrate(Scheduler from, int index) {
+        if (!(from instanceof FairScheduler)) {
+            arrive(index);
+            return;
+        }
+        // keep how far ahead of or behind the others it was
+        FairScheduler f = (FairScheduler) from;
+        ensureRows(index);
+        mVruntime[index] = mMinVruntime + f.mVruntime[index] - f.mMinVruntime;
+        enqueue(index);
+    }
+
+    @Override
+    int queued() {
+        return mReady.size();
+    }
+
+    @Override
+    int steal() {
+        int index = mReady.poll();
+        if (index >= 0) {
+            mLoad -= weightOf(index);
+        }
+        return index;
+    }
+
+    @Override
+    void putBack(int index) {
+        enqueue(index);
+    }
+
+    @Override
+    int nextRunning(int time) {
+        boolean woken = mWoken;
+        mWoken = false;
+        if (mRunning >= 0) {
+            if (mTable.isFinished(mRunning)) {
+                mLoad -= weightOf(mRunning);
+                updateMin(Long.MAX_VALUE);
+            } else if (time >= mSliceEnd) {
+                charge(time);
+                int next = mReady.peek();
+                if (next < 0 || mVruntime[next] >= mVruntime[mRunning]) {
+                    // still the least, another slice
+                    return dispatch(mRunning, time);
+                }
+                mReady.offer(mRunning);
+            } else if (woken && shouldPreempt(time)) {
+                charge(time);
+                mReady.offer(mRunning);
+            } else {
+                return mRunning;
+            }
+        }
+        // the selected process stays counted in the load while it runs
+        int next = mReady.poll();
+        return next < 0 ? -1 : dispatch(next, time);
+    }
+
+    @Override
+    int nextDecision(int curTime) {
+        return Math.min(nextArrival(), mSliceEnd);
+    }
+
+    /**
+     * Checks if the running process is ahead of the leftmost waiting one by
+     * more than the minimum granularity of that one
+     */
+    private boolean shouldPreempt(int time) {
+        int next = mReady.peek();
+        if (next < 0) {
+            return false;
+        }
+        long current = mVruntime[mRunning] + virtual(time - mRunStart, weightOf(mRunning));
+        return current - mVruntime[next] > virtual(mMinGranularity, weightOf(next));
+    }
+
+    /**
+     * Adds the time the running process ran to its virtual runtime
+     */
+    private void charge(int time) {
+        mVruntime[mRunning] += virtual(time - mRunStart, weightOf(mRunning));
+        mRunStart = time;
+        updateMin(mVruntime[mRunning]);
+    }
+
+    private void updateMin(long running) {
+        long least = running;
+        int next = mReady.peek();
+        if (next >= 0) {
+            least = Math.min(least, mVruntime[next]);
+        }
+        if (least != Long.MAX_VALUE) {
+            mMinVruntime = Math.max(mMinVruntime, least);
+        }
+    }
+
+    private int dispatch(int row, int time) {
+        int runnable = mReady.size() + 1;
+        long period = Math.max(mLatency, (long) runnable * mMinGranularity);
+        long slice = Math.max(mMinGranularity, period * weightOf(row) / Math.max(1, mLoad));
+        mRunStart = time;
+        mSliceEnd = (int) Math.min(Integer.MAX_VALUE, time + slice);
+        return row;
+    }
+
+    private void enqueue(int index) {
+        mLoad += weightOf(index);
+        mReady.offer(index);
+    }
+
+    private int weightOf(int row) {
+        return weight(mTable.getPriority(row));
+    }
+
+    private static long virtual(int time, int weight) {
+        return ((long) time << SCALE) / weight;
+    }
+
+    /**
+     * Orders by virtual runtime, ties by process id
+     */
+    private int compare(int a, int b) {
+        int d = Long.compare(mVruntime[a], mVruntime[b]);
+        if (d == 0) {
+            d = Integer.compare(mTable.getPID(a), mTable.getPID(b));
+        }
+        return d != 0 ? d : Integer.compare(a, b);
+    }
+
+    private void ensureRows(int row) {
+        if (row >= mVruntime.length) {
+            mVruntime = Arrays.copyOf(mVruntime, Math.max(row + 1, 2 * mVruntime.length));
+        }
+    }
+}
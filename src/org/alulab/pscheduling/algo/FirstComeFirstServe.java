@@ -10,15 +10,14 @@
  */
 package org.alulab.pscheduling.algo;
 
-import org.alulab.pscheduling.model.Process;
-
 /**
  *
  * @author Dipu
  */
 public class FirstComeFirstServe extends Scheduler {
 
-    private int mCurPos = 0;
+    // arrived processes in order of arrival
+    RingQueue mReady;
 
     @Override
     public String getName() {
@@ -27,17 +26,41 @@ public class FirstComeFirstServe extends Scheduler {
 
     @Override
     void initialize() {
-        mCurPos = 0;
+        mReady = new RingQueue();
+    }
+
+    @Override
+    void arrive(int index) {
+        mReady.offer(index);
+    }
+
+    @Override
+    int queued() {
+        return mReady.size();
+    }
+
+    @Override
+    int steal() {
+        return mReady.poll();
+    }
+
+    @Override
+    void putBack(int index) {
+        mReady.offerFirst(index);
     }
 
     @Override
-    Process nextRunning(int time) {
-        Process cur = mRunning;
-        if (cur == null || cur.isFinished()) {
-            cur = mProcesses.get(mCurPos);
-            mCurPos = (mCurPos + 1) % mProcesses.size();
+    int nextRunning(int time) {
+        if (mRunning < 0 || mTable.isFinished(mRunning)) {
+            return mReady.poll();
         }
-        return cur;
+        return mRunning;
+    }
+
+    @Override
+    int nextDecision(int curTime) {
+        // runs until completion
+        return Integer.MAX_VALUE;
     }
 
 }
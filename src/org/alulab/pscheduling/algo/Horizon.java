@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The time at which a set of processes would all have finished, run first
+ * come first served on one CPU from time 0. Any CPU that never idles while
+ * a process waits finishes them at the same time.
+ * <p>
+ * While processes are added in order of arrival this is kept in O(1). The
+ * first one that is not moves them all into a treap keyed by arrive time,
+ * where each node also holds the total burst of its subtree and the time
+ * its subtree alone would finish, so every later add costs O(log n).
+ *
+ * @author Dipu
+ */
+final class Horizon {
+
+    // arrive time and burst of each process added in order, packed
+    private long[] mLog;
+    private int mLogSize;
+    // false once a process was added without being logged
+    private boolean mLogged;
+    // latest arrive time and finish time of the processes added in order
+    private int mLast;
+    private long mEnd;
+    // the log was shortened and mEnd must be worked out again
+    private boolean mStale;
+    // whether the processes are in the treap
+    private boolean mTree;
+
+    // treap nodes, one for each distinct arrive time
+    private int[] mArrival;
+    private long[] mBurst;
+    private long[] mSum;
+    private long[] mFinish;
+    private int[] mLeft;
+    private int[] mRight;
+    private int[] mPriority;
+    private int mNodes;
+    private int mRoot;
+    private final Random mRandom;
+
+    Horizon() {
+        mLog = new long[16];
+        mRandom = new Random(0);
+        clear();
+    }
+
+    /**
+     * Adds a process. One arriving before time 0 is taken to arrive at 0.
+     *
+     * @param arrival
+     * @param burstTime
+     */
+    void add(int arrival, int burstTime) {
+        arrival = Math.max(0, arrival);
+        if (mStale) {
+            recalculate();
+        }
+        if (!mTree && arrival >= mLast) {
+            if (mLogSize == mLog.length) {
+                mLog = Arrays.copyOf(mLog, 2 * mLogSize);
+            }
+            mLog[mLogSize++] = (long) arrival << 32 | burstTime;
+            extend(arrival, burstTime);
+            return;
+        }
+        if (!mTree) {
+            toTree();
+        }
+        mRoot = insert(mRoot, arrival, burstTime);
+    }
+
+    /**
+     * Adds a process that arrives no earlier than any added so far, without
+     * remembering it. A stream of processes read in order of arrival is
+     * followed this way in constant space; nothing may be added out of order
+     * afterwards.
+     *
+     * @param arrival
+     * @param burstTime
+     */
+    void append(int arrival, int burstTime) {
+        arrival = Math.max(0, arrival);
+        if (mStale) {
+            recalculate();
+        }
+        if (mTree || arrival < mLast) {
+            throw new IllegalStateException("Process arrives at " + arrival
+                    + ", before one at " + mLast);
+        }
+        mLogged = false;
+        extend(arrival, burstTime);
+    }
+
+    private void extend(int arrival, int burstTime) {
+        mEnd = Math.max(mEnd, arrival) + burstTime;
+        mLast = arrival;
+    }
+
+    /**
+     * Takes back a process added before. In order, only the process added
+     * last can be taken back cheaply.
+     *
+     * @param arrival
+     * @param burstTime
+     */
+    void remove(int arrival, int burstTime) {
+        arrival = Math.max(0, arrival);
+        if (!mTree && mLogSize > 0 && mLog[mLogSize - 1] == ((long) arrival << 32 | burstTime)) {
+            mLogSize--;
+            mStale = true;
+            return;
+        }
+        if (!mTree) {
+            toTree();
+        }
+        mRoot = insert(mRoot, arrival, -burstTime);
+    }
+
+    /**
+     * Gets the time the last process finishes
+     *
+     * @return 0 if there are none
+     */
+    long getEnd() {
+        if (mTree) {
+            return mRoot < 0 ? 0 : Math.max(0, mFinish[mRoot]);
+        }
+        if (mStale) {
+            recalculate();
+        }
+        return mEnd;
+    }
+
+    void clear() {
+        mLogSize = 0;
+        mLogged = true;
+        mLast = 0;
+        mEnd = 0;
+        mStale = false;
+        mTree = false;
+        mNodes = 0;
+        mRoot = -1;
+    }
+
+    private void recalculate() {
+        mEnd = 0;
+        mLast = 0;
+        for (int i = 0; i < mLogSize; ++i) {
+            mLast = (int) (mLog[i] >> 32);
+            mEnd = Math.max(mEnd, mLast) + (int) mLog[i];
+        }
+        mStale = false;
+    }
+
+    /**
+     * Moves the logged processes into the treap
+     */
+    private void toTree() {
+        if (!mLogged) {
+            throw new IllegalStateException("Processes added in order were not logged");
+        }
+        if (mArrival == null) {
+            int n = Math.max(16, mLogSize);
+            mArrival = new int[n];
+            mBurst = new long[n];
+            mSum = new long[n];
+            mFinish = new long[n];
+            mLeft = new int[n];
+            mRight = new int[n];
+            mPriority = new int[n];
+        }
+        mTree = true;
+        mRoot = -1;
+        mNodes = 0;
+        for (int i = 0; i < mLogSize; ++i) {
+            mRoot = insert(mRoot, (int) (mLog[i] >> 32), (int) mLog[i]);
+        }
+        mLogSize = 0;
+    }
+
+    private int insert(int node, int arrival, long burstTime) {
+        if (node < 0) {
+            return newNode(arrival, burstTime);
+        }
+        if (arrival == mArrival[node]) {
+            mBurst[node] += burstTime;
+        } else if (arrival < mArrival[node]) {
+            int child = insert(mLeft[node], arrival, burstTime);
+            mLeft[node] = child;
+            if (mPriority[child] > mPriority[node]) {
+                // rotate right
+                mLeft[node] = mRight[child];
+                mRight[child] = node;
+                update(node);
+                node = child;
+            }
+        } else {
+            int child = insert(mRight[node], arrival, burstTime);
+            mRight[node] = child;
+            if (mPriority[child] > mPriority[node]) {
+                // rotate left
+                mRight[node] = mLeft[child];
+                mLeft[child] = node;
+                update(node);
+                node = child;
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private int newNode(int arrival, long burstTime) {
+        if (mNodes == mArrival.length) {
+            int n = 2 * mNodes;
+            mArrival = Arrays.copyOf(mArrival, n);
+            mBurst = Arrays.copyOf(mBurst, n);
+            mSum = Arrays.copyOf(mSum, n);
+            mFinish = Arrays.copyOf(mFinish, n);
+            mLeft = Arrays.copyOf(mLeft, n);
+            mRight = Arrays.copyOf(mRight, n);
+            mPriority = Arrays.copyOf(mPriority, n);
+        }
+        int node = mNodes++;
+        mArrival[node] = arrival;
+        mBurst[node] = burstTime;
+        mLeft[node] = -1;
+        mRight[node] = -1;
+        mPriority[node] = mRandom.nextInt();
+        update(node);
+        return node;
+    }
+
+    /**
+     * Works out the total burst of a subtree and when it finishes: the
+     * processes after the node run behind it, and behind the left subtree
+     * when that one ends later
+     */
+    private void update(int node) {
+        int left = mLeft[node];
+        int right = mRight[node];
+        long after = mBurst[node] + (right < 0 ? 0 : mSum[right]);
+        // a node whose processes were all taken back finishes nothing
+        long finish = mBurst[node] > 0 ? mArrival[node] + after : Long.MIN_VALUE;
+        if (left >= 0) {
+            finish = Math.max(finish, mFinish[left] + after);
+        }
+        if (right >= 0) {
+            finish = Math.max(finish, mFinish[right]);
+        }
+        mSum[node] = (left < 0 ? 0 : mSum[left]) + after;
+        mFinish[node] = finish;
+    }
+}
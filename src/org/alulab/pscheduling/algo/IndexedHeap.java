@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of process indices. The position of every index is tracked
+ * so that a process can be removed or re-keyed in O(log n).
+ *
+ * @author Dipu
+ */
+final class IndexedHeap implements ReadyQueue {
+
+    /**
+     * Ordering of two process indices; negative if a should run before b
+     */
+    interface KeyOrder {
+
+        int compare(int a, int b);
+    }
+
+    private final KeyOrder mKey;
+    private int[] mHeap;
+    // heap slot of each index plus one, 0 if absent
+    private int[] mPos;
+    private int mSize;
+
+    IndexedHeap(KeyOrder key) {
+        mKey = key;
+        mHeap = new int[16];
+        mPos = new int[16];
+        mSize = 0;
+    }
+
+    @Override
+    public void offer(int index) {
+        if (index >= mPos.length) {
+            mPos = Arrays.copyOf(mPos, Math.max(index + 1, mPos.length * 2));
+        }
+        if (mPos[index] != 0) {
+            update(index);
+            return;
+        }
+        if (mSize == mHeap.length) {
+            mHeap = Arrays.copyOf(mHeap, mSize * 2);
+        }
+        mHeap[mSize] = index;
+        mPos[index] = mSize + 1;
+        siftUp(mSize++);
+    }
+
+    @Override
+    public int poll() {
+        if (mSize == 0) {
+            return -1;
+        }
+        int top = mHeap[0];
+        removeAt(0);
+        return top;
+    }
+
+    @Override
+    public int peek() {
+        return mSize == 0 ? -1 : mHeap[0];
+    }
+
+    @Override
+    public boolean remove(int index) {
+        if (!contains(index)) {
+            return false;
+        }
+        removeAt(mPos[index] - 1);
+        return true;
+    }
+
+    /**
+     * Restores the heap order after the key of index has changed. A decreased
+     * key moves up, an increased key moves down.
+     *
+     * @param index
+     */
+    public void update(int index) {
+        if (contains(index)) {
+            siftUp(mPos[index] - 1);
+            siftDown(mPos[index] - 1);
+        }
+    }
+
+    /**
+     * Decrease-key: the key of index became smaller
+     *
+     * @param index
+     */
+    public void decreaseKey(int index) {
+        if (contains(index)) {
+            siftUp(mPos[index] - 1);
+        }
+    }
+
+    public boolean contains(int index) {
+        return index < mPos.length && mPos[index] != 0;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < mSize; ++i) {
+            mPos[mHeap[i]] = 0;
+        }
+        mSize = 0;
+    }
+
+    private void removeAt(int slot) {
+        mPos[mHeap[slot]] = 0;
+        int last = mHeap[--mSize];
+        if (slot < mSize) {
+            mHeap[slot] = last;
+            mPos[last] = slot + 1;
+            siftUp(slot);
+            siftDown(mPos[last] - 1);
+        }
+    }
+
+    private void siftUp(int slot) {
+        int x = mHeap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int p = mHeap[parent];
+            if (mKey.compare(x, p) >= 0) {
+                break;
+            }
+            mHeap[slot] = p;
+            mPos[p] = slot + 1;
+            slot = parent;
+        }
+        mHeap[slot] = x;
+        mPos[x] = slot + 1;
+    }
+
+    private void siftDown(int slot) {
+        int x = mHeap[slot];
+        int half = mSize >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int c = mHeap[child];
+            int right = child + 1;
+            if (right < mSize && mKey.compare(mHeap[right], c) < 0) {
+                child = right;
+                c = mHeap[child];
+            }
+            if (mKey.compare(x, c) <= 0) {
+                break;
+            }
+            mHeap[slot] = c;
+            mPos[c] = slot + 1;
+            slot = child;
+        }
+        mHeap[slot] = x;
+        mPos[x] = slot + 1;
+    }
+}
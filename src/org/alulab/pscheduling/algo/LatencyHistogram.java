@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Counts of non-negative int values in logarithmic buckets, each split into
+ * linear sub-buckets, in the manner of HdrHistogram. Values below the
+ * sub-bucket count are counted exactly; larger ones lose at most one part
+ * in half the sub-bucket count. The memory is fixed by the precision, and
+ * histograms of the same precision can be added together.
+ *
+ * @author Dipu
+ */
+public final class LatencyHistogram {
+
+    public static final int DEFAULT_PRECISION = 7;
+
+    // sub-buckets per bucket is 1 << precision
+    private final int mPrecision;
+    private final int mSubHalf;
+    private final long[] mCounts;
+    private long mCount;
+    private long mSum;
+    private int mMin;
+    private int mMax;
+
+    public LatencyHistogram() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision log2 of the sub-buckets per bucket, 1 to 12; a
+     * precision of 7 keeps values within 1.6%
+     */
+    public LatencyHistogram(int precision) {
+        checkPrecision(precision);
+        mPrecision = precision;
+        mSubHalf = 1 << (precision - 1);
+        mCounts = new long[index(Integer.MAX_VALUE) + 1];
+        clear();
+    }
+
+    static void checkPrecision(int precision) {
+        if (precision < 1 || precision > 12) {
+            throw new IllegalArgumentException("Precision must be 1 to 12: " + precision);
+        }
+    }
+
+    private int index(int value) {
+        int msb = 31 - Integer.numberOfLeadingZeros(value | ((mSubHalf << 1) - 1));
+        int bucket = msb - mPrecision + 1;
+        return bucket * mSubHalf + (value >>> bucket);
+    }
+
+    /**
+     * Gets the lowest value counted in a bucket
+     */
+    private int lowest(int index) {
+        int bucket = Math.max(0, index / mSubHalf - 1);
+        return (index - bucket * mSubHalf) << bucket;
+    }
+
+    /**
+     * Gets the highest value counted in a bucket
+     */
+    private int highest(int index) {
+        int bucket = Math.max(0, index / mSubHalf - 1);
+        return lowest(index) + ((1 << bucket) - 1);
+    }
+
+    public void record(int value) {
+        record(value, 1);
+    }
+
+    /**
+     * Counts a value several times
+     *
+     * @param value not negative
+     * @param count
+     */
+    public void record(int value, long count) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        mCounts[index(value)] += count;
+        mCount += count;
+        mSum += value * count;
+        mMin = Math.min(mMin, value);
+        mMax = Math.max(mMax, value);
+    }
+
+    /**
+     * Adds the counts of another histogram of the same precision
+     *
+     * @param other
+     */
+    public void add(LatencyHistogram other) {
+        if (other.mPrecision != mPrecision) {
+            throw new IllegalArgumentException("Precision " + other.mPrecision
+                    + " does not match " + mPrecision);
+        }
+        for (int i = 0; i < mCounts.length; ++i) {
+            mCounts[i] += other.mCounts[i];
+        }
+        mCount += other.mCount;
+        mSum += other.mSum;
+        mMin = Math.min(mMin, other.mMin);
+        mMax = Math.max(mMax, other.mMax);
+    }
+
+    public void clear() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mSum = 0;
+        mMin = Integer.MAX_VALUE;
+        mMax = 0;
+    }
+
+    public int getPrecision() {
+        return mPrecision;
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    public double getMean() {
+        return mCount == 0 ? Double.NaN : (double) mSum / mCount;
+    }
+
+    /**
+     * Gets the smallest value, exactly
+     *
+     * @return 0 if empty
+     */
+    public int getMin() {
+        return mCount == 0 ? 0 : mMin;
+    }
+
+    /**
+     * Gets the largest value, exactly
+     *
+     * @return 0 if empty
+     */
+    public int getMax() {
+        return mMax;
+    }
+
+    /**
+     * Gets the value at or below which a percentage of the values lie, as
+     * the highest value of its bucket but no more than the largest value
+     *
+     * @param percentile 0 to 100
+     * @return 0 if empty
+     */
+    public int getValueAtPercentile(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * mCount));
+        long seen = 0;
+        for (int i = 0; i < mCounts.length; ++i) {
+            seen += mCounts[i];
+            if (seen >= rank) {
+                return Math.min(mMax, Math.max(mMin, highest(i)));
+            }
+        }
+        return mMax;
+    }
+
+    /**
+     * Gets the number of buckets, for iterating over them
+     *
+     * @return
+     */
+    public int getBucketCount() {
+        return mCounts.length;
+    }
+
+    public long getBucketCount(int index) {
+        return mCounts[index];
+    }
+
+    public int getBucketLow(int index) {
+        return lowest(index);
+    }
+
+    public int getBucketHigh(int index) {
+        return highest(index);
+    }
+
+    /**
+     * Writes the precision, the totals and the non-empty buckets
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(mPrecision);
+        out.writeLong(mCount);
+        out.writeLong(mSum);
+        out.writeInt(mMin);
+        out.writeInt(mMax);
+        int used = 0;
+        for (long c : mCounts) {
+            if (c != 0) {
+                used++;
+            }
+        }
+        out.writeShort(used);
+        for (int i = 0; i < mCounts.length; ++i) {
+            if (mCounts[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(mCounts[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a histogram written by writeTo
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static LatencyHistogram readFrom(DataInput in) throws IOException {
+        int precision = in.readByte();
+        if (precision < 1 || precision > 12) {
+            throw new IOException("Bad histogram precision " + precision);
+        }
+        LatencyHistogram h = new LatencyHistogram(precision);
+        h.mCount = in.readLong();
+        h.mSum = in.readLong();
+        h.mMin = in.readInt();
+        h.mMax = in.readInt();
+        int used = in.readUnsignedShort();
+        for (int n = 0; n < used; ++n) {
+            int i = in.readUnsignedShort();
+            if (i >= h.mCounts.length) {
+                throw new IOException("Bad histogram bucket " + i);
+            }
+            h.mCounts[i] = in.readLong();
+        }
+        return h;
+    }
+}
@@ -0,0 +1,719 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import org.alulab.pscheduling.model.Process;
+import org.alulab.pscheduling.model.ProcessState;
+import org.alulab.pscheduling.model.ProcessTable;
+import org.alulab.pscheduling.model.Timeline;
+
+/**
+ * Simulates several CPUs sharing one set of processes. Each CPU runs its own
+ * instance of a scheduling algorithm, which keeps its running process and,
+ * with per-CPU run queues, its own queue of waiting processes.
+ * <p>
+ * With a global run queue every arrival goes to one shared queue, and a CPU
+ * takes the next process from it whenever it is idle or may switch. With
+ * per-CPU run queues an arrival goes to the least loaded CPU, and an idle CPU
+ * steals a waiting process from the most loaded one.
+ * <p>
+ * A process that runs on a different CPU than it last ran on has migrated.
+ * The CPU then spends the migration cost without doing any work, before the
+ * process starts running. Because of that cost the simulation may run past
+ * getTotalBurst, and ends when every process has finished.
+ * <p>
+ * Per-CPU run queues may be balanced at fixed intervals instead of at every
+ * decision. The arrivals of an interval are then placed and idle CPUs steal
+ * at its start, and in between every CPU runs on its own, which lets
+ * ParallelMultiCoreScheduler run the CPUs on separate threads.
+ *
+ * @author Dipu
+ */
+public class MultiCoreScheduler extends Scheduler {
+
+    /**
+     * Where arrived processes wait for a CPU
+     */
+    public enum QueueMode {
+        /**
+         * One run queue shared by all CPUs
+         */
+        GLOBAL,
+        /**
+         * A run queue for each CPU, balanced by work stealing
+         */
+        PER_CPU
+    }
+
+    final Scheduler[] mCpus;
+    // shared run queue, null with per-CPU run queues
+    private final Scheduler mShared;
+    private final QueueMode mMode;
+    // time until which a CPU is busy migrating its running process
+    private final int[] mStallUntil;
+    // time at which a CPU last finished a unit of work
+    private final int[] mCpuEnd;
+    private final int[] mMigrations;
+    // CPU each process last ran on, -1 if never
+    private int[] mLastCpu;
+    private int mMigrationCost;
+    // time between balancing per-CPU run queues, 0 for every decision
+    private int mBalanceInterval;
+    private int mEpochEnd;
+    // arrivals placed on each CPU for the current interval
+    private final int[][] mPending;
+    private final int[] mPendingSize;
+    private final int[] mPendingNext;
+
+    /**
+     * Creates a scheduler with the given number of CPUs
+     *
+     * @param algorithm creates the algorithm of each CPU
+     * @param cpus
+     * @param mode
+     */
+    public MultiCoreScheduler(Supplier<? extends Scheduler> algorithm,
+            int cpus, QueueMode mode) {
+        if (cpus <= 0) {
+            throw new IllegalArgumentException("CPU count must be positive: " + cpus);
+        }
+        mMode = mode;
+        mCpus = new Scheduler[cpus];
+        for (int c = 0; c < cpus; ++c) {
+            mCpus[c] = algorithm.get();
+        }
+        mShared = mode == QueueMode.GLOBAL ? algorithm.get() : null;
+        mStallUntil = new int[cpus];
+        mCpuEnd = new int[cpus];
+        mMigrations = new int[cpus];
+        mLastCpu = new int[0];
+        mPending = new int[cpus][16];
+        mPendingSize = new int[cpus];
+        mPendingNext = new int[cpus];
+        initialize();
+    }
+
+    public MultiCoreScheduler(Algorithm algorithm, int cpus, QueueMode mode) {
+        this(algorithm::create, cpus, mode);
+    }
+
+    @Override
+    public String getName() {
+        return String.format("%s (%d CPUs, %s)", mCpus[0].getName(), mCpus.length,
+                mMode == QueueMode.GLOBAL ? "global queue" : "per-CPU queues");
+    }
+
+    @Override
+    void initialize() {
+        // also called by the super constructor, before the CPUs exist
+        if (mCpus == null) {
+            return;
+        }
+        for (int c = 0; c < mCpus.length; ++c) {
+            mCpus[c].attach(cpuTable(c));
+        }
+        if (mShared != null) {
+            mShared.attach(mTable);
+        }
+        Arrays.fill(mStallUntil, 0);
+        Arrays.fill(mCpuEnd, 0);
+        Arrays.fill(mMigrations, 0);
+        Arrays.fill(mLastCpu, -1);
+        Arrays.fill(mPendingSize, 0);
+        Arrays.fill(mPendingNext, 0);
+        mEpochEnd = 0;
+    }
+
+    /**
+     * Gets the table a CPU updates the processes through
+     *
+     * @param cpu
+     * @return
+     */
+    ProcessTable cpuTable(int cpu) {
+        return mTable;
+    }
+
+    @Override
+    int nextRunning(int curTime) {
+        // every CPU selects for itself
+        return -1;
+    }
+
+    @Override
+    void arrive(int index) {
+        if (mShared != null) {
+            mShared.arrive(index);
+            return;
+        }
+        int best = 0;
+        for (int c = 1; c < mCpus.length; ++c) {
+            if (load(c) < load(best)) {
+                best = c;
+            }
+        }
+        mCpus[best].arrive(index);
+    }
+
+    /**
+     * Gets the number of unfinished processes a CPU is responsible for
+     */
+    private int load(int cpu) {
+        Scheduler s = mCpus[cpu];
+        boolean busy = s.mRunning >= 0 && !s.mTable.isFinished(s.mRunning);
+        return s.queued() + (busy ? 1 : 0);
+    }
+
+    private boolean isIdle(int cpu) {
+        Scheduler s = mCpus[cpu];
+        return s.mRunning < 0 || s.mTable.isFinished(s.mRunning);
+    }
+
+    @Override
+    public void stepForward(int amount) {
+        int end = (int) Math.min((long) mCurrentTime + amount, Integer.MAX_VALUE);
+        ensureLastCpu();
+        if (mShared == null && mBalanceInterval > 0) {
+            stepIntervals(end);
+            return;
+        }
+        while (mCurrentTime < end && !isFinished()) {
+            int time = mCurrentTime;
+            admitArrivals(time);
+            if (mShared != null) {
+                // idle CPUs take work first, then the others may switch
+                for (int c = 0; c < mCpus.length; ++c) {
+                    if (isIdle(c)) {
+                        pull(c, time);
+                    }
+                }
+                for (int c = 0; c < mCpus.length; ++c) {
+                    if (!isIdle(c)) {
+                        pull(c, time);
+                    }
+                }
+            } else {
+                for (int c = 0; c < mCpus.length; ++c) {
+                    select(c, time);
+                }
+                steal(time);
+            }
+            int until = time + 1;
+            if (mEventDriven) {
+                until = nextEvent(time);
+                if (until == Integer.MAX_VALUE && isAllIdle()) {
+                    // nothing left that can ever run
+                    break;
+                }
+            }
+            int units = Math.max(1, Math.min(end, until) - time);
+            for (int c = 0; c < mCpus.length; ++c) {
+                run(c, time, units);
+            }
+            mCurrentTime += units;
+        }
+    }
+
+    /**
+     * Runs per-CPU run queues that are balanced at fixed intervals. Each
+     * interval is balanced once at its start, even when stepped in pieces.
+     */
+    private void stepIntervals(int end) {
+        while (mCurrentTime < end && !isFinished()) {
+            int time = mCurrentTime;
+            if (time >= mEpochEnd) {
+                if (mEventDriven && isAllIdle() && queued() == 0) {
+                    // skip the intervals before the next arrival
+                    int next = nextArrival();
+                    if (next == Integer.MAX_VALUE) {
+                        break;
+                    }
+                    time = Math.max(time, next - next % mBalanceInterval);
+                    if (time >= end) {
+                        mCurrentTime = end;
+                        break;
+                    }
+                }
+                mEpochEnd = (int) Math.min(Integer.MAX_VALUE,
+                        ((long) time / mBalanceInterval + 1) * mBalanceInterval);
+                balance();
+            }
+            int to = Math.min(end, mEpochEnd);
+            advanceAll(time, to);
+            mCurrentTime = to;
+        }
+        if (isFinished() && mTable.size() > 0) {
+            int last = 0;
+            for (int t : mCpuEnd) {
+                last = Math.max(last, t);
+            }
+            mCurrentTime = Math.min(mCurrentTime, last);
+        }
+    }
+
+    @Override
+    int queued() {
+        int queued = 0;
+        for (Scheduler s : mCpus) {
+            queued += s.queued();
+        }
+        return queued;
+    }
+
+    /**
+     * Lets idle CPUs steal half the waiting processes of the most loaded CPU,
+     * then places the arrivals of the coming interval on the least loaded
+     * CPUs
+     */
+    private void balance() {
+        for (int c = 0; c < mCpus.length; ++c) {
+            if (load(c) > 0) {
+                continue;
+            }
+            int victim = -1;
+            for (int v = 0; v < mCpus.length; ++v) {
+                if (mCpus[v].queued() > 0
+                        && (victim < 0 || mCpus[v].queued() > mCpus[victim].queued())) {
+                    victim = v;
+                }
+            }
+            if (victim < 0) {
+                break;
+            }
+            for (int n = (mCpus[victim].queued() + 1) / 2; n > 0; --n) {
+                mCpus[c].migrate(mCpus[victim], mCpus[victim].steal());
+            }
+        }
+        int[] load = new int[mCpus.length];
+        for (int c = 0; c < mCpus.length; ++c) {
+            load[c] = load(c);
+            mPendingSize[c] = 0;
+            mPendingNext[c] = 0;
+        }
+        while (mOrder.nextArrival() < mEpochEnd) {
+            int row = mOrder.next();
+            if (mTable.isFinished(row)) {
+                continue;
+            }
+            int best = 0;
+            for (int c = 1; c < mCpus.length; ++c) {
+                if (load[c] < load[best]) {
+                    best = c;
+                }
+            }
+            load[best]++;
+            if (mPendingSize[best] == mPending[best].length) {
+                mPending[best] = Arrays.copyOf(mPending[best], 2 * mPendingSize[best]);
+            }
+            mPending[best][mPendingSize[best]++] = row;
+        }
+        // a process added later that arrives before the interval ends is
+        // admitted straight away
+        mAdmitTime = mEpochEnd - 1;
+    }
+
+    /**
+     * Runs every CPU from one time to another without balancing
+     *
+     * @param from
+     * @param to
+     */
+    void advanceAll(int from, int to) {
+        for (int c = 0; c < mCpus.length; ++c) {
+            if (isActive(c)) {
+                advance(c, from, to);
+            }
+        }
+    }
+
+    /**
+     * Checks if a CPU has anything to do in the current interval
+     *
+     * @param cpu
+     * @return
+     */
+    final boolean isActive(int cpu) {
+        return work(cpu) > 0;
+    }
+
+    /**
+     * Gets the number of processes a CPU may run in the current interval
+     *
+     * @param cpu
+     * @return
+     */
+    final int work(int cpu) {
+        return load(cpu) + mPendingSize[cpu] - mPendingNext[cpu];
+    }
+
+    /**
+     * Runs one CPU from one time to another, touching nothing that belongs
+     * to the other CPUs
+     *
+     * @param cpu
+     * @param from
+     * @param to
+     */
+    final void advance(int cpu, int from, int to) {
+        int time = from;
+        while (time < to) {
+            admitPending(cpu, time);
+            select(cpu, time);
+            int until = time + 1;
+            if (mEventDriven) {
+                until = mPendingNext[cpu] < mPendingSize[cpu]
+                        ? mCpus[cpu].mTable.getArriveTime(mPending[cpu][mPendingNext[cpu]])
+                        : Integer.MAX_VALUE;
+                until = Math.min(until, nextEvent(cpu, time));
+            }
+            int units = Math.max(1, Math.min(to, until) - time);
+            run(cpu, time, units);
+            time += units;
+        }
+    }
+
+    private void admitPending(int cpu, int time) {
+        Scheduler s = mCpus[cpu];
+        int[] pending = mPending[cpu];
+        while (mPendingNext[cpu] < mPendingSize[cpu]
+                && s.mTable.getArriveTime(pending[mPendingNext[cpu]]) <= time) {
+            int row = pending[mPendingNext[cpu]++];
+            if (s.mTable.is(row, ProcessState.NEW)) {
+                s.mTable.setState(row, ProcessState.READY);
+            }
+            s.arrive(row);
+        }
+    }
+
+    /**
+     * Offers a CPU the next process of the shared queue and lets it select.
+     * The offered process goes back to the front of the shared queue if it
+     * was not selected, and a process it preempted goes to the back.
+     */
+    private void pull(int cpu, int time) {
+        Scheduler s = mCpus[cpu];
+        int offered = mShared.steal();
+        if (offered >= 0) {
+            s.migrate(mShared, offered);
+        }
+        select(cpu, time);
+        int row;
+        while ((row = s.steal()) >= 0) {
+            if (row == offered) {
+                mShared.putBack(row);
+            } else {
+                mShared.migrate(s, row);
+            }
+        }
+    }
+
+    /**
+     * Gets the next decision point of a CPU. With a global run queue the CPU
+     * is shown the next waiting process, so that an algorithm like round
+     * robin knows it has someone to switch to.
+     */
+    private int nextDecision(int cpu, int time) {
+        Scheduler s = mCpus[cpu];
+        int offered = mShared != null ? mShared.steal() : -1;
+        if (offered < 0) {
+            return s.nextDecision(time);
+        }
+        s.migrate(mShared, offered);
+        int decision = s.nextDecision(time);
+        s.steal();
+        mShared.putBack(offered);
+        return decision;
+    }
+
+    /**
+     * Lets idle CPUs steal a waiting process from the CPU with the most
+     */
+    private void steal(int time) {
+        for (int c = 0; c < mCpus.length; ++c) {
+            if (!isIdle(c)) {
+                continue;
+            }
+            int victim = -1;
+            for (int v = 0; v < mCpus.length; ++v) {
+                if (mCpus[v].queued() > 0
+                        && (victim < 0 || mCpus[v].queued() > mCpus[victim].queued())) {
+                    victim = v;
+                }
+            }
+            if (victim < 0) {
+                return;
+            }
+            mCpus[c].migrate(mCpus[victim], mCpus[victim].steal());
+            select(c, time);
+        }
+    }
+
+    /**
+     * Asks the algorithm of a CPU what to run, and starts a migration if the
+     * selected process last ran elsewhere
+     */
+    private void select(int cpu, int time) {
+        Scheduler s = mCpus[cpu];
+        ProcessTable table = s.mTable;
+        int prev = s.mRunning;
+        s.mRunning = s.nextRunning(time);
+        int row = s.mRunning;
+        if (prev >= 0 && prev != row && table.is(prev, ProcessState.RUNNING)) {
+            table.setState(prev, ProcessState.WAITING);
+        }
+        if (row < 0 || row == prev || table.isFinished(row)) {
+            return;
+        }
+        mStallUntil[cpu] = time;
+        if (row >= mLastCpu.length) {
+            ensureLastCpu();
+        }
+        int last = mLastCpu[row];
+        if (last >= 0 && last != cpu) {
+            mMigrations[cpu]++;
+            mStallUntil[cpu] = (int) Math.min(Integer.MAX_VALUE, (long) time + mMigrationCost);
+        }
+        mLastCpu[row] = cpu;
+    }
+
+    private void ensureLastCpu() {
+        int old = mLastCpu.length;
+        if (old < mTable.size()) {
+            mLastCpu = Arrays.copyOf(mLastCpu, Math.max(mTable.size(), 2 * old));
+            Arrays.fill(mLastCpu, old, mLastCpu.length, -1);
+        }
+    }
+
+    /**
+     * Gets the next time any CPU may change what it runs
+     */
+    private int nextEvent(int time) {
+        int until = nextArrival();
+        for (int c = 0; c < mCpus.length; ++c) {
+            until = Math.min(until, nextEvent(c, time));
+        }
+        return until;
+    }
+
+    /**
+     * Gets the next time a CPU may change what it runs, not counting
+     * arrivals
+     */
+    private int nextEvent(int cpu, int time) {
+        if (isIdle(cpu)) {
+            return Integer.MAX_VALUE;
+        }
+        if (mStallUntil[cpu] > time) {
+            return mStallUntil[cpu];
+        }
+        Scheduler s = mCpus[cpu];
+        int until = time + s.mTable.getRemaining(s.mRunning);
+        return Math.min(until, nextDecision(cpu, time));
+    }
+
+    private boolean isAllIdle() {
+        for (int c = 0; c < mCpus.length; ++c) {
+            if (!isIdle(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void run(int cpu, int time, int units) {
+        if (isIdle(cpu) || mStallUntil[cpu] > time) {
+            return;
+        }
+        Scheduler s = mCpus[cpu];
+        int row = s.mRunning;
+        if (s.mLastRun >= 0 && s.mLastRun != row) {
+            s.mContextSwitches++;
+        }
+        s.mLastRun = row;
+        int work = Math.min(units, s.mTable.getRemaining(row));
+        s.mBusyTime += work;
+        mCpuEnd[cpu] = time + work;
+        s.mTable.dowork(row, time, units);
+        if (s.mTimeline != null) {
+            s.mTimeline.append(s.mTable.getPID(row), time, work);
+        }
+        if (mListener != null) {
+            s.report(mListener, cpu, row, time, work);
+        }
+        if (mMetrics != null) {
+            mMetrics.ran(time, work);
+            if (s.mTable.isFinished(row)) {
+                mMetrics.finished(s.mTable, row);
+            }
+        }
+        if (mHistograms != null && s.mTable.isFinished(row)) {
+            mHistograms.finished(s.mTable, row);
+        }
+        if (s.mTable.isFinished(row)) {
+            // counted by the CPU, which only one thread advances
+            s.checkDeadline(s.mTable, row);
+        }
+    }
+
+    /**
+     * Sets the time units a CPU spends before running a process that last
+     * ran on another CPU
+     *
+     * @param cost
+     */
+    public void setMigrationCost(int cost) {
+        if (cost < 0) {
+            throw new IllegalArgumentException("Migration cost must not be negative: " + cost);
+        }
+        mMigrationCost = cost;
+    }
+
+    public int getMigrationCost() {
+        return mMigrationCost;
+    }
+
+    public QueueMode getQueueMode() {
+        return mMode;
+    }
+
+    /**
+     * Sets the time between balancing per-CPU run queues. With 0 they are
+     * balanced at every decision; a global run queue always is.
+     *
+     * @param interval
+     */
+    public void setBalanceInterval(int interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("Balance interval must not be negative: " + interval);
+        }
+        mBalanceInterval = interval;
+    }
+
+    public int getBalanceInterval() {
+        return mBalanceInterval;
+    }
+
+    /**
+     * Gets the number of times a process moved to another CPU
+     *
+     * @return
+     */
+    public int getMigrations() {
+        int migrations = 0;
+        for (int m : mMigrations) {
+            migrations += m;
+        }
+        return migrations;
+    }
+
+    /**
+     * Gets the total time the CPUs spent on migrations
+     *
+     * @return
+     */
+    public int getMigrationTime() {
+        return getMigrations() * mMigrationCost;
+    }
+
+    @Override
+    public int getCpuCount() {
+        return mCpus.length;
+    }
+
+    @Override
+    public int getBusyTime(int cpu) {
+        return mCpus[cpu].mBusyTime;
+    }
+
+    @Override
+    public int getBusyTime() {
+        int busy = 0;
+        for (Scheduler s : mCpus) {
+            busy += s.mBusyTime;
+        }
+        return busy;
+    }
+
+    @Override
+    public int getContextSwitches() {
+        int switches = 0;
+        for (Scheduler s : mCpus) {
+            switches += s.mContextSwitches;
+        }
+        return switches;
+    }
+
+    @Override
+    public long getDeadlineCount() {
+        long count = 0;
+        for (Scheduler s : mCpus) {
+            count += s.mDeadlines;
+        }
+        return count;
+    }
+
+    @Override
+    public long getDeadlineMisses() {
+        long misses = 0;
+        for (Scheduler s : mCpus) {
+            misses += s.mDeadlineMisses;
+        }
+        return misses;
+    }
+
+    @Override
+    public int getMaxLateness() {
+        int late = 0;
+        for (Scheduler s : mCpus) {
+            late = Math.max(late, s.mMaxLateness);
+        }
+        return late;
+    }
+
+    @Override
+    public void setRecordTimeline(boolean record) {
+        for (Scheduler s : mCpus) {
+            s.setRecordTimeline(record);
+        }
+    }
+
+    @Override
+    public boolean isRecordingTimeline() {
+        return mCpus[0].isRecordingTimeline();
+    }
+
+    /**
+     * Gets what the first CPU ran so far
+     *
+     * @return null unless recording
+     */
+    @Override
+    public Timeline getTimeline() {
+        return getTimeline(0);
+    }
+
+    @Override
+    public Timeline getTimeline(int cpu) {
+        return mCpus[cpu].getTimeline();
+    }
+
+    /**
+     * Gets the process running on a CPU
+     *
+     * @param cpu
+     * @return null if the CPU is idle
+     */
+    public Process getRunning(int cpu) {
+        return isIdle(cpu) ? null : view(mCpus[cpu].mRunning);
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+
+/**
+ * Multi-level feedback queue. A process arrives at the top level and runs
+ * for the quantum of its level in total before it is demoted to the next
+ * one; a process preempted by a higher level keeps what is left of its
+ * quantum and goes back to the front of its level. Every boost interval all
+ * processes are moved back to the top level, so that the long ones do not
+ * starve.
+ * <p>
+ * Each level is a linked list threaded through the rows, and a bit mask
+ * tells the non-empty levels apart, so selecting, demoting and boosting
+ * take constant time whatever the number of processes.
+ *
+ * @author Dipu
+ */
+public class MultiLevelFeedbackQueue extends Scheduler {
+
+    public static final int MAX_LEVELS = 64;
+    public static final int[] DEFAULT_QUANTA = {5, 10, 20};
+    public static final int DEFAULT_BOOST_INTERVAL = 500;
+
+    private int[] mQuanta;
+    private int mBoostInterval;
+
+    // first and last row of each level, -1 if the level is empty
+    private int[] mHead;
+    private int[] mTail;
+    // next row in the same level
+    private int[] mNext;
+    // bit set for each non-empty level
+    private long mNonEmpty;
+    private int mQueued;
+    // level, quantum left and boost count when these were set, of each row
+    private int[] mLevel;
+    private int[] mLeft;
+    private int[] mStamp;
+    // number of boost intervals passed; a row stamped earlier is at the top
+    private int mBoosts;
+    // level and end of the quantum of the running process
+    private int mRunLevel;
+    private int mSliceEnd;
+
+    public MultiLevelFeedbackQueue() {
+        this(DEFAULT_QUANTA, DEFAULT_BOOST_INTERVAL);
+    }
+
+    /**
+     * @param quanta quantum of each level, from the top
+     * @param boostInterval time units between boosts, 0 for none
+     */
+    public MultiLevelFeedbackQueue(int[] quanta, int boostInterval) {
+        setQuanta(quanta);
+        setBoostInterval(boostInterval);
+    }
+
+    public int[] getQuanta() {
+        return mQuanta.clone();
+    }
+
+    /**
+     * Sets the levels by their quanta, from the top. Only allowed while no
+     * process is waiting or running.
+     *
+     * @param quanta
+     */
+    public final void setQuanta(int[] quanta) {
+        if (quanta.length == 0 || quanta.length > MAX_LEVELS) {
+            throw new IllegalArgumentException("Levels must be 1 to " + MAX_LEVELS
+                    + ": " + quanta.length);
+        }
+        for (int q : quanta) {
+            if (q <= 0) {
+                throw new IllegalArgumentException("Quantum must be positive: " + q);
+            }
+        }
+        if (mQueued > 0 || mRunning >= 0) {
+            throw new IllegalStateException("Levels cannot change while processes are queued");
+        }
+        mQuanta = quanta.clone();
+        mHead = new int[quanta.length];
+        mTail = new int[quanta.length];
+        Arrays.fill(mHead, -1);
+        Arrays.fill(mTail, -1);
+    }
+
+    public int getBoostInterval() {
+        return mBoostInterval;
+    }
+
+    /**
+     * Sets the time between boosts, taking effect from the next one
+     *
+     * @param boostInterval 0 for none
+     */
+    public final void setBoostInterval(int boostInterval) {
+        if (boostInterval < 0) {
+            throw new IllegalArgumentException("Boost interval must not be negative: "
+                    + boostInterval);
+        }
+        mBoostInterval = boostInterval;
+    }
+
+    public int getLevelCount() {
+        return mQuanta.length;
+    }
+
+    @Override
+    void initialize() {
+        // also called by the super constructor, before the quanta are set
+        int levels = mQuanta == null ? 1 : mQuanta.length;
+        mHead = new int[levels];
+        mTail = new int[levels];
+        Arrays.fill(mHead, -1);
+        Arrays.fill(mTail, -1);
+        mNext = new int[16];
+        mLevel = new int[16];
+        mLeft = new int[16];
+        mStamp = new int[16];
+        mNonEmpty = 0;
+        mQueued = 0;
+        mBoosts = 0;
+        mRunLevel = 0;
+        mSliceEnd = 0;
+    }
+
+    @Override
+    public String getName() {
+        return "Multi-Level Feedback Queue";
+    }
+
+    @Override
+    void arrive(int index) {
+        ensureRows(index);
+        keep(index, 0, mQuanta[0]);
+        offer(0, index);
+    }
+
+    @Override
+    void migrate(Scheduler from, int index) {
+        if (!(from instanceof MultiLevelFeedbackQueue)) {
+            arrive(index);
+            return;
+        }
+        MultiLevelFeedbackQueue m = (MultiLevelFeedbackQueue) from;
+        ensureRows(index);
+        if (m.mStamp[index] < m.mBoosts) {
+            keep(index, 0, mQuanta[0]);
+        } else {
+            keep(index, Math.min(m.mLevel[index], mQuanta.length - 1), m.mLeft[index]);
+        }
+        offer(mLevel[index], index);
+    }
+
+    @Override
+    int queued() {
+        return mQueued;
+    }
+
+    @Override
+    int steal() {
+        return mNonEmpty == 0 ? -1 : poll(top());
+    }
+
+    @Override
+    void putBack(int index) {
+        offerFirst(level(index), index);
+    }
+
+    @Override
+    int nextRunning(int time) {
+        boost(time);
+        if (mRunning >= 0 && !mTable.isFinished(mRunning)) {
+            int level = mRunLevel;
+            if (time >= mSliceEnd) {
+                // used up its quantum on this level
+                level = Math.min(level + 1, mQuanta.length - 1);
+                if (top() > level) {
+                    // nobody else on this level or above
+                    return dispatch(mRunning, level, mQuanta[level], time);
+                }
+                keep(mRunning, level, mQuanta[level]);
+                offer(level, mRunning);
+            } else if (top() < level) {
+                keep(mRunning, level, mSliceEnd - time);
+                offerFirst(level, mRunning);
+            } else {
+                return mRunning;
+            }
+        }
+        if (mNonEmpty == 0) {
+            return -1;
+        }
+        int level = top();
+        int row = poll(level);
+        int left = mStamp[row] < mBoosts ? mQuanta[level] : mLeft[row];
+        return dispatch(row, level, Math.min(left, mQuanta[level]), time);
+    }
+
+    @Override
+    int nextDecision(int curTime) {
+        int next = Math.min(nextArrival(), mSliceEnd);
+        if (mBoostInterval > 0) {
+            next = (int) Math.min(next, nextBoost());
+        }
+        return next;
+    }
+
+    private int dispatch(int row, int level, int left, int time) {
+        mRunLevel = level;
+        mSliceEnd = (int) Math.min(Integer.MAX_VALUE, (long) time + left);
+        return row;
+    }
+
+    /**
+     * Moves every process to the top level if a boost interval has passed,
+     * by joining the levels in order
+     */
+    private void boost(int time) {
+        if (mBoostInterval <= 0 || time < nextBoost()) {
+            return;
+        }
+        mBoosts = time / mBoostInterval;
+        for (int level = 1; level < mHead.length; ++level) {
+            if (mHead[level] < 0) {
+                continue;
+            }
+            if (mHead[0] < 0) {
+                mHead[0] = mHead[level];
+            } else {
+                mNext[mTail[0]] = mHead[level];
+            }
+            mTail[0] = mTail[level];
+            mHead[level] = mTail[level] = -1;
+        }
+        mNonEmpty = mHead[0] < 0 ? 0 : 1;
+        if (mRunning >= 0) {
+            // the running process starts over at the top too
+            keep(mRunning, 0, mQuanta[0]);
+            dispatch(mRunning, 0, mQuanta[0], time);
+        }
+    }
+
+    private long nextBoost() {
+        return ((long) mBoosts + 1) * mBoostInterval;
+    }
+
+    /**
+     * Gets the highest non-empty level
+     *
+     * @return the number of levels if all are empty
+     */
+    private int top() {
+        return mNonEmpty == 0 ? mHead.length : Long.numberOfTrailingZeros(mNonEmpty);
+    }
+
+    private int level(int row) {
+        return mStamp[row] < mBoosts ? 0 : mLevel[row];
+    }
+
+    private void keep(int row, int level, int left) {
+        mLevel[row] = level;
+        mLeft[row] = left;
+        mStamp[row] = mBoosts;
+    }
+
+    private void offer(int level, int row) {
+        mNext[row] = -1;
+        if (mHead[level] < 0) {
+            mHead[level] = row;
+            mNonEmpty |= 1L << level;
+        } else {
+            mNext[mTail[level]] = row;
+        }
+        mTail[level] = row;
+        mQueued++;
+    }
+
+    private void offerFirst(int level, int row) {
+        mNext[row] = mHead[level];
+        if (mHead[level] < 0) {
+            mTail[level] = row;
+            mNonEmpty |= 1L << level;
+        }
+        mHead[level] = row;
+        mQueued++;
+    }
+
+    private int poll(int level) {
+        int row = mHead[level];
+        mHead[level] = mNext[row];
+        if (mHead[level] < 0) {
+            mTail[level] = -1;
+            mNonEmpty &= ~(1L << level);
+        }
+        mQueued--;
+        return row;
+    }
+
+    private void ensureRows(int row) {
+        if (row >= mNext.length) {
+            int n = Math.max(row + 1, 2 * mNext.length);
+            mNext = Arrays.copyOf(mNext, n);
+            mLevel = Arrays.copyOf(mLevel, n);
+            mLeft = Arrays.copyOf(mLeft, n);
+            mStamp = Arrays.copyOf(mStamp, n);
+        }
+    }
+}
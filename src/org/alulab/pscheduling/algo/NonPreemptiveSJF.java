@@ -10,29 +10,29 @@
  */
 package org.alulab.pscheduling.algo;
 
-import org.alulab.pscheduling.model.Process;
-
 /**
  *
  * @author Dipu
  */
 public class NonPreemptiveSJF extends ShortestJobFirst {
 
-    @Override
-    void initialize() {
-    }
-
     @Override
     public String getName() {
         return "Non Pre-emptive Shortest Job First";
     }
 
     @Override
-    Process nextRunning(int curTime) {
-        if (mRunning == null || mRunning.isFinished()) {
-            return getNextProcess(curTime);
+    int nextRunning(int curTime) {
+        if (mRunning < 0 || mTable.isFinished(mRunning)) {
+            return pollNextProcess(curTime);
         }
         return mRunning;
     }
 
+    @Override
+    int nextDecision(int curTime) {
+        // runs until completion
+        return Integer.MAX_VALUE;
+    }
+
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+
+/**
+ * Estimates one quantile of a stream of values in constant memory with the
+ * P² algorithm of Jain and Chlamtac. Five markers track the minimum, the
+ * quantile, the maximum and two points halfway between; each value moves
+ * the markers toward their ideal positions, adjusting their heights along a
+ * parabola through the neighbours.
+ *
+ * @author Dipu
+ */
+public final class P2Quantile {
+
+    private final double mP;
+    // marker heights, actual positions, desired positions and their steps
+    private final double[] mHeight = new double[5];
+    private final long[] mPos = new long[5];
+    private final double[] mDesired = new double[5];
+    private final double[] mStep = new double[5];
+    private long mCount;
+
+    /**
+     * @param p the quantile, between 0 and 1
+     */
+    public P2Quantile(double p) {
+        if (!(p > 0 && p < 1)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + p);
+        }
+        mP = p;
+        clear();
+    }
+
+    public void clear() {
+        mCount = 0;
+        for (int i = 0; i < 5; ++i) {
+            mPos[i] = i;
+        }
+        mDesired[0] = 0;
+        mDesired[1] = 2 * mP;
+        mDesired[2] = 4 * mP;
+        mDesired[3] = 2 + 2 * mP;
+        mDesired[4] = 4;
+        mStep[0] = 0;
+        mStep[1] = mP / 2;
+        mStep[2] = mP;
+        mStep[3] = (1 + mP) / 2;
+        mStep[4] = 1;
+    }
+
+    public void add(double x) {
+        if (mCount < 5) {
+            mHeight[(int) mCount++] = x;
+            if (mCount == 5) {
+                Arrays.sort(mHeight);
+            }
+            return;
+        }
+        insert(x, 1);
+        adjust(1);
+        mCount++;
+    }
+
+    /**
+     * Adds the same value several times in constant time. The markers move
+     * toward their desired positions as far as their neighbours allow at
+     * once rather than one place per value, and a marker that ends up among
+     * the copies takes their value.
+     *
+     * @param x
+     * @param n
+     */
+    public void add(double x, long n) {
+        for (; n > 0 && mCount < 5; --n) {
+            add(x);
+        }
+        if (n == 0) {
+            return;
+        }
+        int k = insert(x, n);
+        // positions of the copies, right after marker k
+        long first = mPos[k] + 1;
+        long last = mPos[k] + n;
+        // moving a marker may make room for its neighbours
+        for (int pass = 0; pass < 3; ++pass) {
+            if (!adjust(Long.MAX_VALUE)) {
+                break;
+            }
+        }
+        for (int i = 1; i < 4; ++i) {
+            if (first <= mPos[i] && mPos[i] <= last) {
+                mHeight[i] = x;
+            }
+        }
+        mCount += n;
+    }
+
+    /**
+     * Counts n copies of a value in the cell of markers it falls into
+     *
+     * @return the marker the copies follow
+     */
+    private int insert(double x, long n) {
+        int k;
+        if (x < mHeight[0]) {
+            mHeight[0] = x;
+            k = 0;
+        } else if (x >= mHeight[4]) {
+            mHeight[4] = x;
+            k = 3;
+        } else {
+            k = 0;
+            while (x >= mHeight[k + 1]) {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < 5; ++i) {
+            mPos[i] += n;
+        }
+        for (int i = 0; i < 5; ++i) {
+            mDesired[i] += n * mStep[i];
+        }
+        return k;
+    }
+
+    /**
+     * Moves the middle markers toward their desired positions by at most a
+     * number of places
+     *
+     * @return true if a marker moved
+     */
+    private boolean adjust(long most) {
+        boolean moved = false;
+        for (int i = 1; i < 4; ++i) {
+            double d = mDesired[i] - mPos[i];
+            long s;
+            if (d >= 1 && mPos[i + 1] - mPos[i] > 1) {
+                s = Math.min(most, Math.min((long) d, mPos[i + 1] - mPos[i] - 1));
+            } else if (d <= -1 && mPos[i - 1] - mPos[i] < -1) {
+                s = -Math.min(most, Math.min((long) -d, mPos[i] - mPos[i - 1] - 1));
+            } else {
+                continue;
+            }
+            int toward = s > 0 ? i + 1 : i - 1;
+            double h = parabolic(i, s);
+            if (mHeight[i - 1] < h && h < mHeight[i + 1]) {
+                mHeight[i] = h;
+            } else {
+                mHeight[i] += s * (mHeight[toward] - mHeight[i]) / (mPos[toward] - mPos[i]);
+            }
+            mPos[i] += s;
+            moved = true;
+        }
+        return moved;
+    }
+
+    private double parabolic(int i, long s) {
+        double left = mPos[i] - mPos[i - 1];
+        double right = mPos[i + 1] - mPos[i];
+        return mHeight[i] + s / (double) (mPos[i + 1] - mPos[i - 1])
+                * ((left + s) * (mHeight[i + 1] - mHeight[i]) / right
+                + (right - s) * (mHeight[i] - mHeight[i - 1]) / left);
+    }
+
+    /**
+     * Gets the estimate. Exact while fewer than five values were added.
+     *
+     * @return NaN if no value was added
+     */
+    public double get() {
+        if (mCount == 0) {
+            return Double.NaN;
+        }
+        if (mCount < 5) {
+            double[] sorted = Arrays.copyOf(mHeight, (int) mCount);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.round(mP * (mCount - 1))];
+        }
+        return mHeight[2];
+    }
+
+    public double getQuantile() {
+        return mP;
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+}
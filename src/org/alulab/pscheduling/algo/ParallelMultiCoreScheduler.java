@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.concurrent.Phaser;
+import java.util.function.Supplier;
+import org.alulab.pscheduling.model.ProcessTable;
+
+/**
+ * Runs the CPUs of a multi-core scheduler with per-CPU run queues on worker
+ * threads. The run queues are balanced at fixed intervals; in between, every
+ * worker advances its own CPUs to the end of the interval, and the workers
+ * meet at a phaser before the next interval is balanced. Processes only move
+ * between CPUs while the workers wait, so the result is exactly that of a
+ * MultiCoreScheduler with the same balance interval.
+ * <p>
+ * The worker threads are started by the first step and stopped by close. A
+ * scheduler with a listener, metrics or histograms runs its CPUs on the
+ * calling thread.
+ *
+ * @author Dipu
+ */
+public class ParallelMultiCoreScheduler extends MultiCoreScheduler
+        implements AutoCloseable {
+
+    public static final int DEFAULT_BALANCE_INTERVAL = 1000;
+    // intervals with fewer processes to run are run on the calling thread
+    private static final int MIN_PARALLEL_WORK = 256;
+
+    private final int mThreads;
+    // each CPU updates the processes through its own share of the table
+    private ProcessTable[] mShares;
+    private Phaser mPhaser;
+    private Thread[] mWorkers;
+    private int mFrom;
+    private int mTo;
+    private boolean mClosed;
+    private Throwable mFailure;
+
+    /**
+     * Creates a scheduler with the given number of CPUs, run by as many
+     * threads as there are processors
+     *
+     * @param algorithm creates the algorithm of each CPU
+     * @param cpus
+     */
+    public ParallelMultiCoreScheduler(Supplier<? extends Scheduler> algorithm, int cpus) {
+        this(algorithm, cpus, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a scheduler with the given number of CPUs and worker threads
+     *
+     * @param algorithm creates the algorithm of each CPU
+     * @param cpus
+     * @param threads
+     */
+    public ParallelMultiCoreScheduler(Supplier<? extends Scheduler> algorithm,
+            int cpus, int threads) {
+        super(algorithm, cpus, QueueMode.PER_CPU);
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        mThreads = Math.min(threads, cpus);
+        setBalanceInterval(DEFAULT_BALANCE_INTERVAL);
+    }
+
+    public ParallelMultiCoreScheduler(Algorithm algorithm, int cpus) {
+        this(algorithm::create, cpus);
+    }
+
+    @Override
+    ProcessTable cpuTable(int cpu) {
+        if (mShares == null || mShares[0].size() != mTable.size()) {
+            mShares = new ProcessTable[getCpuCount()];
+        }
+        if (mShares[cpu] == null) {
+            mShares[cpu] = mTable.share();
+        }
+        return mShares[cpu];
+    }
+
+    @Override
+    public void setBalanceInterval(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Balance interval must be positive: " + interval);
+        }
+        super.setBalanceInterval(interval);
+    }
+
+    @Override
+    public void stepForward(int amount) {
+        if (mShares == null || mShares[0].size() != mTable.size()) {
+            // rows were added, share the new columns
+            for (int c = 0; c < getCpuCount(); ++c) {
+                mCpus[c].mTable = cpuTable(c);
+            }
+        }
+        super.stepForward(amount);
+    }
+
+    @Override
+    void advanceAll(int from, int to) {
+        int active = 0;
+        int work = 0;
+        for (int c = 0; c < getCpuCount(); ++c) {
+            if (isActive(c)) {
+                active++;
+                work += work(c);
+            }
+        }
+        if (mThreads == 1 || active < 2 || work < MIN_PARALLEL_WORK
+                || mListener != null || mMetrics != null || mHistograms != null) {
+            // not worth waking the workers, or the listener, metrics or
+            // histograms would be called from several threads
+            super.advanceAll(from, to);
+        } else {
+            if (mWorkers == null) {
+                start();
+            }
+            mFrom = from;
+            mTo = to;
+            // release the workers, then wait for them to finish
+            mPhaser.arriveAndAwaitAdvance();
+            mPhaser.arriveAndAwaitAdvance();
+        }
+        for (ProcessTable share : mShares) {
+            mTable.mergeCounts(share);
+        }
+        if (mFailure != null) {
+            Throwable failure = mFailure;
+            mFailure = null;
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    private void start() {
+        if (mClosed) {
+            throw new IllegalStateException("Scheduler is closed");
+        }
+        mPhaser = new Phaser(mThreads + 1);
+        mWorkers = new Thread[mThreads];
+        for (int w = 0; w < mThreads; ++w) {
+            final int first = w;
+            mWorkers[w] = new Thread(() -> runWorker(first), "cpu-worker-" + w);
+            mWorkers[w].setDaemon(true);
+            mWorkers[w].start();
+        }
+    }
+
+    /**
+     * Advances CPUs first, first + threads, ... once every interval
+     */
+    private void runWorker(int first) {
+        while (true) {
+            mPhaser.arriveAndAwaitAdvance();
+            if (mClosed) {
+                return;
+            }
+            try {
+                for (int c = first; c < getCpuCount(); c += mThreads) {
+                    if (isActive(c)) {
+                        advance(c, mFrom, mTo);
+                    }
+                }
+            } catch (RuntimeException | Error ex) {
+                synchronized (this) {
+                    if (mFailure == null) {
+                        mFailure = ex;
+                    }
+                }
+            }
+            mPhaser.arriveAndAwaitAdvance();
+        }
+    }
+
+    public int getThreadCount() {
+        return mThreads;
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        if (mWorkers != null) {
+            mPhaser.arriveAndDeregister();
+            for (Thread worker : mWorkers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -10,25 +10,19 @@
  */
 package org.alulab.pscheduling.algo;
 
-import org.alulab.pscheduling.model.Process;
-
 /**
  *
  * @author Dipu
  */
 public class PreemptivePS extends PriorityScheduling {
 
-    @Override
-    void initialize() {
-    }
-
     @Override
     public String getName() {
         return "Pre-emptive Priority Scheduling";
     }
 
     @Override
-    Process nextRunning(int curTime) {
+    int nextRunning(int curTime) {
         return getNextProcess(curTime);
     }
 
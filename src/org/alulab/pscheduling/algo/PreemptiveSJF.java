@@ -10,25 +10,19 @@
  */
 package org.alulab.pscheduling.algo;
 
-import org.alulab.pscheduling.model.Process;
-
 /**
  *
  * @author Dipu
  */
 public class PreemptiveSJF extends ShortestJobFirst {
 
-    @Override
-    void initialize() {
-    }
-
     @Override
     public String getName() {
         return "Pre-emptive Shortest Job First";
     }
 
     @Override
-    Process nextRunning(int curTime) {
+    int nextRunning(int curTime) {
         return getNextProcess(curTime);
     }
 
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.alulab.pscheduling.model.ProcessTable;
+
+/**
+ * Waiting and response time histograms of the finished processes of each
+ * priority, so that the tail of every priority tier can be seen. They can
+ * be added together across runs and saved in a small binary file or as the
+ * buckets in CSV text.
+ *
+ * @author Dipu
+ */
+public class PriorityHistograms {
+
+    static final byte[] MAGIC = {'P', 'S', 'L', 'H'};
+    static final int VERSION = 1;
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    private final int mPrecision;
+    // priority to its waiting and response histograms
+    private final TreeMap<Integer, LatencyHistogram[]> mTiers = new TreeMap<>();
+    // the tier recorded last, to skip the lookup for runs of one priority
+    private int mLastPriority;
+    private LatencyHistogram[] mLast;
+
+    public PriorityHistograms() {
+        this(LatencyHistogram.DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision of the histograms, see LatencyHistogram
+     */
+    public PriorityHistograms(int precision) {
+        LatencyHistogram.checkPrecision(precision);
+        mPrecision = precision;
+    }
+
+    private LatencyHistogram[] tier(int priority) {
+        if (mLast == null || mLastPriority != priority) {
+            mLast = mTiers.get(priority);
+            if (mLast == null) {
+                mLast = new LatencyHistogram[]{
+                    new LatencyHistogram(mPrecision), new LatencyHistogram(mPrecision)};
+                mTiers.put(priority, mLast);
+            }
+            mLastPriority = priority;
+        }
+        return mLast;
+    }
+
+    /**
+     * Counts a process that has just finished
+     *
+     * @param table
+     * @param row
+     */
+    void finished(ProcessTable table, int row) {
+        int arrival = table.getArriveTime(row);
+        int turnaround = table.getFinishTime(row) + 1 - arrival;
+        LatencyHistogram[] t = tier(table.getPriority(row));
+        t[0].record(turnaround - table.getBurstTime(row));
+        t[1].record(table.getStartTime(row) - arrival);
+    }
+
+    /**
+     * Adds the counts of histograms of the same precision, of another run
+     *
+     * @param other
+     */
+    public void add(PriorityHistograms other) {
+        for (Map.Entry<Integer, LatencyHistogram[]> e : other.mTiers.entrySet()) {
+            LatencyHistogram[] t = tier(e.getKey());
+            t[0].add(e.getValue()[0]);
+            t[1].add(e.getValue()[1]);
+        }
+    }
+
+    public void clear() {
+        mTiers.clear();
+        mLast = null;
+    }
+
+    public int getPrecision() {
+        return mPrecision;
+    }
+
+    /**
+     * Gets the priorities of the processes counted, in ascending order
+     *
+     * @return
+     */
+    public Set<Integer> getPriorities() {
+        return mTiers.keySet();
+    }
+
+    /**
+     * Gets the waiting time histogram of a priority
+     *
+     * @param priority
+     * @return null if no process of the priority has finished
+     */
+    public LatencyHistogram getWaiting(int priority) {
+        LatencyHistogram[] t = mTiers.get(priority);
+        return t == null ? null : t[0];
+    }
+
+    /**
+     * Gets the response time histogram of a priority
+     *
+     * @param priority
+     * @return null if no process of the priority has finished
+     */
+    public LatencyHistogram getResponse(int priority) {
+        LatencyHistogram[] t = mTiers.get(priority);
+        return t == null ? null : t[1];
+    }
+
+    /**
+     * Saves the histograms in binary
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(mPrecision);
+            out.writeInt(mTiers.size());
+            for (Map.Entry<Integer, LatencyHistogram[]> e : mTiers.entrySet()) {
+                out.writeInt(e.getKey());
+                e.getValue()[0].writeTo(out);
+                e.getValue()[1].writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Loads histograms saved by save
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static PriorityHistograms load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException(file + " is not a histogram file");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+            int precision = in.readUnsignedByte();
+            if (precision < 1 || precision > 12) {
+                throw new IOException(file + " has bad precision " + precision);
+            }
+            PriorityHistograms h = new PriorityHistograms(precision);
+            for (int n = in.readInt(); n > 0; --n) {
+                int priority = in.readInt();
+                LatencyHistogram waiting = LatencyHistogram.readFrom(in);
+                LatencyHistogram response = LatencyHistogram.readFrom(in);
+                if (waiting.getPrecision() != h.mPrecision
+                        || response.getPrecision() != h.mPrecision) {
+                    throw new IOException(file + " mixes histogram precisions");
+                }
+                h.mTiers.put(priority, new LatencyHistogram[]{waiting, response});
+            }
+            return h;
+        }
+    }
+
+    /**
+     * Writes the non-empty buckets as lines of priority, metric, lowest
+     * value, highest value and count
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("priority,metric,low,high,count\n");
+        for (Map.Entry<Integer, LatencyHistogram[]> e : mTiers.entrySet()) {
+            writeCsv(out, e.getKey(), "waiting", e.getValue()[0]);
+            writeCsv(out, e.getKey(), "response", e.getValue()[1]);
+        }
+    }
+
+    private static void writeCsv(Appendable out, int priority, String metric,
+            LatencyHistogram h) throws IOException {
+        for (int i = 0; i < h.getBucketCount(); ++i) {
+            long count = h.getBucketCount(i);
+            if (count != 0) {
+                out.append(String.format("%d,%s,%d,%d,%d\n", priority, metric,
+                        h.getBucketLow(i), h.getBucketHigh(i), count));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-9s %-9s %10s %12s", "Priority", "Metric", "count", "mean"));
+        for (String name : PERCENTILE_NAMES) {
+            sb.append(String.format(" %10s", name));
+        }
+        sb.append(String.format(" %10s%n", "max"));
+        for (Map.Entry<Integer, LatencyHistogram[]> e : mTiers.entrySet()) {
+            row(sb, e.getKey(), "waiting", e.getValue()[0]);
+            row(sb, e.getKey(), "response", e.getValue()[1]);
+        }
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, int priority, String metric, LatencyHistogram h) {
+        sb.append(String.format("%-9d %-9s %10d %12.2f", priority, metric,
+                h.getCount(), h.getMean()));
+        for (double p : PERCENTILES) {
+            sb.append(String.format(" %10d", h.getValueAtPercentile(p)));
+        }
+        sb.append(String.format(" %10d%n", h.getMax()));
+    }
+}
@@ -10,31 +10,86 @@
  */
 package org.alulab.pscheduling.algo;
 
-import org.alulab.pscheduling.model.Process;
-
 /**
  *
  * @author Dipu
  */
 public abstract class PriorityScheduling extends Scheduler {
 
+    // arrived processes keyed on priority, higher first
+    IndexedHeap mReady;
+
     @Override
     public String getName() {
         return "Priority Scheduling";
     }
 
-    Process getNextProcess(int curTime) {
-        Process sel = mRunning;
-        int maxPrior = 0;
-        for (Process p : mProcesses) {
-            if (p.getArriveTime() > curTime || p.isFinished()) {
-                continue;
-            }
-            if (p.getPriority() > maxPrior) {
-                sel = p;
-                maxPrior = p.getPriority();
+    @Override
+    void initialize() {
+        mReady = new IndexedHeap(this::compare);
+    }
+
+    @Override
+    void arrive(int index) {
+        mReady.offer(index);
+    }
+
+    @Override
+    int queued() {
+        boolean running = mRunning >= 0 && mReady.contains(mRunning);
+        return mReady.size() - (running ? 1 : 0);
+    }
+
+    @Override
+    int steal() {
+        // the running process of a preemptive variant stays in the queue
+        boolean running = mRunning >= 0 && mReady.remove(mRunning);
+        int index = mReady.poll();
+        if (running) {
+            mReady.offer(mRunning);
+        }
+        return index;
+    }
+
+    /**
+     * Orders by priority, higher first, ties by arrival, then process id
+     */
+    int compare(int a, int b) {
+        int d = Integer.compare(mTable.getPriority(b), mTable.getPriority(a));
+        if (d == 0) {
+            d = Integer.compare(mTable.getArriveTime(a), mTable.getArriveTime(b));
+        }
+        if (d == 0) {
+            d = Integer.compare(mTable.getPID(a), mTable.getPID(b));
+        }
+        return d != 0 ? d : Integer.compare(a, b);
+    }
+
+    /**
+     * Picks the best arrived process. The running process stays in the queue
+     * and is re-keyed after it has done some work.
+     *
+     * @param curTime
+     * @return
+     */
+    int getNextProcess(int curTime) {
+        if (mRunning >= 0) {
+            if (mTable.isFinished(mRunning)) {
+                mReady.remove(mRunning);
+            } else {
+                mReady.decreaseKey(mRunning);
             }
         }
-        return sel;
+        return mReady.peek();
+    }
+
+    /**
+     * Removes the best arrived process from the queue
+     *
+     * @param curTime
+     * @return
+     */
+    int pollNextProcess(int curTime) {
+        return mReady.poll();
     }
 }
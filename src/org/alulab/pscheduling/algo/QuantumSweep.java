@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import org.alulab.pscheduling.model.Workload;
+
+/**
+ * Runs round robin over one workload for a range of time quanta in parallel,
+ * giving the waiting, turnaround and context switch curve and the quantum
+ * that works best for the workload.
+ *
+ * @author Dipu
+ */
+public class QuantumSweep {
+
+    /**
+     * Statistics of one quantum
+     */
+    public static class Point {
+
+        private final int mQuantum;
+        private final RunStatistics mStats;
+
+        Point(int quantum, RunStatistics stats) {
+            mQuantum = quantum;
+            mStats = stats;
+        }
+
+        public int getQuantum() {
+            return mQuantum;
+        }
+
+        public RunStatistics getStatistics() {
+            return mStats;
+        }
+
+        /**
+         * Gets the average turnaround time when every context switch costs
+         * the given number of time units, spread over all processes
+         *
+         * @param switchCost
+         * @return
+         */
+        public double cost(double switchCost) {
+            long n = Math.max(1, mStats.getCount());
+            return mStats.getAverageTurnaround()
+                    + switchCost * mStats.getContextSwitches() / n;
+        }
+    }
+
+    /**
+     * Sweeps count quanta from, from + step, ..., splitting them in halves
+     * until a piece is small enough to run directly. Counting the quanta
+     * instead of comparing them with the last one keeps the loop from
+     * overflowing near Integer.MAX_VALUE.
+     */
+    static class Sweep extends RecursiveTask<List<Point>> {
+
+        private static final int THRESHOLD = 4;
+
+        private final Workload mWorkload;
+        private final IntFunction<Scheduler> mFactory;
+        private final int mFrom;
+        private final int mCount;
+        private final int mStep;
+
+        Sweep(Workload workload, IntFunction<Scheduler> factory, int from,
+                int count, int step) {
+            mWorkload = workload;
+            mFactory = factory;
+            mFrom = from;
+            mCount = count;
+            mStep = step;
+        }
+
+        @Override
+        protected List<Point> compute() {
+            if (mCount <= THRESHOLD) {
+                List<Point> result = new ArrayList<>();
+                for (int i = 0; i < mCount; ++i) {
+                    int q = mFrom + i * mStep;
+                    result.add(new Point(q, run(q)));
+                }
+                return result;
+            }
+            int half = mCount / 2;
+            Sweep left = new Sweep(mWorkload, mFactory, mFrom, half, mStep);
+            Sweep right = new Sweep(mWorkload, mFactory, mFrom + half * mStep,
+                    mCount - half, mStep);
+            right.fork();
+            List<Point> result = left.compute();
+            result.addAll(right.join());
+            return result;
+        }
+
+        private RunStatistics run(int quantum) {
+            Scheduler s = mFactory.apply(quantum);
+            s.addProcesses(mWorkload);
+            while (!s.isFinished()) {
+                s.stepForward(Integer.MAX_VALUE);
+            }
+            return RunStatistics.of(s);
+        }
+    }
+
+    private final List<Point> mPoints;
+
+    private QuantumSweep(List<Point> points) {
+        mPoints = points;
+    }
+
+    /**
+     * Runs round robin with every quantum from, from + step, ... up to to
+     *
+     * @param w
+     * @param from
+     * @param to
+     * @param step
+     * @param pool
+     * @return
+     */
+    public static QuantumSweep run(Workload w, int from, int to, int step,
+            ForkJoinPool pool) {
+        return run(w, quantum -> {
+            RoundRobin rr = new RoundRobin(quantum);
+            rr.setEventDriven(true);
+            return rr;
+        }, from, to, step, pool);
+    }
+
+    /**
+     * Runs the schedulers a factory creates for every quantum from,
+     * from + step, ... up to to, such as round robin on several CPUs
+     *
+     * @param w
+     * @param factory creates an empty scheduler using the given quantum
+     * @param from
+     * @param to
+     * @param step
+     * @param pool
+     * @return
+     */
+    public static QuantumSweep run(Workload w, IntFunction<Scheduler> factory,
+            int from, int to, int step, ForkJoinPool pool) {
+        if (from <= 0 || to < from || step <= 0) {
+            throw new IllegalArgumentException("Invalid quantum range "
+                    + from + ".." + to + " step " + step);
+        }
+        int count = (to - from) / step + 1;
+        return new QuantumSweep(pool.invoke(new Sweep(w, factory, from, count, step)));
+    }
+
+    public static QuantumSweep run(Workload w, int from, int to) {
+        return run(w, from, to, 1, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Gets the points in increasing order of quantum
+     *
+     * @return
+     */
+    public List<Point> getPoints() {
+        return mPoints;
+    }
+
+    /**
+     * Gets the point with the lowest cost, the smaller quantum on a tie
+     *
+     * @param switchCost time units charged for each context switch
+     * @return
+     */
+    public Point getOptimal(double switchCost) {
+        Point best = null;
+        for (Point p : mPoints) {
+            if (best == null || p.cost(switchCost) < best.cost(switchCost)) {
+                best = p;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Formats the curve as a table with one row per quantum
+     *
+     * @param switchCost
+     * @return
+     */
+    public String format(double switchCost) {
+        String row = "%8s %12s %12s %12s %12s %12s%n";
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(row, "Quantum", "Waiting", "Turnaround",
+                "Response", "Switches", "Cost"));
+        for (Point p : mPoints) {
+            RunStatistics s = p.getStatistics();
+            sb.append(String.format(row, p.getQuantum(),
+                    String.format("%.2f", s.getAverageWaiting()),
+                    String.format("%.2f", s.getAverageTurnaround()),
+                    String.format("%.2f", s.getAverageResponse()),
+                    s.getContextSwitches(),
+                    String.format("%.2f", p.cost(switchCost))));
+        }
+        Point best = getOptimal(switchCost);
+        if (best != null) {
+            sb.append(String.format("Optimal quantum: %d%n", best.getQuantum()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import org.alulab.pscheduling.model.Workload;
+
+/**
+ * Rate monotonic: the job of the task with the shortest period runs,
+ * preempting any other. Processes without a period run only when no
+ * periodic one is waiting. On one CPU n periodic tasks meet their deadlines
+ * if their utilization is at most n(2^(1/n) - 1), the bound of Liu and
+ * Layland.
+ *
+ * @author Dipu
+ */
+public class RateMonotonic extends RealTimeScheduler {
+
+    @Override
+    public String getName() {
+        return "Rate Monotonic";
+    }
+
+    /**
+     * Orders by period, shortest first, ties by priority, higher first, then
+     * arrival and process id
+     */
+    @Override
+    int compare(int a, int b) {
+        int d = Integer.compare(rate(a), rate(b));
+        if (d == 0) {
+            d = Integer.compare(mTable.getPriority(b), mTable.getPriority(a));
+        }
+        if (d == 0) {
+            d = Integer.compare(mTable.getArriveTime(a), mTable.getArriveTime(b));
+        }
+        if (d == 0) {
+            d = Integer.compare(mTable.getPID(a), mTable.getPID(b));
+        }
+        return d != 0 ? d : Integer.compare(a, b);
+    }
+
+    private int rate(int row) {
+        int period = mTable.getPeriod(row);
+        return period == 0 ? Integer.MAX_VALUE : period;
+    }
+
+    @Override
+    public AdmissionTest admissionTest(Workload tasks) {
+        int n = AdmissionTest.countTasks(tasks);
+        double bound = n == 0 ? 1 : n * (Math.pow(2, 1.0 / n) - 1);
+        return new AdmissionTest(getName(), tasks, bound);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+/**
+ * A queue of processes that have arrived and are waiting for the CPU.
+ * Processes are addressed by their index in the scheduler's process list.
+ *
+ * @author Dipu
+ */
+interface ReadyQueue {
+
+    /**
+     * Adds a process to the queue
+     *
+     * @param index
+     */
+    void offer(int index);
+
+    /**
+     * Removes the process that should run next
+     *
+     * @return -1 if the queue is empty
+     */
+    int poll();
+
+    /**
+     * Gets the process that should run next without removing it
+     *
+     * @return -1 if the queue is empty
+     */
+    int peek();
+
+    /**
+     * Removes the given process if present
+     *
+     * @param index
+     * @return true if the process was in the queue
+     */
+    boolean remove(int index);
+
+    int size();
+
+    boolean isEmpty();
+
+    void clear();
+}
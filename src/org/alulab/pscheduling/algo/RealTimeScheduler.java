@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import org.alulab.pscheduling.model.Workload;
+
+/**
+ * Base of the preemptive real-time schedulers, which order processes by
+ * their timing rather than their priority and can tell beforehand whether
+ * a set of periodic tasks will meet its deadlines on one CPU.
+ *
+ * @author Dipu
+ */
+public abstract class RealTimeScheduler extends PriorityScheduling {
+
+    @Override
+    int nextRunning(int curTime) {
+        return getNextProcess(curTime);
+    }
+
+    /**
+     * Tests the periodic tasks of a workload against the utilization bound
+     * of this algorithm, before its jobs are run
+     *
+     * @param tasks entries with a period are tasks, the others are ignored
+     * @return
+     */
+    public abstract AdmissionTest admissionTest(Workload tasks);
+}
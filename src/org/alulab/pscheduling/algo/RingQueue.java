@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+/**
+ * Array-backed circular FIFO queue of process indices. Offer and poll are
+ * O(1); the capacity doubles when full.
+ *
+ * @author Dipu
+ */
+final class RingQueue implements ReadyQueue {
+
+    private int[] mItems;
+    private int mHead;
+    private int mSize;
+
+    RingQueue() {
+        mItems = new int[16];
+        mHead = 0;
+        mSize = 0;
+    }
+
+    @Override
+    public void offer(int index) {
+        if (mSize == mItems.length) {
+            grow();
+        }
+        mItems[(mHead + mSize) & (mItems.length - 1)] = index;
+        mSize++;
+    }
+
+    /**
+     * Puts a process at the head of the queue
+     *
+     * @param index
+     */
+    public void offerFirst(int index) {
+        if (mSize == mItems.length) {
+            grow();
+        }
+        mHead = (mHead - 1) & (mItems.length - 1);
+        mItems[mHead] = index;
+        mSize++;
+    }
+
+    @Override
+    public int poll() {
+        if (mSize == 0) {
+            return -1;
+        }
+        int index = mItems[mHead];
+        mHead = (mHead + 1) & (mItems.length - 1);
+        mSize--;
+        return index;
+    }
+
+    @Override
+    public int peek() {
+        return mSize == 0 ? -1 : mItems[mHead];
+    }
+
+    /**
+     * Removes the given process, O(n) in the size of the queue
+     *
+     * @param index
+     * @return
+     */
+    @Override
+    public boolean remove(int index) {
+        int mask = mItems.length - 1;
+        for (int i = 0; i < mSize; ++i) {
+            if (mItems[(mHead + i) & mask] == index) {
+                for (int j = i + 1; j < mSize; ++j) {
+                    mItems[(mHead + j - 1) & mask] = mItems[(mHead + j) & mask];
+                }
+                mSize--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    @Override
+    public void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+
+    private void grow() {
+        int[] items = new int[mItems.length * 2];
+        for (int i = 0; i < mSize; ++i) {
+            items[i] = mItems[(mHead + i) & (mItems.length - 1)];
+        }
+        mItems = items;
+        mHead = 0;
+    }
+}
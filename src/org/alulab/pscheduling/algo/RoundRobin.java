@@ -10,22 +10,49 @@
  */
 package org.alulab.pscheduling.algo;
 
-import java.util.Iterator;
-import org.alulab.pscheduling.model.Process;
-
 /**
  *
  * @author Dipu
  */
 public class RoundRobin extends Scheduler {
 
-    public static int QUANTUM = 5;
+    public static final int DEFAULT_QUANTUM = 5;
+
+    private int mQuantum;
+
+    // arrived processes waiting for their turn
+    RingQueue mReady;
+    // end of the running process's time slice
+    int mSliceEnd;
+
+    public RoundRobin() {
+        this(DEFAULT_QUANTUM);
+    }
+
+    public RoundRobin(int quantum) {
+        setQuantum(quantum);
+    }
+
+    public int getQuantum() {
+        return mQuantum;
+    }
 
-    private int mCurPos = 0;
+    /**
+     * Sets the time quantum, taking effect from the next slice
+     *
+     * @param quantum
+     */
+    public final void setQuantum(int quantum) {
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+        }
+        mQuantum = quantum;
+    }
 
     @Override
     void initialize() {
-        mCurPos = 0;
+        mReady = new RingQueue();
+        mSliceEnd = 0;
     }
 
     @Override
@@ -34,18 +61,63 @@ public class RoundRobin extends Scheduler {
     }
 
     @Override
-    Process nextRunning(int time) {
-        if (time % QUANTUM == 0 || mRunning == null || mRunning.isFinished()) {
-            // get next process to run            
-            Process now = mRunning;
-            while (true) {
-                Process run = mProcesses.get(mCurPos);
-                mCurPos = (mCurPos + 1) % mProcesses.size();
-                if (!run.isFinished() || run == now) {
-                    return run;
-                }
+    void arrive(int index) {
+        mReady.offer(index);
+    }
+
+    @Override
+    int queued() {
+        return mReady.size();
+    }
+
+    @Override
+    int steal() {
+        return mReady.poll();
+    }
+
+    @Override
+    void putBack(int index) {
+        mReady.offerFirst(index);
+    }
+
+    @Override
+    int nextRunning(int time) {
+        if (mRunning >= 0 && !mTable.isFinished(mRunning)) {
+            if (time > mSliceEnd) {
+                // slices were renewed while this process ran alone
+                long last = mSliceEnd + ((long) time - mSliceEnd) / mQuantum * mQuantum;
+                mSliceEnd = last < time ? sliceEnd((int) last) : (int) last;
+            }
+            if (time < mSliceEnd) {
+                return mRunning;
             }
+            if (mReady.isEmpty()) {
+                // nobody else to run, start a new slice
+                mSliceEnd = sliceEnd(time);
+                return mRunning;
+            }
+            mReady.offer(mRunning);
+        }
+        // get next process to run
+        mSliceEnd = sliceEnd(time);
+        return mReady.poll();
+    }
+
+    @Override
+    int nextDecision(int curTime) {
+        int arrival = nextArrival();
+        if (!mReady.isEmpty() || arrival <= mSliceEnd) {
+            return mSliceEnd;
+        }
+        if (arrival == Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
         }
-        return mRunning;
+        // running alone; the first slice ending after the next arrival
+        long slices = ((long) arrival - mSliceEnd + mQuantum - 1) / mQuantum;
+        return (int) Math.min(Integer.MAX_VALUE, mSliceEnd + slices * mQuantum);
+    }
+
+    private int sliceEnd(int time) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) time + mQuantum);
     }
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import org.alulab.pscheduling.model.ProcessTable;
+
+/**
+ * Collects the distributions of a run as it goes, without keeping the
+ * processes: the waiting, response and turnaround times and the slowdown
+ * (turnaround over burst) of every finished process, and the throughput and
+ * CPU utilization of every window of a fixed number of time units.
+ * <p>
+ * A scheduler feeds the metrics set on it while it steps. Windows are
+ * closed as time passes them; the window still open is not counted. With a
+ * balance interval, a multi-core scheduler advances its CPUs one after
+ * another through each interval, so the work of a CPU running behind is
+ * counted in the current window.
+ *
+ * @author Dipu
+ */
+public class RunMetrics {
+
+    public static final int DEFAULT_WINDOW = 1000;
+
+    private final int mWindow;
+    private int mCpus = 1;
+    private final Distribution mWaiting = new Distribution();
+    private final Distribution mResponse = new Distribution();
+    private final Distribution mTurnaround = new Distribution();
+    private final Distribution mSlowdown = new Distribution();
+    private final Distribution mThroughput = new Distribution();
+    private final Distribution mUtilization = new Distribution();
+    // the open window
+    private long mWindowStart;
+    private int mWindowDone;
+    private long mWindowBusy;
+
+    public RunMetrics() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param window length of the throughput and utilization windows
+     */
+    public RunMetrics(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        mWindow = window;
+    }
+
+    /**
+     * Sets the number of CPUs the utilization is divided among
+     */
+    void setCpuCount(int cpus) {
+        mCpus = cpus;
+    }
+
+    /**
+     * Counts the units a CPU ran a process from a time
+     *
+     * @param time
+     * @param units
+     */
+    void ran(int time, int units) {
+        advance(time);
+        long t = Math.max(time, mWindowStart);
+        long end = t + units;
+        long windowEnd = mWindowStart + mWindow;
+        if (end <= windowEnd) {
+            mWindowBusy += end - t;
+            return;
+        }
+        mWindowBusy += windowEnd - t;
+        closeWindow();
+        // the windows the run covers whole finish nothing and are busy, the
+        // last one stays open for a process finishing in it
+        long full = (end - mWindowStart - 1) / mWindow;
+        mThroughput.add(0, full);
+        mUtilization.add(1.0 / mCpus, full);
+        mWindowStart += full * mWindow;
+        mWindowBusy = end - mWindowStart;
+    }
+
+    /**
+     * Counts a process that has just finished
+     *
+     * @param table
+     * @param row
+     */
+    void finished(ProcessTable table, int row) {
+        int arrival = table.getArriveTime(row);
+        int burst = table.getBurstTime(row);
+        int finish = table.getFinishTime(row);
+        int turnaround = finish + 1 - arrival;
+        mTurnaround.add(turnaround);
+        mWaiting.add(turnaround - burst);
+        mResponse.add(table.getStartTime(row) - arrival);
+        mSlowdown.add((double) turnaround / burst);
+        advance(finish);
+        mWindowDone++;
+    }
+
+    /**
+     * Closes the windows that end at or before a time, the ones after the
+     * open window all at once since nothing happened in them
+     */
+    private void advance(int time) {
+        if (time < mWindowStart + mWindow) {
+            return;
+        }
+        closeWindow();
+        long empty = (time - mWindowStart) / mWindow;
+        mThroughput.add(0, empty);
+        mUtilization.add(0, empty);
+        mWindowStart += empty * mWindow;
+    }
+
+    private void closeWindow() {
+        mThroughput.add((double) mWindowDone / mWindow);
+        mUtilization.add((double) mWindowBusy / mWindow / mCpus);
+        mWindowStart += mWindow;
+        mWindowDone = 0;
+        mWindowBusy = 0;
+    }
+
+    /**
+     * Forgets everything, for a run starting over
+     */
+    public void clear() {
+        mWaiting.clear();
+        mResponse.clear();
+        mTurnaround.clear();
+        mSlowdown.clear();
+        mThroughput.clear();
+        mUtilization.clear();
+        mWindowStart = 0;
+        mWindowDone = 0;
+        mWindowBusy = 0;
+    }
+
+    public int getWindow() {
+        return mWindow;
+    }
+
+    /**
+     * Gets the number of finished processes
+     *
+     * @return
+     */
+    public long getCount() {
+        return mTurnaround.getCount();
+    }
+
+    public Distribution getWaiting() {
+        return mWaiting;
+    }
+
+    public Distribution getResponse() {
+        return mResponse;
+    }
+
+    public Distribution getTurnaround() {
+        return mTurnaround;
+    }
+
+    public Distribution getSlowdown() {
+        return mSlowdown;
+    }
+
+    /**
+     * Gets the finished processes per time unit of each window
+     *
+     * @return
+     */
+    public Distribution getThroughput() {
+        return mThroughput;
+    }
+
+    /**
+     * Gets the fraction of time the CPUs were busy in each window
+     *
+     * @return
+     */
+    public Distribution getUtilization() {
+        return mUtilization;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-19s %12s %12s %12s %12s %12s%n",
+                "", "mean", "p50", "p95", "p99", "max"));
+        row(sb, "Waiting", mWaiting, "%12.2f");
+        row(sb, "Response", mResponse, "%12.2f");
+        row(sb, "Turnaround", mTurnaround, "%12.2f");
+        row(sb, "Slowdown", mSlowdown, "%12.3f");
+        row(sb, "Throughput/" + mWindow, mThroughput, "%12.6f");
+        row(sb, "Utilization/" + mWindow, mUtilization, "%12.4f");
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, String name, Distribution d, String format) {
+        sb.append(String.format("%-19s", name));
+        for (double v : new double[]{d.getMean(), d.getP50(), d.getP95(), d.getP99(), d.getMax()}) {
+            sb.append(' ').append(String.format(format, v));
+        }
+        sb.append(String.format("%n"));
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import org.alulab.pscheduling.model.ProcessTable;
+
+/**
+ * Summary of a finished simulation. A process finishing at time unit f has
+ * completed at f + 1, so its turnaround time is f + 1 - arrival and its
+ * waiting time is the turnaround time minus the burst time.
+ *
+ * @author Dipu
+ */
+public class RunStatistics {
+
+    private final String mName;
+    private final long mCount;
+    private final int mMakespan;
+    private final int mBusyTime;
+    private final int[] mCpuBusyTime;
+    private final int mContextSwitches;
+    private final double mAvgWaiting;
+    private final double mAvgTurnaround;
+    private final double mAvgResponse;
+    private final long mDeadlines;
+    private final long mDeadlineMisses;
+    private final int mMaxLateness;
+    private final RunMetrics mMetrics;
+    private final PriorityHistograms mHistograms;
+
+    private RunStatistics(String name, long count, int makespan, int busyTime,
+            int[] cpuBusyTime, int contextSwitches, double avgWaiting,
+            double avgTurnaround, double avgResponse, long deadlines,
+            long deadlineMisses, int maxLateness, RunMetrics metrics,
+            PriorityHistograms histograms) {
+        mName = name;
+        mCount = count;
+        mMakespan = makespan;
+        mBusyTime = busyTime;
+        mCpuBusyTime = cpuBusyTime;
+        mContextSwitches = contextSwitches;
+        mAvgWaiting = avgWaiting;
+        mAvgTurnaround = avgTurnaround;
+        mAvgResponse = avgResponse;
+        mDeadlines = deadlines;
+        mDeadlineMisses = deadlineMisses;
+        mMaxLateness = maxLateness;
+        mMetrics = metrics;
+        mHistograms = histograms;
+    }
+
+    /**
+     * Collects the statistics of the finished processes of a scheduler
+     *
+     * @param s
+     * @return
+     */
+    public static RunStatistics of(Scheduler s) {
+        ProcessTable table = s.getProcessTable();
+        long wait = s.mRetiredWaiting, turn = s.mRetiredTurnaround;
+        long resp = s.mRetiredResponse;
+        long count = s.mRetired;
+        for (int row = 0; row < table.size(); ++row) {
+            if (!table.isFinished(row)) {
+                continue;
+            }
+            int arrival = table.getArriveTime(row);
+            int turnaround = table.getFinishTime(row) + 1 - arrival;
+            turn += turnaround;
+            wait += turnaround - table.getBurstTime(row);
+            resp += table.getStartTime(row) - arrival;
+            count++;
+        }
+        long n = Math.max(1, count);
+        int[] cpuBusy = new int[s.getCpuCount()];
+        for (int c = 0; c < cpuBusy.length; ++c) {
+            cpuBusy[c] = s.getBusyTime(c);
+        }
+        return new RunStatistics(s.getName(), count, s.getCurrentTime(),
+                s.getBusyTime(), cpuBusy, s.getContextSwitches(), (double) wait / n,
+                (double) turn / n, (double) resp / n, s.getDeadlineCount(),
+                s.getDeadlineMisses(), s.getMaxLateness(), s.getMetrics(),
+                s.getHistograms());
+    }
+
+    /**
+     * Gets the metrics the scheduler collected, null if none
+     *
+     * @return
+     */
+    public RunMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Gets the histograms of each priority the scheduler counted, null if
+     * none
+     *
+     * @return
+     */
+    public PriorityHistograms getHistograms() {
+        return mHistograms;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Gets the number of finished processes
+     *
+     * @return
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    public int getMakespan() {
+        return mMakespan;
+    }
+
+    public int getContextSwitches() {
+        return mContextSwitches;
+    }
+
+    /**
+     * Gets the number of finished processes that had a deadline
+     *
+     * @return
+     */
+    public long getDeadlineCount() {
+        return mDeadlines;
+    }
+
+    public long getDeadlineMisses() {
+        return mDeadlineMisses;
+    }
+
+    public int getMaxLateness() {
+        return mMaxLateness;
+    }
+
+    public double getAverageWaiting() {
+        return mAvgWaiting;
+    }
+
+    public double getAverageTurnaround() {
+        return mAvgTurnaround;
+    }
+
+    public double getAverageResponse() {
+        return mAvgResponse;
+    }
+
+    /**
+     * Gets the finished processes per time unit
+     *
+     * @return
+     */
+    public double getThroughput() {
+        return mMakespan == 0 ? 0 : (double) mCount / mMakespan;
+    }
+
+    public int getCpuCount() {
+        return mCpuBusyTime.length;
+    }
+
+    /**
+     * Gets the fraction of time the CPUs were busy, on average
+     *
+     * @return
+     */
+    public double getUtilization() {
+        return mMakespan == 0 ? 0 : (double) mBusyTime / mMakespan / getCpuCount();
+    }
+
+    /**
+     * Gets the fraction of time a CPU was busy
+     *
+     * @param cpu
+     * @return
+     */
+    public double getUtilization(int cpu) {
+        return mMakespan == 0 ? 0 : (double) mCpuBusyTime[cpu] / mMakespan;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Algorithm          : %s%n", mName));
+        sb.append(String.format("Processes          : %d%n", mCount));
+        sb.append(String.format("Makespan           : %d unit%n", mMakespan));
+        sb.append(String.format("Average waiting    : %.2f unit%n", mAvgWaiting));
+        sb.append(String.format("Average turnaround : %.2f unit%n", mAvgTurnaround));
+        sb.append(String.format("Average response   : %.2f unit%n", mAvgResponse));
+        sb.append(String.format("Throughput         : %.6f per unit%n", getThroughput()));
+        sb.append(String.format("CPU utilization    : %.2f%%%n", 100 * getUtilization()));
+        if (getCpuCount() > 1) {
+            for (int c = 0; c < getCpuCount(); ++c) {
+                sb.append(String.format("  CPU %-13d : %.2f%%%n", c, 100 * getUtilization(c)));
+            }
+        }
+        sb.append(String.format("Context switches   : %d%n", mContextSwitches));
+        if (mDeadlines > 0) {
+            sb.append(String.format("Deadline misses    : %d of %d (%.2f%%)%n", mDeadlineMisses,
+                    mDeadlines, 100.0 * mDeadlineMisses / mDeadlines));
+            sb.append(String.format("Max lateness       : %d unit%n", mMaxLateness));
+        }
+        if (mMetrics != null) {
+            sb.append(String.format("%n")).append(mMetrics);
+        }
+        if (mHistograms != null) {
+            sb.append(String.format("%n")).append(mHistograms);
+        }
+        return sb.toString();
+    }
+}
@@ -11,9 +11,18 @@
 package org.alulab.pscheduling.algo;
 
 import org.alulab.pscheduling.model.Process;
+import org.alulab.pscheduling.model.ProcessState;
+import org.alulab.pscheduling.model.ProcessTable;
+import org.alulab.pscheduling.model.Timeline;
+import org.alulab.pscheduling.model.Workload;
+import org.alulab.pscheduling.trace.ScheduleEvent;
+import org.alulab.pscheduling.trace.ScheduleListener;
+import org.alulab.pscheduling.trace.WorkloadStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 
 /**
  *
@@ -21,15 +30,66 @@ import java.util.Collections;
  */
 public abstract class Scheduler {
 
-    Process mRunning;
+    // row of the running process, -1 if idle
+    int mRunning;
+    // row of the last process that did any work
+    int mLastRun;
+    int mContextSwitches;
+    int mBusyTime;
+    // finished processes that had a deadline, those that missed it and the
+    // most any missed it by
+    long mDeadlines;
+    long mDeadlineMisses;
+    int mMaxLateness;
     int mCurrentTime;
-    int mTotalBurstTime;
+    // when every process would be done if run first come first served
+    final Horizon mHorizon;
+    boolean mEventDriven;
+    // process data, one row per process in order of insertion
+    ProcessTable mTable;
+    // views of the rows, created on demand
     final ArrayList<Process> mProcesses;
+    // process rows sorted by arrive time, with a cursor over the admitted
+    final ArrivalIndex mOrder;
+    int mAdmitTime;
+    // processes still to be read, null when all are in the table
+    private WorkloadStream mSource;
+    // the source holds a process that is not in the table yet
+    private boolean mSourcePending;
+    // rows of finished processes that a streamed process may reuse
+    private int[] mFreeRows;
+    private int mFreeCount;
+    // totals of the processes whose rows were reused
+    long mRetired;
+    long mRetiredWaiting;
+    long mRetiredTurnaround;
+    long mRetiredResponse;
+    // what this CPU ran, null unless recorded
+    Timeline mTimeline;
+    // collects the distributions of the run, null if not wanted
+    RunMetrics mMetrics;
+    // waiting and response times of each priority, null if not wanted
+    PriorityHistograms mHistograms;
+    // receives the dispatch history, null if nobody listens
+    ScheduleListener mListener;
+    // row last reported as dispatched, -1 if none, and when it last ran
+    private int mDispatched;
+    private int mRunEnd;
+
+    // mLastRun of a process whose row was reused
+    private static final int RETIRED = -2;
 
     public Scheduler() {
+        mTable = new ProcessTable();
         mProcesses = new ArrayList<>();
+        mRunning = -1;
+        mLastRun = -1;
+        mOrder = new ArrivalIndex();
         mCurrentTime = 0;
-        mTotalBurstTime = 0;
+        mHorizon = new Horizon();
+        mAdmitTime = -1;
+        mFreeRows = new int[16];
+        mDispatched = -1;
         initialize();
     }
 
@@ -37,54 +97,490 @@ public abstract class Scheduler {
 
     abstract void initialize();
 
-    abstract Process nextRunning(int curTime);
+    /**
+     * Selects the process to run at curTime
+     *
+     * @param curTime
+     * @return the row of the process, -1 to stay idle
+     */
+    abstract int nextRunning(int curTime);
+
+    /**
+     * Called once for each process when it becomes ready, in order of
+     * arrival.
+     *
+     * @param index row of the process
+     */
+    void arrive(int index) {
+    }
+
+    /**
+     * Gets the number of arrived processes waiting in the queue, not counting
+     * the running one
+     *
+     * @return
+     */
+    int queued() {
+        return 0;
+    }
+
+    /**
+     * Removes the waiting process that should run next, leaving the running
+     * process alone, so that another CPU can run it
+     *
+     * @return the row of the process, -1 if none is waiting
+     */
+    int steal() {
+        return -1;
+    }
+
+    /**
+     * Called instead of arrive for a process moved here from another
+     * scheduler of the same algorithm, serving another CPU or a shared run
+     * queue, which may hand over what it knew of the process
+     *
+     * @param from the scheduler the process was taken from by steal
+     * @param index row of the process
+     */
+    void migrate(Scheduler from, int index) {
+        arrive(index);
+    }
+
+    /**
+     * Returns a process taken by steal that was not run after all. It goes
+     * back where it was taken from.
+     *
+     * @param index row of the process
+     */
+    void putBack(int index) {
+        arrive(index);
+    }
+
+    /**
+     * Makes this scheduler select among the processes of another table, to
+     * serve as one CPU or as the shared run queue of a multi-core scheduler
+     *
+     * @param table
+     */
+    void attach(ProcessTable table) {
+        mTable = table;
+        mRunning = -1;
+        mLastRun = -1;
+        mDispatched = -1;
+        mContextSwitches = 0;
+        mBusyTime = 0;
+        mDeadlines = 0;
+        mDeadlineMisses = 0;
+        mMaxLateness = 0;
+        if (mTimeline != null) {
+            mTimeline.clear();
+        }
+        initialize();
+    }
+
+    /**
+     * Gets the earliest time after curTime at which the selection made by
+     * nextRunning may change while the running process is still unfinished.
+     * The event-driven mode runs the selected process uninterrupted up to this
+     * point. By default any arrival is a decision point.
+     *
+     * @param curTime
+     * @return
+     */
+    int nextDecision(int curTime) {
+        return nextArrival();
+    }
+
+    /**
+     * Gets the arrive time of the first process not yet admitted
+     *
+     * @return Integer.MAX_VALUE if every process has arrived
+     */
+    int nextArrival() {
+        int next = mOrder.nextArrival();
+        if (mSourcePending) {
+            next = Math.min(next, mSource.getArriveTime());
+        }
+        return next;
+    }
+
+    /**
+     * Advances the arrival cursor, admitting every process that arrived at or
+     * before the given time
+     *
+     * @param time
+     */
+    void admitArrivals(int time) {
+        if (mSourcePending) {
+            readSource(time);
+        }
+        while (mOrder.nextArrival() <= time) {
+            admit(mOrder.next());
+        }
+        mAdmitTime = time;
+    }
+
+    /**
+     * Admits the processes of the source that arrive at or before the given
+     * time, in the order they are read, reusing the rows of finished
+     * processes. They are not put in the arrival index.
+     */
+    private void readSource(int time) {
+        try {
+            while (mSourcePending && mSource.getArriveTime() <= time) {
+                mHorizon.append(mSource.getArriveTime(), mSource.getBurstTime());
+                if (mHorizon.getEnd() > Integer.MAX_VALUE) {
+                    throw new IOException("Process " + mSource.getPID()
+                            + " would run past time " + Integer.MAX_VALUE);
+                }
+                int row;
+                if (mFreeCount > 0) {
+                    row = mFreeRows[--mFreeCount];
+                    retire(row);
+                    mTable.reuse(row, mSource.getPID(), mSource.getArriveTime(),
+                            mSource.getBurstTime(), mSource.getPriority());
+                } else {
+                    row = mTable.add(mSource.getPID(), mSource.getArriveTime(),
+                            mSource.getBurstTime(), mSource.getPriority());
+                }
+                mTable.setTiming(row, mSource.getDeadline(), mSource.getPeriod());
+                admit(row);
+                mSourcePending = mSource.next();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Adds a finished process to the totals before its row is reused
+     */
+    private void retire(int row) {
+        int arrival = mTable.getArriveTime(row);
+        int turnaround = mTable.getFinishTime(row) + 1 - arrival;
+        mRetired++;
+        mRetiredTurnaround += turnaround;
+        mRetiredWaiting += turnaround - mTable.getBurstTime(row);
+        mRetiredResponse += mTable.getStartTime(row) - arrival;
+        if (mLastRun == row) {
+            mLastRun = RETIRED;
+        }
+    }
+
+    /**
+     * Marks the row of a finished process as free for a streamed process
+     */
+    private void release(int row) {
+        if (mFreeCount == mFreeRows.length) {
+            mFreeRows = Arrays.copyOf(mFreeRows, 2 * mFreeCount);
+        }
+        mFreeRows[mFreeCount++] = row;
+    }
+
+    /**
+     * Reads the processes from a workload stream as the simulation reaches
+     * their arrive times; see StreamingRun, through which only a scheduler
+     * on one CPU is given a source.
+     *
+     * @param source
+     * @throws IOException
+     * @throws IllegalStateException if the scheduler has processes
+     */
+    void setSource(WorkloadStream source) throws IOException {
+        if (mTable.size() > 0) {
+            throw new IllegalStateException("Scheduler already has processes");
+        }
+        mSource = source;
+        mSourcePending = source != null && source.next();
+    }
+
+    private void admit(int row) {
+        if (mTable.is(row, ProcessState.NEW)) {
+            mTable.setState(row, ProcessState.READY);
+        }
+        if (!mTable.isFinished(row)) {
+            arrive(row);
+        }
+    }
+
+    /**
+     * Gets the view of a row, creating views up to it as needed
+     *
+     * @param row
+     * @return null if row is negative
+     */
+    Process view(int row) {
+        if (row < 0) {
+            return null;
+        }
+        while (mProcesses.size() <= row) {
+            mProcesses.add(mTable.view(mProcesses.size()));
+        }
+        return mProcesses.get(row);
+    }
 
     /**
      * Add a process to the list of processes
      *
      * @param p
-     * @param arriveTime
      */
     public void addProcess(Process p) {
+        checkNoSource();
+        admitPassed();
+        extendHorizon(p.getArriveTime(), p.getBurstTime());
+        view(mTable.size() - 1);
+        int row = mTable.adopt(p);
         mProcesses.add(p);
-        calculateTotalBurst();
+        indexProcess(row);
     }
 
     /**
-     * Use FCFS to calculate
+     * Add a process without creating a Process object for it
+     *
+     * @param arrival
+     * @param burstTime
+     * @param priority
+     * @return the row of the new process
      */
-    public void calculateTotalBurst() {
-        // sort by arrive time
-        Collections.sort(mProcesses, (Process a, Process b) -> {
-            return a.getArriveTime() - b.getArriveTime();
-        });
-        // run fcfs
-        mTotalBurstTime = 0;
-        for (Process p : mProcesses) {
-            if (p.getArriveTime() > mTotalBurstTime) {
-                mTotalBurstTime += p.getArriveTime();
+    public int addProcess(int arrival, int burstTime, int priority) {
+        checkNoSource();
+        admitPassed();
+        extendHorizon(arrival, burstTime);
+        int row = mTable.add(Process.PROCESS_ID_NUMBER++,
+                arrival, burstTime, priority);
+        indexProcess(row);
+        return row;
+    }
+
+    private void indexProcess(int row) {
+        mOrder.insert(mTable.getArriveTime(row), row);
+        admitLate(row);
+    }
+
+    /**
+     * Add many processes at once. The arrival index is sorted once at the
+     * end, and is not sorted at all when the processes come in order of
+     * arrival.
+     *
+     * @param list
+     */
+    public void addProcesses(Collection<? extends Process> list) {
+        checkNoSource();
+        admitPassed();
+        for (Process p : list) {
+            checkBurst(p.getBurstTime());
+        }
+        for (Process p : list) {
+            mHorizon.add(startTime(p.getArriveTime()), p.getBurstTime());
+        }
+        if (mHorizon.getEnd() > Integer.MAX_VALUE) {
+            for (Process p : list) {
+                mHorizon.remove(startTime(p.getArriveTime()), p.getBurstTime());
+            }
+            throw tooLong();
+        }
+        int first = mTable.size();
+        view(first - 1);
+        mProcesses.ensureCapacity(first + list.size());
+        reserve(list.size());
+        for (Process p : list) {
+            int row = mTable.adopt(p);
+            mProcesses.add(p);
+            appendRow(row);
+        }
+        indexAppended(first);
+    }
+
+    /**
+     * Add a private copy of every process of a workload. Runs loading the
+     * same workload never share any process state.
+     *
+     * @param w
+     */
+    public void addProcesses(Workload w) {
+        checkNoSource();
+        admitPassed();
+        for (int i = 0; i < w.size(); ++i) {
+            checkBurst(w.getBurstTime(i));
+        }
+        for (int i = 0; i < w.size(); ++i) {
+            mHorizon.add(startTime(w.getArriveTime(i)), w.getBurstTime(i));
+        }
+        if (mHorizon.getEnd() > Integer.MAX_VALUE) {
+            for (int i = 0; i < w.size(); ++i) {
+                mHorizon.remove(startTime(w.getArriveTime(i)), w.getBurstTime(i));
             }
-            mTotalBurstTime += p.getBurstTime();
+            throw tooLong();
+        }
+        int first = mTable.size();
+        reserve(w.size());
+        for (int i = 0; i < w.size(); ++i) {
+            int row = mTable.add(w.getPID(i), w.getArriveTime(i),
+                    w.getBurstTime(i), w.getPriority(i));
+            mTable.setTiming(row, w.getDeadline(i), w.getPeriod(i));
+            appendRow(row);
         }
+        indexAppended(first);
+    }
+
+    private void checkNoSource() {
+        if (mSource != null) {
+            throw new IllegalStateException("Processes come from the source");
+        }
+    }
+
+    private void reserve(int count) {
+        mTable.ensureCapacity(mTable.size() + count);
+        mOrder.ensureCapacity(mOrder.size() + count);
+    }
+
+    private void appendRow(int row) {
+        mOrder.append(mTable.getArriveTime(row), row);
+    }
+
+    private void indexAppended(int first) {
+        if (!mOrder.isSorted()) {
+            mOrder.sort();
+        }
+        for (int row = first; row < mTable.size(); ++row) {
+            admitLate(row);
+        }
+    }
+
+    /**
+     * Admits the processes that an event-driven step went past without a
+     * decision. A process added late is then queued behind them, as it is
+     * when stepping one time unit at a time.
+     */
+    private void admitPassed() {
+        if (mAdmitTime < mCurrentTime - 1) {
+            admitArrivals(mCurrentTime - 1);
+        }
+    }
+
+    /**
+     * Admits a newly added process if the simulation has already passed its
+     * arrive time
+     */
+    private void admitLate(int row) {
+        if (mTable.getArriveTime(row) <= mAdmitTime) {
+            // it is among the first entries not admitted, all of which
+            // arrived before the ones already waiting
+            mOrder.next();
+            admit(row);
+        }
+    }
+
+    /**
+     * Adds a process about to be added to the horizon
+     *
+     * @throws IllegalArgumentException if it has no work to do, or the run
+     * would end past the last time the clock can hold
+     */
+    private void extendHorizon(int arrival, int burstTime) {
+        checkBurst(burstTime);
+        mHorizon.add(startTime(arrival), burstTime);
+        if (mHorizon.getEnd() > Integer.MAX_VALUE) {
+            mHorizon.remove(startTime(arrival), burstTime);
+            throw tooLong();
+        }
+    }
+
+    /**
+     * Gets the earliest time a new process can start. One added after the
+     * simulation has passed its arrive time can only start from now.
+     */
+    private int startTime(int arrival) {
+        return arrival <= mAdmitTime ? Math.max(arrival, mCurrentTime) : arrival;
+    }
+
+    private static void checkBurst(int burstTime) {
+        if (burstTime <= 0) {
+            throw new IllegalArgumentException("Burst time must be positive: " + burstTime);
+        }
+    }
+
+    private static IllegalArgumentException tooLong() {
+        return new IllegalArgumentException(
+                "The processes would run past time " + Integer.MAX_VALUE);
     }
 
     /**
      * Resets the scheduler
      */
     public void reset() {
+        mSource = null;
+        mSourcePending = false;
+        mFreeCount = 0;
+        mRetired = 0;
+        mRetiredWaiting = 0;
+        mRetiredTurnaround = 0;
+        mRetiredResponse = 0;
+        mTable.clear();
         mProcesses.clear();
+        mOrder.clear();
+        mHorizon.clear();
         mCurrentTime = 0;
-        mTotalBurstTime = 0;
-        mRunning = null;
+        mRunning = -1;
+        mLastRun = -1;
+        mDispatched = -1;
+        mContextSwitches = 0;
+        mBusyTime = 0;
+        mDeadlines = 0;
+        mDeadlineMisses = 0;
+        mMaxLateness = 0;
+        mAdmitTime = -1;
+        if (mTimeline != null) {
+            mTimeline.clear();
+        }
+        if (mMetrics != null) {
+            mMetrics.clear();
+        }
+        if (mHistograms != null) {
+            mHistograms.clear();
+        }
         initialize();
     }
 
     public void restart() {
-        for (Process p : mProcesses) {
-            p.reset();
+        if (mSource != null) {
+            // read the source again from the start
+            WorkloadStream source = mSource;
+            reset();
+            try {
+                source.rewind();
+                setSource(source);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return;
         }
+        mTable.resetAll();
         mCurrentTime = 0;
-        mRunning = null;
+        mRunning = -1;
+        mLastRun = -1;
+        mDispatched = -1;
+        mContextSwitches = 0;
+        mBusyTime = 0;
+        mDeadlines = 0;
+        mDeadlineMisses = 0;
+        mMaxLateness = 0;
+        mOrder.rewind();
+        mAdmitTime = -1;
+        // processes added late arrive on time in the new run
+        mHorizon.clear();
+        for (int row = 0; row < mTable.size(); ++row) {
+            mHorizon.add(mTable.getArriveTime(row), mTable.getBurstTime(row));
+        }
+        if (mTimeline != null) {
+            mTimeline.clear();
+        }
+        if (mMetrics != null) {
+            mMetrics.clear();
+        }
+        if (mHistograms != null) {
+            mHistograms.clear();
+        }
         initialize();
     }
 
@@ -94,19 +590,208 @@ public abstract class Scheduler {
      * @param amount
      */
     public void stepForward(int amount) {
-        for (int i = 0; i < amount && mCurrentTime < mTotalBurstTime; ++i) {
-            if (mRunning != null && mRunning.isRunning()) {
-                mRunning.setState(Process.WAITING);
-            }
+        long target = (long) mCurrentTime + amount;
+        int end;
+        while (mCurrentTime < (end = stepEnd(target))) {
+            admitArrivals(mCurrentTime);
+            int prev = mRunning;
             mRunning = nextRunning(mCurrentTime);
-            mRunning.setState(Process.RUNNING);
-            if (mRunning != null) {
-                mRunning.dowork(mCurrentTime);
-                ++mCurrentTime;
+            if (prev >= 0 && prev != mRunning
+                    && mTable.is(prev, ProcessState.RUNNING)) {
+                mTable.setState(prev, ProcessState.WAITING);
+            }
+            if (mSource != null && prev >= 0 && prev != mRunning
+                    && mTable.isFinished(prev)) {
+                release(prev);
             }
+            int units = 1;
+            if (mRunning >= 0 && !mTable.isFinished(mRunning)) {
+                if (mEventDriven) {
+                    // run until completion or the next decision point
+                    int rem = mTable.getRemaining(mRunning);
+                    int until = Math.min(end, nextDecision(mCurrentTime));
+                    units = Math.max(1, Math.min(rem, until - mCurrentTime));
+                }
+                if (mLastRun != -1 && mLastRun != mRunning) {
+                    mContextSwitches++;
+                }
+                mLastRun = mRunning;
+                mBusyTime += units;
+                mTable.dowork(mRunning, mCurrentTime, units);
+                if (mTimeline != null) {
+                    mTimeline.append(mTable.getPID(mRunning), mCurrentTime, units);
+                }
+                if (mListener != null) {
+                    report(mListener, 0, mRunning, mCurrentTime, units);
+                }
+                if (mMetrics != null) {
+                    mMetrics.ran(mCurrentTime, units);
+                    if (mTable.isFinished(mRunning)) {
+                        mMetrics.finished(mTable, mRunning);
+                    }
+                }
+                if (mHistograms != null && mTable.isFinished(mRunning)) {
+                    mHistograms.finished(mTable, mRunning);
+                }
+                if (mTable.isFinished(mRunning)) {
+                    checkDeadline(mTable, mRunning);
+                }
+            } else if (mEventDriven) {
+                // nothing to run until someone arrives
+                int until = Math.min(end, nextArrival());
+                units = Math.max(1, until - mCurrentTime);
+            }
+            mCurrentTime += units;
         }
     }
 
+    /**
+     * Counts a process that has just finished against its deadline
+     *
+     * @param table
+     * @param row
+     */
+    final void checkDeadline(ProcessTable table, int row) {
+        if (table.getDeadline(row) == 0) {
+            return;
+        }
+        mDeadlines++;
+        long late = (long) table.getFinishTime(row) + 1 - table.getAbsoluteDeadline(row);
+        if (late > 0) {
+            mDeadlineMisses++;
+            mMaxLateness = (int) Math.max(mMaxLateness, Math.min(Integer.MAX_VALUE, late));
+        }
+    }
+
+    /**
+     * Tells a listener that a CPU ran a process from time for the given
+     * number of units, no more than it had left: a dispatch if it is not the process reported last,
+     * after the preemption of that one, and a finish once it is done
+     *
+     * @param listener
+     * @param cpu
+     * @param row
+     * @param time
+     * @param units
+     */
+    final void report(ScheduleListener listener, int cpu, int row, int time, int units) {
+        if (row != mDispatched) {
+            if (mDispatched >= 0) {
+                listener.scheduled(ScheduleEvent.PREEMPT, mRunEnd, cpu,
+                        mTable.getPID(mDispatched));
+            }
+            listener.scheduled(ScheduleEvent.DISPATCH, time, cpu, mTable.getPID(row));
+            mDispatched = row;
+        }
+        mRunEnd = time + units;
+        if (mTable.isFinished(row)) {
+            listener.scheduled(ScheduleEvent.FINISH, mRunEnd, cpu, mTable.getPID(row));
+            mDispatched = -1;
+        }
+    }
+
+    /**
+     * Gets the time up to which stepForward may go. Until the source is used
+     * up there is no telling when the last process finishes.
+     */
+    private int stepEnd(long target) {
+        if (mSourcePending) {
+            return (int) Math.min(target, Integer.MAX_VALUE);
+        }
+        return (int) Math.min(target, getTotalBurst());
+    }
+
+    /**
+     * Sets who receives every dispatch, preemption and completion of the
+     * run, for example a ScheduleTraceWriter
+     *
+     * @param listener null to stop reporting
+     */
+    public void setListener(ScheduleListener listener) {
+        mListener = listener;
+    }
+
+    public ScheduleListener getListener() {
+        return mListener;
+    }
+
+    /**
+     * Sets the metrics to collect while stepping, from the current time on
+     *
+     * @param metrics null to collect none
+     */
+    public void setMetrics(RunMetrics metrics) {
+        mMetrics = metrics;
+        if (metrics != null) {
+            metrics.setCpuCount(getCpuCount());
+        }
+    }
+
+    public RunMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Sets the histograms to count the finished processes in, by priority
+     *
+     * @param histograms null to count none
+     */
+    public void setHistograms(PriorityHistograms histograms) {
+        mHistograms = histograms;
+    }
+
+    public PriorityHistograms getHistograms() {
+        return mHistograms;
+    }
+
+    /**
+     * Turns the recording of what runs when on or off. Recording starts from
+     * the current time.
+     *
+     * @param record
+     */
+    public void setRecordTimeline(boolean record) {
+        mTimeline = record ? new Timeline() : null;
+    }
+
+    public boolean isRecordingTimeline() {
+        return mTimeline != null;
+    }
+
+    /**
+     * Gets what the CPU ran so far
+     *
+     * @return null unless recording
+     */
+    public Timeline getTimeline() {
+        return mTimeline;
+    }
+
+    /**
+     * Gets what a CPU ran so far
+     *
+     * @param cpu
+     * @return null unless recording
+     */
+    public Timeline getTimeline(int cpu) {
+        return getTimeline();
+    }
+
+    /**
+     * In event-driven mode stepForward jumps straight from one decision point
+     * (arrival, completion or end of a time slice) to the next, instead of
+     * consulting the algorithm on every time unit.
+     *
+     * @param eventDriven
+     */
+    public void setEventDriven(boolean eventDriven) {
+        mEventDriven = eventDriven;
+    }
+
+    public boolean isEventDriven() {
+        return mEventDriven;
+    }
+
     /**
      * Gets the current CPU time
      *
@@ -116,8 +801,77 @@ public abstract class Scheduler {
         return mCurrentTime;
     }
 
+    /**
+     * Gets the number of times the CPU switched from one process to another
+     *
+     * @return
+     */
+    public int getContextSwitches() {
+        return mContextSwitches;
+    }
+
+    /**
+     * Gets the number of finished processes that had a deadline
+     *
+     * @return
+     */
+    public long getDeadlineCount() {
+        return mDeadlines;
+    }
+
+    /**
+     * Gets the number of processes that finished after their deadline
+     *
+     * @return
+     */
+    public long getDeadlineMisses() {
+        return mDeadlineMisses;
+    }
+
+    /**
+     * Gets the most time any process finished after its deadline
+     *
+     * @return
+     */
+    public int getMaxLateness() {
+        return mMaxLateness;
+    }
+
+    /**
+     * Gets the number of time units the CPU spent running processes
+     *
+     * @return
+     */
+    public int getBusyTime() {
+        return mBusyTime;
+    }
+
+    /**
+     * Gets the number of simulated CPUs
+     *
+     * @return
+     */
+    public int getCpuCount() {
+        return 1;
+    }
+
+    /**
+     * Gets the number of time units a CPU spent running processes
+     *
+     * @param cpu
+     * @return
+     */
+    public int getBusyTime(int cpu) {
+        return getBusyTime();
+    }
+
+    /**
+     * Checks whether every process has finished and none is left to read
+     *
+     * @return
+     */
     public boolean isFinished() {
-        return mCurrentTime == mTotalBurstTime;
+        return mTable.count(ProcessState.TERMINATED) == mTable.size() && !mSourcePending;
     }
 
     /**
@@ -126,15 +880,51 @@ public abstract class Scheduler {
      * @return
      */
     public ArrayList<Process> getProcessList() {
+        view(mTable.size() - 1);
         return mProcesses;
     }
 
+    /**
+     * Gets the table holding the data of all processes
+     *
+     * @return
+     */
+    public ProcessTable getProcessTable() {
+        return mTable;
+    }
+
+    /**
+     * Gets the time the last process finishes. Processes that would run past
+     * the range of the simulation clock are not accepted.
+     *
+     * @return
+     */
     public int getTotalBurst() {
-        return mTotalBurstTime;
+        return (int) mHorizon.getEnd();
     }
 
     public Process getRunning() {
-        return mRunning;
+        return view(mRunning);
+    }
+
+    /**
+     * Copies the current state for another thread to read. Must be called
+     * by the thread stepping the scheduler.
+     *
+     * @return
+     */
+    public SchedulerSnapshot snapshot() {
+        return new SchedulerSnapshot(this);
+    }
+
+    /**
+     * Gets the number of processes currently in a state
+     *
+     * @param state
+     * @return
+     */
+    public int countInState(ProcessState state) {
+        return mTable.count(state);
     }
 
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import org.alulab.pscheduling.model.ProcessTable;
+import org.alulab.pscheduling.model.Timeline;
+
+/**
+ * The state of a scheduler at one point of time, copied so that another
+ * thread can read it while the scheduler goes on. The simulation thread
+ * takes a snapshot and hands it over through a volatile or atomic
+ * reference; the reader never touches the scheduler itself.
+ *
+ * @author Dipu
+ */
+public final class SchedulerSnapshot {
+
+    private final int mCurrentTime;
+    private final int mTotalBurst;
+    private final boolean mFinished;
+    private final int mContextSwitches;
+    private final int mBusyTime;
+    private final int mRunningRow;
+    private final ProcessTable mTable;
+    // how far each timeline had got, so a reader draws no further
+    private final int[] mTimelineSizes;
+    private final int[] mTimelineEnds;
+    private final int[] mTimelineClears;
+
+    SchedulerSnapshot(Scheduler s) {
+        mCurrentTime = s.getCurrentTime();
+        mTotalBurst = s.getTotalBurst();
+        mFinished = s.isFinished();
+        mContextSwitches = s.getContextSwitches();
+        mBusyTime = s.getBusyTime();
+        mRunningRow = s.mRunning;
+        mTable = s.getProcessTable().copy();
+        int cpus = s.getCpuCount();
+        mTimelineSizes = new int[cpus];
+        mTimelineEnds = new int[cpus];
+        mTimelineClears = new int[cpus];
+        for (int cpu = 0; cpu < cpus; ++cpu) {
+            Timeline t = s.getTimeline(cpu);
+            if (t != null) {
+                int size = t.size();
+                mTimelineSizes[cpu] = size;
+                mTimelineEnds[cpu] = size > 0 ? t.getEnd(size - 1) : 0;
+                mTimelineClears[cpu] = t.getClearCount();
+            }
+        }
+    }
+
+    public int getCurrentTime() {
+        return mCurrentTime;
+    }
+
+    public int getTotalBurst() {
+        return mTotalBurst;
+    }
+
+    public boolean isFinished() {
+        return mFinished;
+    }
+
+    public int getContextSwitches() {
+        return mContextSwitches;
+    }
+
+    public int getBusyTime() {
+        return mBusyTime;
+    }
+
+    /**
+     * Gets the row of the process selected to run
+     *
+     * @return -1 if the CPU was idle
+     */
+    public int getRunningRow() {
+        return mRunningRow;
+    }
+
+    /**
+     * Gets the pid of the process selected to run
+     *
+     * @return -1 if the CPU was idle
+     */
+    public int getRunningPID() {
+        return mRunningRow < 0 ? -1 : mTable.getPID(mRunningRow);
+    }
+
+    public int getCpuCount() {
+        return mTimelineSizes.length;
+    }
+
+    /**
+     * Gets the number of segments the timeline of a CPU had
+     *
+     * @param cpu
+     * @return 0 if it was not recorded
+     */
+    public int getTimelineSize(int cpu) {
+        return mTimelineSizes[cpu];
+    }
+
+    /**
+     * Gets the time the last segment of the timeline of a CPU ended. The
+     * live segment may since have grown past it.
+     *
+     * @param cpu
+     * @return 0 if the timeline was empty
+     */
+    public int getTimelineEnd(int cpu) {
+        return mTimelineEnds[cpu];
+    }
+
+    /**
+     * Gets how many times the timeline of a CPU had been cleared. A live
+     * timeline cleared more often has started over since.
+     *
+     * @param cpu
+     * @return
+     */
+    public int getTimelineClears(int cpu) {
+        return mTimelineClears[cpu];
+    }
+
+    /**
+     * Gets the copy of the processes. It belongs to the snapshot and must not
+     * be changed.
+     *
+     * @return
+     */
+    public ProcessTable getTable() {
+        return mTable;
+    }
+}
@@ -10,32 +10,86 @@
  */
 package org.alulab.pscheduling.algo;
 
-import org.alulab.pscheduling.model.Process;
-
 /**
  *
  * @author Dipu
  */
 public abstract class ShortestJobFirst extends Scheduler {
 
+    // arrived processes keyed on remaining time
+    IndexedHeap mReady;
+
     @Override
     public String getName() {
         return "Shortest Job First";
     }
 
-    Process getNextProcess(int curTime) {
-        Process sel = mRunning;
-        int minTime = Integer.MAX_VALUE;
-        for (Process p : mProcesses) {
-            if (p.getArriveTime() > curTime || p.isFinished()) {
-                continue;
-            }
-            int rem = p.getBurstTime() - p.getCounter();
-            if (rem < minTime) {
-                sel = p;
-                minTime = rem;
+    @Override
+    void initialize() {
+        mReady = new IndexedHeap(this::compare);
+    }
+
+    @Override
+    void arrive(int index) {
+        mReady.offer(index);
+    }
+
+    @Override
+    int queued() {
+        boolean running = mRunning >= 0 && mReady.contains(mRunning);
+        return mReady.size() - (running ? 1 : 0);
+    }
+
+    @Override
+    int steal() {
+        // the running process of a preemptive variant stays in the queue
+        boolean running = mRunning >= 0 && mReady.remove(mRunning);
+        int index = mReady.poll();
+        if (running) {
+            mReady.offer(mRunning);
+        }
+        return index;
+    }
+
+    /**
+     * Orders by remaining time, ties by arrival, then process id
+     */
+    int compare(int a, int b) {
+        int d = Integer.compare(mTable.getRemaining(a), mTable.getRemaining(b));
+        if (d == 0) {
+            d = Integer.compare(mTable.getArriveTime(a), mTable.getArriveTime(b));
+        }
+        if (d == 0) {
+            d = Integer.compare(mTable.getPID(a), mTable.getPID(b));
+        }
+        return d != 0 ? d : Integer.compare(a, b);
+    }
+
+    /**
+     * Picks the best arrived process. The running process stays in the queue
+     * and is re-keyed after it has done some work.
+     *
+     * @param curTime
+     * @return
+     */
+    int getNextProcess(int curTime) {
+        if (mRunning >= 0) {
+            if (mTable.isFinished(mRunning)) {
+                mReady.remove(mRunning);
+            } else {
+                mReady.decreaseKey(mRunning);
             }
         }
-        return sel;
+        return mReady.peek();
+    }
+
+    /**
+     * Removes the best arrived process from the queue
+     *
+     * @param curTime
+     * @return
+     */
+    int pollNextProcess(int curTime) {
+        return mReady.poll();
     }
 }
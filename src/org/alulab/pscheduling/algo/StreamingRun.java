@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import org.alulab.pscheduling.trace.WorkloadStream;
+
+/**
+ * Feeds a scheduler on one CPU from a workload stream, reading each process
+ * as the simulation reaches its arrive time instead of adding them all up
+ * front. Once a process has finished its row is reused, so the process table
+ * only grows with the number of processes alive at the same time. The
+ * scheduler takes no other processes while it is streamed to.
+ *
+ * @author Dipu
+ */
+public final class StreamingRun implements Closeable {
+
+    private final Scheduler mScheduler;
+    private final WorkloadStream mSource;
+
+    /**
+     * @param scheduler an empty scheduler on one CPU
+     * @param source
+     * @throws IOException
+     * @throws IllegalArgumentException if the scheduler runs several CPUs
+     * @throws IllegalStateException if the scheduler has processes
+     */
+    public StreamingRun(Scheduler scheduler, WorkloadStream source) throws IOException {
+        if (scheduler instanceof MultiCoreScheduler) {
+            throw new IllegalArgumentException("Streaming is only supported on one CPU");
+        }
+        scheduler.setSource(source);
+        mScheduler = scheduler;
+        mSource = source;
+    }
+
+    public Scheduler getScheduler() {
+        return mScheduler;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mSource.close();
+    }
+}
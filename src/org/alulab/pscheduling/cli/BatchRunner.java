@@ -0,0 +1,690 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.cli;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.alulab.pscheduling.algo.AdmissionTest;
+import org.alulab.pscheduling.algo.Algorithm;
+import org.alulab.pscheduling.algo.AlgorithmComparison;
+import org.alulab.pscheduling.algo.FairScheduler;
+import org.alulab.pscheduling.algo.MultiCoreScheduler;
+import org.alulab.pscheduling.algo.MultiCoreScheduler.QueueMode;
+import org.alulab.pscheduling.algo.MultiLevelFeedbackQueue;
+import org.alulab.pscheduling.algo.ParallelMultiCoreScheduler;
+import org.alulab.pscheduling.algo.PriorityHistograms;
+import org.alulab.pscheduling.algo.QuantumSweep;
+import org.alulab.pscheduling.algo.StreamingRun;
+import org.alulab.pscheduling.algo.RealTimeScheduler;
+import org.alulab.pscheduling.algo.RoundRobin;
+import org.alulab.pscheduling.algo.RunMetrics;
+import org.alulab.pscheduling.algo.RunStatistics;
+import org.alulab.pscheduling.algo.Scheduler;
+import org.alulab.pscheduling.model.Process;
+import org.alulab.pscheduling.model.Workload;
+import org.alulab.pscheduling.trace.BinaryWorkloadWriter;
+import org.alulab.pscheduling.trace.ScheduleTraceWriter;
+import org.alulab.pscheduling.trace.WorkloadStream;
+
+/**
+ * Runs a simulation to completion without any user interface and prints its
+ * statistics.
+ *
+ * @author Dipu
+ */
+public class BatchRunner {
+
+    private static final int MAX_HYPERPERIOD = 1000000;
+    private static final String USAGE
+            = "Usage: BatchRunner [options]\n"
+            + "  -a, --algorithm NAME  fcfs, sjf, psjf, ps, pps, rr, mlfq, cfs, edf or rm\n"
+            + "                        (default fcfs)\n"
+            + "  -q, --quantum N       round robin time quantum (default 5)\n"
+            + "      --levels Q1,Q2... quanta of the mlfq levels from the top (default 5,10,20)\n"
+            + "      --boost N         move every mlfq process to the top level every N\n"
+            + "                        time units, 0 for never (default 500)\n"
+            + "      --latency N       cfs target latency (default 24)\n"
+            + "      --min-granularity N\n"
+            + "                        cfs shortest slice (default 3)\n"
+            + "  -f, --file PATH       workload file with lines of arrival,burst,priority,\n"
+            + "                        optionally followed by deadline,period for the\n"
+            + "                        periodic tasks of edf and rm,\n"
+            + "                        or a binary workload\n"
+            + "      --stream          read the workload file while simulating instead of\n"
+            + "                        loading it first; it must be sorted by arrival\n"
+            + "                        and periodic tasks release only their first job\n"
+            + "      --write-binary PATH\n"
+            + "                        write the workload in binary form and exit\n"
+            + "      --horizon N       release the jobs of periodic tasks before time N\n"
+            + "                        (default one hyperperiod, at most 1000000, after the\n"
+            + "                        last task starts)\n"
+            + "      --force           run edf or rm even if the tasks fail the admission\n"
+            + "                        test\n"
+            + "  -r, --random N        generate N random processes instead of a file\n"
+            + "  -s, --seed N          seed of the random workload (default 1)\n"
+            + "      --load F          divide the random arrival gaps by F to raise the load\n"
+            + "                        (default 1)\n"
+            + "  -c, --compare         run every algorithm in parallel and compare them,\n"
+            + "                        each with the options given for it and the CPUs\n"
+            + "  -w, --sweep FROM:TO[:STEP]\n"
+            + "                        run round robin for a range of quanta in parallel,\n"
+            + "                        on the CPUs and run queues given\n"
+            + "      --switch-cost N   time units charged per context switch when choosing\n"
+            + "                        the optimal quantum (default 0)\n"
+            + "  -n, --cpus N          number of CPUs (default 1)\n"
+            + "      --queue MODE      global or per-cpu run queues (default per-cpu)\n"
+            + "      --migration-cost N\n"
+            + "                        time units lost when a process changes CPU (default 0)\n"
+            + "      --balance N       balance per-cpu run queues every N time units\n"
+            + "                        instead of at every decision\n"
+            + "  -j, --threads N       run the CPUs on N threads, balancing per-cpu run\n"
+            + "                        queues every 1000 time units unless --balance is given;\n"
+            + "                        not with --metrics, --histograms or --trace\n"
+            + "      --trace PATH      write every dispatch, preemption and completion to a\n"
+            + "                        binary schedule trace\n"
+            + "  -m, --metrics         print the percentiles of waiting, response and\n"
+            + "                        turnaround time, slowdown, throughput and utilization\n"
+            + "      --window N        time units per throughput and utilization window of\n"
+            + "                        --metrics (default 1000)\n"
+            + "  -H, --histograms      print the waiting and response time percentiles of\n"
+            + "                        each priority\n"
+            + "      --save-histograms PATH\n"
+            + "                        save the priority histograms in binary, or their\n"
+            + "                        buckets as CSV if PATH ends with .csv\n"
+            + "      --merge-histograms PATH[,PATH...]\n"
+            + "                        print the histograms of saved runs added together\n"
+            + "  -t, --tick            step one time unit at a time\n"
+            + "  -h, --help            show this help\n";
+
+    private Algorithm mAlgorithm = Algorithm.FCFS;
+    private int mQuantum = RoundRobin.DEFAULT_QUANTUM;
+    private int[] mLevels = MultiLevelFeedbackQueue.DEFAULT_QUANTA;
+    private int mBoost = MultiLevelFeedbackQueue.DEFAULT_BOOST_INTERVAL;
+    private int mLatency = FairScheduler.DEFAULT_LATENCY;
+    private int mMinGranularity = FairScheduler.DEFAULT_MIN_GRANULARITY;
+    private int[] mSweep;
+    private double mSwitchCost;
+    private int mCpus = 1;
+    private QueueMode mQueueMode = QueueMode.PER_CPU;
+    private int mMigrationCost;
+    private int mBalanceInterval = -1;
+    private int mThreads;
+    private boolean mStream;
+    private String mWriteBinary;
+    private String mTrace;
+    private boolean mMetrics;
+    private int mWindow = RunMetrics.DEFAULT_WINDOW;
+    private boolean mHistograms;
+    private String mSaveHistograms;
+    private String[] mMergeHistograms;
+    private double mLoad = 1;
+    private String mFile;
+    private int mHorizon;
+    private boolean mForce;
+    // the workload as loaded, before periodic tasks are expanded
+    private Workload mTasks;
+    private int mRandom;
+    private long mSeed = 1;
+    private boolean mTick;
+    private boolean mCompare;
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        try {
+            if (runner.mMergeHistograms != null) {
+                System.out.print(runner.mergeHistograms());
+            } else if (runner.mWriteBinary != null) {
+                System.out.printf("Wrote %d processes%n", runner.writeBinary());
+            } else if (runner.mSweep != null) {
+                System.out.print(runner.sweep().format(runner.mSwitchCost));
+            } else if (runner.mCompare) {
+                System.out.print(AlgorithmComparison.format(runner.compare()));
+            } else {
+                AdmissionTest test = runner.admissionTest();
+                if (test != null) {
+                    System.out.println(test);
+                    if (!test.isAdmitted() && !runner.mForce) {
+                        System.err.println("The tasks may miss their deadlines;"
+                                + " use --force to run anyway");
+                        System.exit(3);
+                    }
+                }
+                System.out.print(runner.run());
+            }
+        } catch (IOException ex) {
+            System.err.println("I/O error: " + ex.getMessage());
+            System.exit(1);
+        } catch (UncheckedIOException ex) {
+            System.err.println("I/O error: " + ex.getCause().getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    void parse(String[] args) {
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "-a":
+                case "--algorithm":
+                    mAlgorithm = Algorithm.forName(value(args, ++i));
+                    break;
+                case "-q":
+                case "--quantum":
+                    mQuantum = positive(value(args, ++i));
+                    break;
+                case "-f":
+                case "--file":
+                    mFile = value(args, ++i);
+                    break;
+                case "-r":
+                case "--random":
+                    mRandom = positive(value(args, ++i));
+                    break;
+                case "-s":
+                case "--seed":
+                    mSeed = Long.parseLong(value(args, ++i));
+                    break;
+                case "-c":
+                case "--compare":
+                    mCompare = true;
+                    break;
+                case "--levels":
+                    mLevels = levels(value(args, ++i));
+                    break;
+                case "--boost":
+                    mBoost = Integer.parseInt(value(args, ++i));
+                    if (mBoost < 0) {
+                        throw new IllegalArgumentException(
+                                "Expected a boost interval of 0 or more: " + mBoost);
+                    }
+                    break;
+                case "--latency":
+                    mLatency = positive(value(args, ++i));
+                    break;
+                case "--min-granularity":
+                    mMinGranularity = positive(value(args, ++i));
+                    break;
+                case "-w":
+                case "--sweep":
+                    mSweep = range(value(args, ++i));
+                    break;
+                case "--switch-cost":
+                    mSwitchCost = Double.parseDouble(value(args, ++i));
+                    break;
+                case "-n":
+                case "--cpus":
+                    mCpus = positive(value(args, ++i));
+                    break;
+                case "--queue":
+                    mQueueMode = queueMode(value(args, ++i));
+                    break;
+                case "--migration-cost":
+                    mMigrationCost = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--balance":
+                    mBalanceInterval = positive(value(args, ++i));
+                    break;
+                case "-j":
+                case "--threads":
+                    mThreads = positive(value(args, ++i));
+                    break;
+                case "--stream":
+                    mStream = true;
+                    break;
+                case "--write-binary":
+                    mWriteBinary = value(args, ++i);
+                    break;
+                case "--trace":
+                    mTrace = value(args, ++i);
+                    break;
+                case "-m":
+                case "--metrics":
+                    mMetrics = true;
+                    break;
+                case "--window":
+                    mWindow = positive(value(args, ++i));
+                    break;
+                case "-H":
+                case "--histograms":
+                    mHistograms = true;
+                    break;
+                case "--save-histograms":
+                    mSaveHistograms = value(args, ++i);
+                    break;
+                case "--merge-histograms":
+                    mMergeHistograms = value(args, ++i).split(",");
+                    break;
+                case "--horizon":
+                    mHorizon = positive(value(args, ++i));
+                    break;
+                case "--force":
+                    mForce = true;
+                    break;
+                case "--load":
+                    mLoad = Double.parseDouble(value(args, ++i));
+                    if (!(mLoad > 0)) {
+                        throw new IllegalArgumentException("Expected a positive load: " + mLoad);
+                    }
+                    break;
+                case "-t":
+                case "--tick":
+                    mTick = true;
+                    break;
+                case "-h":
+                case "--help":
+                    System.out.print(USAGE);
+                    System.exit(0);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (mMergeHistograms != null) {
+            return;
+        }
+        if ((mFile == null) == (mRandom == 0)) {
+            throw new IllegalArgumentException("Give either a workload file or a random count");
+        }
+        if (mStream && (mFile == null || mCpus > 1 || mThreads > 0)) {
+            throw new IllegalArgumentException("--stream needs a workload file and one CPU");
+        }
+        if (mStream && (mAlgorithm == Algorithm.EDF || mAlgorithm == Algorithm.RATE_MONOTONIC)) {
+            // a stream cannot release the later jobs of a periodic task
+            throw new IllegalArgumentException("--stream cannot be used with edf or rm");
+        }
+        if (mThreads > 0 && mQueueMode != QueueMode.PER_CPU) {
+            throw new IllegalArgumentException("--threads needs per-cpu run queues");
+        }
+        if (mThreads > 0 && mCompare) {
+            // the algorithms already run in parallel
+            throw new IllegalArgumentException("--threads cannot be used with --compare");
+        }
+        if (mThreads > 0 && (mMetrics || mHistograms || mSaveHistograms != null
+                || mTrace != null)) {
+            // these are recorded one event at a time, so the CPUs would
+            // silently run on the calling thread
+            throw new IllegalArgumentException("--threads cannot be used with --metrics,"
+                    + " --histograms, --save-histograms or --trace");
+        }
+        if (mSweep != null && (mThreads > 0 || mStream || mMetrics || mHistograms
+                || mSaveHistograms != null || mTrace != null)) {
+            // the quanta already run in parallel, each on a loaded workload,
+            // and only their statistics are printed
+            throw new IllegalArgumentException("--sweep cannot be used with --threads,"
+                    + " --stream, --metrics, --histograms, --save-histograms or --trace");
+        }
+    }
+
+    RunStatistics run() throws IOException {
+        Scheduler s = scheduler(mAlgorithm);
+        s.setEventDriven(!mTick);
+        StreamingRun stream = null;
+        if (mStream) {
+            stream = new StreamingRun(s, WorkloadStream.open(Paths.get(mFile)));
+        } else {
+            s.addProcesses(workload());
+        }
+        if (mMetrics) {
+            s.setMetrics(new RunMetrics(mWindow));
+        }
+        if (mHistograms || mSaveHistograms != null) {
+            s.setHistograms(new PriorityHistograms());
+        }
+        ScheduleTraceWriter trace = null;
+        try {
+            if (mTrace != null) {
+                trace = new ScheduleTraceWriter(Paths.get(mTrace));
+                s.setListener(trace);
+            }
+            while (!s.isFinished()) {
+                s.stepForward(Integer.MAX_VALUE);
+            }
+        } finally {
+            if (s instanceof ParallelMultiCoreScheduler) {
+                ((ParallelMultiCoreScheduler) s).close();
+            }
+            if (stream != null) {
+                stream.close();
+            }
+            if (trace != null) {
+                trace.close();
+            }
+        }
+        if (mSaveHistograms != null) {
+            saveHistograms(s.getHistograms(), Paths.get(mSaveHistograms));
+        }
+        if (!mHistograms) {
+            // only saved, not printed
+            s.setHistograms(null);
+        }
+        return RunStatistics.of(s);
+    }
+
+    private static void saveHistograms(PriorityHistograms h, Path file) throws IOException {
+        if (file.toString().toLowerCase().endsWith(".csv")) {
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                h.writeCsv(out);
+            }
+        } else {
+            h.save(file);
+        }
+    }
+
+    /**
+     * Adds together the priority histograms saved by several runs
+     *
+     * @return
+     * @throws IOException
+     */
+    PriorityHistograms mergeHistograms() throws IOException {
+        PriorityHistograms sum = null;
+        for (String file : mMergeHistograms) {
+            PriorityHistograms h = PriorityHistograms.load(Paths.get(file));
+            if (sum == null) {
+                sum = h;
+            } else {
+                sum.add(h);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Creates a scheduler running an algorithm on the CPUs of the options
+     */
+    private Scheduler scheduler(Algorithm algorithm) {
+        return scheduler(algorithm, mQuantum);
+    }
+
+    private Scheduler scheduler(Algorithm algorithm, int quantum) {
+        Scheduler s;
+        if (mThreads > 0) {
+            s = new ParallelMultiCoreScheduler(() -> create(algorithm, quantum), mCpus, mThreads);
+        } else if (mCpus > 1) {
+            s = new MultiCoreScheduler(() -> create(algorithm, quantum), mCpus, mQueueMode);
+        } else {
+            s = create(algorithm, quantum);
+        }
+        if (s instanceof MultiCoreScheduler) {
+            MultiCoreScheduler m = (MultiCoreScheduler) s;
+            m.setMigrationCost(mMigrationCost);
+            if (mBalanceInterval > 0) {
+                m.setBalanceInterval(mBalanceInterval);
+            }
+        }
+        return s;
+    }
+
+    private Scheduler create(Algorithm algorithm, int quantum) {
+        Scheduler s = algorithm.create();
+        if (s instanceof RoundRobin) {
+            ((RoundRobin) s).setQuantum(quantum);
+        } else if (s instanceof MultiLevelFeedbackQueue) {
+            ((MultiLevelFeedbackQueue) s).setQuanta(mLevels);
+            ((MultiLevelFeedbackQueue) s).setBoostInterval(mBoost);
+        } else if (s instanceof FairScheduler) {
+            ((FairScheduler) s).setLatency(mLatency);
+            ((FairScheduler) s).setMinGranularity(mMinGranularity);
+        }
+        return s;
+    }
+
+    List<RunStatistics> compare() throws IOException {
+        return AlgorithmComparison.compare(workload(),
+                Arrays.asList(Algorithm.values()), this::scheduler,
+                ForkJoinPool.commonPool());
+    }
+
+    QuantumSweep sweep() throws IOException {
+        return QuantumSweep.run(workload(), quantum -> {
+            Scheduler s = scheduler(Algorithm.ROUND_ROBIN, quantum);
+            s.setEventDriven(!mTick);
+            return s;
+        }, mSweep[0], mSweep[1], mSweep[2], ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Writes the workload in binary form, streaming a workload file through
+     * without loading it
+     *
+     * @return the number of processes written
+     * @throws IOException
+     */
+    long writeBinary() throws IOException {
+        try (BinaryWorkloadWriter out = new BinaryWorkloadWriter(Paths.get(mWriteBinary))) {
+            if (mFile != null) {
+                try (WorkloadStream in = WorkloadStream.open(Paths.get(mFile))) {
+                    while (in.next()) {
+                        out.add(in.getPID(), in.getArriveTime(), in.getBurstTime(),
+                                in.getPriority(), in.getDeadline(), in.getPeriod());
+                    }
+                }
+            } else {
+                Workload w = workload();
+                for (int i = 0; i < w.size(); ++i) {
+                    out.add(w.getPID(i), w.getArriveTime(i), w.getBurstTime(i),
+                            w.getPriority(i), w.getDeadline(i), w.getPeriod(i));
+                }
+            }
+            return out.getCount();
+        }
+    }
+
+    /**
+     * Gets the jobs to run, listing those of the periodic tasks up to the
+     * horizon
+     *
+     * @return
+     * @throws IOException
+     */
+    Workload workload() throws IOException {
+        Workload w = tasks();
+        return isPeriodic(w) ? w.expand(horizon(w)) : w;
+    }
+
+    /**
+     * Tests the periodic tasks of the workload for a real-time algorithm
+     *
+     * @return null if the algorithm is not a real-time one or there are no
+     * periodic tasks
+     * @throws IOException
+     */
+    AdmissionTest admissionTest() throws IOException {
+        Scheduler s = create(mAlgorithm, mQuantum);
+        if (!(s instanceof RealTimeScheduler) || mStream || !isPeriodic(tasks())) {
+            return null;
+        }
+        return ((RealTimeScheduler) s).admissionTest(tasks());
+    }
+
+    private static boolean isPeriodic(Workload w) {
+        for (int i = 0; i < w.size(); ++i) {
+            if (w.getPeriod(i) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int horizon(Workload w) {
+        if (mHorizon > 0) {
+            return mHorizon;
+        }
+        long hyperperiod = 1;
+        int start = 0;
+        for (int i = 0; i < w.size(); ++i) {
+            int period = w.getPeriod(i);
+            if (period > 0) {
+                hyperperiod = Math.min(MAX_HYPERPERIOD, lcm(hyperperiod, period));
+                start = Math.max(start, w.getArriveTime(i));
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, start + hyperperiod);
+    }
+
+    private static long lcm(long a, long b) {
+        long x = a, y = b;
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+
+    /**
+     * Gets the workload as given, loading it the first time
+     *
+     * @return
+     * @throws IOException
+     */
+    Workload tasks() throws IOException {
+        if (mTasks == null) {
+            mTasks = loadTasks();
+        }
+        return mTasks;
+    }
+
+    private Workload loadTasks() throws IOException {
+        Workload w = new Workload();
+        if (mFile != null) {
+            load(w, mFile);
+        } else {
+            generate(w, mRandom, mSeed, mLoad);
+        }
+        return w;
+    }
+
+    /**
+     * Reads processes from a text or binary workload file with the same
+     * reader as --stream, except that the processes may come in any order
+     *
+     * @param w
+     * @param file
+     * @throws IOException
+     */
+    static void load(Workload w, String file) throws IOException {
+        try (WorkloadStream in = WorkloadStream.open(Paths.get(file))) {
+            in.setOrdered(false);
+            while (in.next()) {
+                w.add(in.getPID(), in.getArriveTime(), in.getBurstTime(),
+                        in.getPriority(), in.getDeadline(), in.getPeriod());
+                // the later jobs of periodic tasks are numbered after the file
+                Process.PROCESS_ID_NUMBER = Math.max(Process.PROCESS_ID_NUMBER, in.getPID() + 1);
+            }
+        }
+    }
+
+    /**
+     * Adds random processes in order of arrival, with the same ranges as the
+     * random button of the main form
+     *
+     * @param w
+     * @param count
+     * @param seed
+     */
+    static void generate(Workload w, int count, long seed) {
+        generate(w, count, seed, 1);
+    }
+
+    /**
+     * Adds random processes with the arrival gaps divided by a load factor
+     *
+     * @param w
+     * @param count
+     * @param seed
+     * @param load
+     */
+    static void generate(Workload w, int count, long seed, double load) {
+        Random random = new Random(seed);
+        int arrival = 0;
+        for (int i = 0; i < count; ++i) {
+            arrival += (int) (random.nextInt(100) / load);
+            w.add(arrival, 1 + random.nextInt(100), 1 + random.nextInt(10));
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static QueueMode queueMode(String value) {
+        switch (value.toLowerCase()) {
+            case "global":
+                return QueueMode.GLOBAL;
+            case "per-cpu":
+                return QueueMode.PER_CPU;
+            default:
+                throw new IllegalArgumentException("Unknown queue mode: " + value);
+        }
+    }
+
+    private static int[] range(String value) {
+        String[] parts = value.split(":");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Expected FROM:TO[:STEP]: " + value);
+        }
+        int[] range = {
+            positive(parts[0]),
+            positive(parts[1]),
+            parts.length > 2 ? positive(parts[2]) : 1
+        };
+        if (range[1] < range[0]) {
+            throw new IllegalArgumentException("FROM must not exceed TO: " + value);
+        }
+        return range;
+    }
+
+    private static int[] levels(String value) {
+        String[] parts = value.split(",");
+        if (parts.length > MultiLevelFeedbackQueue.MAX_LEVELS) {
+            throw new IllegalArgumentException("At most " + MultiLevelFeedbackQueue.MAX_LEVELS
+                    + " levels: " + value);
+        }
+        int[] quanta = new int[parts.length];
+        for (int i = 0; i < parts.length; ++i) {
+            quanta[i] = positive(parts[i].trim());
+        }
+        return quanta;
+    }
+
+    private static int positive(String value) {
+        int n = Integer.parseInt(value);
+        if (n <= 0) {
+            throw new IllegalArgumentException("Expected a positive number: " + value);
+        }
+        return n;
+    }
+}
@@ -11,7 +11,8 @@
 package org.alulab.pscheduling.model;
 
 /**
- * A real process
+ * A real process. The data lives in a row of a ProcessTable; a process
+ * created on its own keeps it in fields of its own until a table adopts it.
  *
  * @author Dipu
  */
@@ -19,34 +20,40 @@ public class Process implements Comparable<Process> {
 
     public static int PROCESS_ID_NUMBER = 1;
 
-    // process states
-    public static final String NEW = "New";
-    public static final String READY = "Ready";
-    public static final String WAITING = "Waiting";
-    public static final String RUNNING = "Running";
-    public static final String TERMINATED = "Terminated";
-
-    // process variables
-    private final int mPID;
-    private final int mBurstTime;
-    private final int mPriority;
-    private volatile int mCounter;
-    private String mState;
-    private int mArriveTime;
-    private int mStartTime;
-    private int mFinishTime;
+    // position of the process data, null while the process is on its own
+    ProcessTable mTable;
+    int mRow;
+    // data of a process on its own
+    int mPID;
+    int mArriveTime;
+    int mBurstTime;
+    int mPriority;
+    int mDeadline;
+    int mPeriod;
+    int mCounter;
+    int mStartTime;
+    int mFinishTime;
+    ProcessState mState;
 
     public Process(int arrival, int burstTime, int priority) {
         mPID = PROCESS_ID_NUMBER++;
         mArriveTime = arrival;
         mBurstTime = burstTime;
         mPriority = priority;
-        mState = READY;
-        mCounter = 0;
+        mState = ProcessState.NEW;
+    }
+
+    Process(ProcessTable table, int row) {
+        mTable = table;
+        mRow = row;
     }
 
     public void reset() {
-        mState = READY;
+        if (mTable != null) {
+            mTable.reset(mRow);
+            return;
+        }
+        mState = ProcessState.NEW;
         mCounter = 0;
         mStartTime = mFinishTime = 0;
     }
@@ -57,15 +64,30 @@ public class Process implements Comparable<Process> {
      * @param timeId
      */
     public void dowork(int timeId) {
-        if (mState != TERMINATED) {
+        dowork(timeId, 1);
+    }
+
+    /**
+     * Do several consecutive units of work starting at timeId
+     *
+     * @param timeId
+     * @param units
+     */
+    public void dowork(int timeId, int units) {
+        if (mTable != null) {
+            mTable.dowork(mRow, timeId, units);
+            return;
+        }
+        units = Math.min(units, mBurstTime - mCounter);
+        if (mState != ProcessState.TERMINATED && units > 0) {
+            setState(ProcessState.RUNNING);
             if (mCounter == 0) {
                 mStartTime = timeId;
             }
-            mCounter++;
-            mState = RUNNING;
+            mCounter += units;
             if (mCounter == mBurstTime) {
-                mState = TERMINATED;
-                mFinishTime = timeId;
+                setState(ProcessState.TERMINATED);
+                mFinishTime = timeId + units - 1;
             }
         }
     }
@@ -74,43 +96,49 @@ public class Process implements Comparable<Process> {
     // Getter methods
     //
     public int getPID() {
-        return mPID;
+        return mTable == null ? mPID : mTable.getPID(mRow);
     }
 
     public int getBurstTime() {
-        return mBurstTime;
+        return mTable == null ? mBurstTime : mTable.getBurstTime(mRow);
     }
 
-    public String getState() {
-        return mState;
+    public ProcessState getState() {
+        return mTable == null ? mState : mTable.getState(mRow);
     }
 
-    public void setState(String state) {
-        mState = state;
+    public void setState(ProcessState state) {
+        if (mTable != null) {
+            mTable.setState(mRow, state);
+        } else if (mState != state) {
+            ProcessTable.checkMove(mPID, mState, state);
+            mState = state;
+        }
     }
 
     public int getPriority() {
-        return mPriority;
+        return mTable == null ? mPriority : mTable.getPriority(mRow);
     }
 
     public int getCounter() {
-        return mCounter;
+        return mTable == null ? mCounter : mTable.getCounter(mRow);
     }
 
     public boolean isFinished() {
-        return mCounter == mBurstTime;
+        return getCounter() == getBurstTime();
     }
 
     public boolean isRunning() {
-        return mState.equals(RUNNING);
+        return getState() == ProcessState.RUNNING;
     }
 
     public boolean isWaiting() {
-        return mState.equals(WAITING);
+        return getState() == ProcessState.WAITING;
     }
 
     public double getProgress() {
-        return mBurstTime == 0 ? 100 : 100.0 * mCounter / (double) mBurstTime;
+        int burst = getBurstTime();
+        return burst == 0 ? 100 : 100.0 * getCounter() / (double) burst;
     }
 
     public String getProgressFormated() {
@@ -118,35 +146,73 @@ public class Process implements Comparable<Process> {
     }
 
     public int getArriveTime() {
-        return mArriveTime;
+        return mTable == null ? mArriveTime : mTable.getArriveTime(mRow);
     }
 
     public void setArriveTime(int arriveTime) {
-        mArriveTime = arriveTime;
+        if (mTable == null) {
+            mArriveTime = arriveTime;
+        } else {
+            mTable.setArriveTime(mRow, arriveTime);
+        }
+    }
+
+    public int getDeadline() {
+        if (mTable == null) {
+            return mDeadline == 0 ? mPeriod : mDeadline;
+        }
+        return mTable.getDeadline(mRow);
+    }
+
+    public int getPeriod() {
+        return mTable == null ? mPeriod : mTable.getPeriod(mRow);
+    }
+
+    /**
+     * Sets the relative deadline and period
+     *
+     * @param deadline 0 for none
+     * @param period 0 if not periodic
+     */
+    public void setTiming(int deadline, int period) {
+        if (mTable == null) {
+            mDeadline = deadline;
+            mPeriod = period;
+        } else {
+            mTable.setTiming(mRow, deadline, period);
+        }
     }
 
     public int getStartTime() {
-        return mStartTime;
+        return mTable == null ? mStartTime : mTable.getStartTime(mRow);
     }
 
     public void setStartTime(int startTime) {
-        mStartTime = startTime;
+        if (mTable == null) {
+            mStartTime = startTime;
+        } else {
+            mTable.setStartTime(mRow, startTime);
+        }
     }
 
     public int getFinishTime() {
-        return mFinishTime;
+        return mTable == null ? mFinishTime : mTable.getFinishTime(mRow);
     }
 
     public void setFinishTime(int finishTime) {
-        mFinishTime = finishTime;
+        if (mTable == null) {
+            mFinishTime = finishTime;
+        } else {
+            mTable.setFinishTime(mRow, finishTime);
+        }
     }
 
     public int getExecTime() {
-        return mCounter;
+        return getCounter();
     }
 
     @Override
     public int compareTo(Process p) {
-        return mArriveTime - p.getArriveTime();
+        return Integer.compare(getArriveTime(), p.getArriveTime());
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.model;
+
+/**
+ * Life cycle of a process.
+ * <pre>
+ * NEW -> READY -> RUNNING -> TERMINATED
+ *                 RUNNING <-> WAITING
+ * </pre>
+ *
+ * @author Dipu
+ */
+public enum ProcessState {
+
+    NEW("New"),
+    READY("Ready"),
+    WAITING("Waiting"),
+    RUNNING("Running"),
+    TERMINATED("Terminated");
+
+    private static final ProcessState[] VALUES = values();
+
+    static {
+        NEW.allow(READY);
+        READY.allow(RUNNING);
+        RUNNING.allow(WAITING, TERMINATED);
+        WAITING.allow(RUNNING);
+    }
+
+    private final String mName;
+    // bit set of states reachable in one step
+    private int mNext;
+
+    private ProcessState(String name) {
+        mName = name;
+    }
+
+    private void allow(ProcessState... next) {
+        for (ProcessState s : next) {
+            mNext |= 1 << s.ordinal();
+        }
+    }
+
+    /**
+     * Checks whether a process in this state may move to the next one
+     *
+     * @param next
+     * @return
+     */
+    public boolean canMoveTo(ProcessState next) {
+        return (mNext & (1 << next.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the byte code stored in a ProcessTable
+     *
+     * @return
+     */
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Gets the state of a byte code
+     *
+     * @param code
+     * @return
+     */
+    public static ProcessState of(byte code) {
+        return VALUES[code];
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
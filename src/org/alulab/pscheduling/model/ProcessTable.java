@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.model;
+
+import java.util.Arrays;
+
+/**
+ * Column storage for a set of processes. Every attribute is kept in its own
+ * primitive array and a process is addressed by its row number, so a large
+ * workload costs a few bytes per process and no object per process.
+ *
+ * @author Dipu
+ */
+public final class ProcessTable {
+
+    private static final byte NEW = ProcessState.NEW.code();
+    private static final byte RUNNING = ProcessState.RUNNING.code();
+    private static final byte TERMINATED = ProcessState.TERMINATED.code();
+
+    private int[] mPID;
+    private int[] mArriveTime;
+    private int[] mBurstTime;
+    private int[] mPriority;
+    // relative deadline and period, 0 for none
+    private int[] mDeadline;
+    private int[] mPeriod;
+    private int[] mCounter;
+    private int[] mStartTime;
+    private int[] mFinishTime;
+    private byte[] mState;
+    private int mSize;
+    // number of processes in each state
+    private final int[] mStateCount;
+
+    public ProcessTable() {
+        this(16);
+    }
+
+    public ProcessTable(int capacity) {
+        capacity = Math.max(1, capacity);
+        mPID = new int[capacity];
+        mArriveTime = new int[capacity];
+        mBurstTime = new int[capacity];
+        mPriority = new int[capacity];
+        mDeadline = new int[capacity];
+        mPeriod = new int[capacity];
+        mCounter = new int[capacity];
+        mStartTime = new int[capacity];
+        mFinishTime = new int[capacity];
+        mState = new byte[capacity];
+        mSize = 0;
+        mStateCount = new int[ProcessState.count()];
+    }
+
+    /**
+     * Add a new process
+     *
+     * @param pid
+     * @param arrival
+     * @param burstTime
+     * @param priority
+     * @return the row of the process
+     */
+    public int add(int pid, int arrival, int burstTime, int priority) {
+        ensureCapacity(mSize + 1);
+        int row = mSize++;
+        mPID[row] = pid;
+        mArriveTime[row] = arrival;
+        mBurstTime[row] = burstTime;
+        mPriority[row] = priority;
+        mDeadline[row] = mPeriod[row] = 0;
+        mState[row] = NEW;
+        mStateCount[NEW]++;
+        reset(row);
+        return row;
+    }
+
+    /**
+     * Moves a process into this table. The process keeps its current
+     * progress and becomes a view of the new row.
+     *
+     * @param p
+     * @return the row of the process
+     */
+    public int adopt(Process p) {
+        ProcessTable from = p.mTable;
+        int row;
+        byte state;
+        if (from == null) {
+            row = add(p.mPID, p.mArriveTime, p.mBurstTime, p.mPriority);
+            mDeadline[row] = p.mDeadline;
+            mPeriod[row] = p.mPeriod;
+            mCounter[row] = p.mCounter;
+            mStartTime[row] = p.mStartTime;
+            mFinishTime[row] = p.mFinishTime;
+            state = p.mState.code();
+            p.mState = null;
+        } else {
+            int src = p.mRow;
+            row = add(from.mPID[src], from.mArriveTime[src],
+                    from.mBurstTime[src], from.mPriority[src]);
+            mDeadline[row] = from.mDeadline[src];
+            mPeriod[row] = from.mPeriod[src];
+            mCounter[row] = from.mCounter[src];
+            mStartTime[row] = from.mStartTime[src];
+            mFinishTime[row] = from.mFinishTime[src];
+            state = from.mState[src];
+        }
+        mStateCount[mState[row]]--;
+        mState[row] = state;
+        mStateCount[state]++;
+        p.mTable = this;
+        p.mRow = row;
+        return row;
+    }
+
+    /**
+     * Gets a view of the given row
+     *
+     * @param row
+     * @return
+     */
+    public Process view(int row) {
+        return new Process(this, row);
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > mPID.length) {
+            int n = Math.max(capacity, mPID.length + (mPID.length >> 1));
+            mPID = Arrays.copyOf(mPID, n);
+            mArriveTime = Arrays.copyOf(mArriveTime, n);
+            mBurstTime = Arrays.copyOf(mBurstTime, n);
+            mPriority = Arrays.copyOf(mPriority, n);
+            mDeadline = Arrays.copyOf(mDeadline, n);
+            mPeriod = Arrays.copyOf(mPeriod, n);
+            mCounter = Arrays.copyOf(mCounter, n);
+            mStartTime = Arrays.copyOf(mStartTime, n);
+            mFinishTime = Arrays.copyOf(mFinishTime, n);
+            mState = Arrays.copyOf(mState, n);
+        }
+    }
+
+    /**
+     * Puts a new process in the row of one that is no longer needed
+     *
+     * @param row
+     * @param pid
+     * @param arrival
+     * @param burstTime
+     * @param priority
+     */
+    public void reuse(int row, int pid, int arrival, int burstTime, int priority) {
+        reset(row);
+        mPID[row] = pid;
+        mArriveTime[row] = arrival;
+        mBurstTime[row] = burstTime;
+        mPriority[row] = priority;
+        mDeadline[row] = mPeriod[row] = 0;
+    }
+
+    /**
+     * Resets the progress of a process
+     *
+     * @param row
+     */
+    public void reset(int row) {
+        mStateCount[mState[row]]--;
+        mState[row] = NEW;
+        mStateCount[NEW]++;
+        mCounter[row] = 0;
+        mStartTime[row] = mFinishTime[row] = 0;
+    }
+
+    /**
+     * Resets the progress of every process
+     */
+    public void resetAll() {
+        Arrays.fill(mState, 0, mSize, NEW);
+        Arrays.fill(mStateCount, 0);
+        mStateCount[NEW] = mSize;
+        Arrays.fill(mCounter, 0, mSize, 0);
+        Arrays.fill(mStartTime, 0, mSize, 0);
+        Arrays.fill(mFinishTime, 0, mSize, 0);
+    }
+
+    /**
+     * Creates a table sharing the rows of this one but counting states on
+     * its own, starting from zero. Threads each working on their own share
+     * may update different rows at the same time; the state counts of this
+     * table are brought up to date with mergeCounts. A share is only valid
+     * until rows are added to this table.
+     *
+     * @return
+     */
+    public ProcessTable share() {
+        return new ProcessTable(this);
+    }
+
+    private ProcessTable(ProcessTable shared) {
+        mPID = shared.mPID;
+        mArriveTime = shared.mArriveTime;
+        mBurstTime = shared.mBurstTime;
+        mPriority = shared.mPriority;
+        mDeadline = shared.mDeadline;
+        mPeriod = shared.mPeriod;
+        mCounter = shared.mCounter;
+        mStartTime = shared.mStartTime;
+        mFinishTime = shared.mFinishTime;
+        mState = shared.mState;
+        mSize = shared.mSize;
+        mStateCount = new int[ProcessState.count()];
+    }
+
+    /**
+     * Creates a table with copies of the rows of this one, which does not
+     * change when this one does
+     *
+     * @return
+     */
+    public ProcessTable copy() {
+        ProcessTable copy = new ProcessTable(0);
+        copy.mPID = Arrays.copyOf(mPID, mSize);
+        copy.mArriveTime = Arrays.copyOf(mArriveTime, mSize);
+        copy.mBurstTime = Arrays.copyOf(mBurstTime, mSize);
+        copy.mPriority = Arrays.copyOf(mPriority, mSize);
+        copy.mDeadline = Arrays.copyOf(mDeadline, mSize);
+        copy.mPeriod = Arrays.copyOf(mPeriod, mSize);
+        copy.mCounter = Arrays.copyOf(mCounter, mSize);
+        copy.mStartTime = Arrays.copyOf(mStartTime, mSize);
+        copy.mFinishTime = Arrays.copyOf(mFinishTime, mSize);
+        copy.mState = Arrays.copyOf(mState, mSize);
+        copy.mSize = mSize;
+        System.arraycopy(mStateCount, 0, copy.mStateCount, 0, mStateCount.length);
+        return copy;
+    }
+
+    /**
+     * Adds the state changes counted by a share to this table and clears
+     * them from the share
+     *
+     * @param share
+     */
+    public void mergeCounts(ProcessTable share) {
+        for (int i = 0; i < mStateCount.length; ++i) {
+            mStateCount[i] += share.mStateCount[i];
+            share.mStateCount[i] = 0;
+        }
+    }
+
+    /**
+     * Removes all processes
+     */
+    public void clear() {
+        mSize = 0;
+        Arrays.fill(mStateCount, 0);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Do several consecutive units of work starting at timeId
+     *
+     * @param row
+     * @param timeId
+     * @param units
+     */
+    public void dowork(int row, int timeId, int units) {
+        units = Math.min(units, mBurstTime[row] - mCounter[row]);
+        if (mState[row] != TERMINATED && units > 0) {
+            if (mState[row] != RUNNING) {
+                setState(row, ProcessState.RUNNING);
+            }
+            if (mCounter[row] == 0) {
+                mStartTime[row] = timeId;
+            }
+            mCounter[row] += units;
+            if (mCounter[row] == mBurstTime[row]) {
+                setState(row, ProcessState.TERMINATED);
+                mFinishTime[row] = timeId + units - 1;
+            }
+        }
+    }
+
+    //
+    // Column access
+    //
+    public int getPID(int row) {
+        return mPID[row];
+    }
+
+    public int getArriveTime(int row) {
+        return mArriveTime[row];
+    }
+
+    public void setArriveTime(int row, int arriveTime) {
+        mArriveTime[row] = arriveTime;
+    }
+
+    public int getBurstTime(int row) {
+        return mBurstTime[row];
+    }
+
+    public int getPriority(int row) {
+        return mPriority[row];
+    }
+
+    /**
+     * Gets the time after its arrival by which a process should finish. A
+     * periodic process without one of its own has to finish within its
+     * period.
+     *
+     * @param row
+     * @return 0 if it has no deadline
+     */
+    public int getDeadline(int row) {
+        return mDeadline[row] == 0 ? mPeriod[row] : mDeadline[row];
+    }
+
+    /**
+     * Gets the time at which a process should have finished
+     *
+     * @param row
+     * @return Integer.MAX_VALUE if it has no deadline
+     */
+    public int getAbsoluteDeadline(int row) {
+        int deadline = getDeadline(row);
+        return deadline == 0 ? Integer.MAX_VALUE
+                : (int) Math.min(Integer.MAX_VALUE, (long) mArriveTime[row] + deadline);
+    }
+
+    /**
+     * Gets the period of the task a process is a job of
+     *
+     * @param row
+     * @return 0 if it is not periodic
+     */
+    public int getPeriod(int row) {
+        return mPeriod[row];
+    }
+
+    /**
+     * Sets the relative deadline and period of a process
+     *
+     * @param row
+     * @param deadline 0 for none
+     * @param period 0 if not periodic
+     */
+    public void setTiming(int row, int deadline, int period) {
+        mDeadline[row] = deadline;
+        mPeriod[row] = period;
+    }
+
+    public int getCounter(int row) {
+        return mCounter[row];
+    }
+
+    public int getRemaining(int row) {
+        return mBurstTime[row] - mCounter[row];
+    }
+
+    public boolean isFinished(int row) {
+        return mCounter[row] == mBurstTime[row];
+    }
+
+    public ProcessState getState(int row) {
+        return ProcessState.of(mState[row]);
+    }
+
+    /**
+     * Checks the state of a process without going through the enum
+     *
+     * @param row
+     * @param state
+     * @return
+     */
+    public boolean is(int row, ProcessState state) {
+        return mState[row] == state.code();
+    }
+
+    /**
+     * Moves a process to a new state
+     *
+     * @param row
+     * @param state
+     * @throws IllegalStateException if the transition is not allowed
+     */
+    public void setState(int row, ProcessState state) {
+        byte code = state.code();
+        byte old = mState[row];
+        if (old != code) {
+            checkMove(mPID[row], ProcessState.of(old), state);
+            mState[row] = code;
+            mStateCount[old]--;
+            mStateCount[code]++;
+        }
+    }
+
+    /**
+     * Checks that a process may move from one state to another
+     *
+     * @param pid
+     * @param from
+     * @param to
+     * @throws IllegalStateException if the transition is not allowed
+     */
+    static void checkMove(int pid, ProcessState from, ProcessState to) {
+        if (!from.canMoveTo(to)) {
+            throw new IllegalStateException("Process " + pid
+                    + " can not move from " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Gets the number of processes in a state
+     *
+     * @param state
+     * @return
+     */
+    public int count(ProcessState state) {
+        return mStateCount[state.code()];
+    }
+
+    public int getStartTime(int row) {
+        return mStartTime[row];
+    }
+
+    public void setStartTime(int row, int startTime) {
+        mStartTime[row] = startTime;
+    }
+
+    public int getFinishTime(int row) {
+        return mFinishTime[row];
+    }
+
+    public void setFinishTime(int row, int finishTime) {
+        mFinishTime[row] = finishTime;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.model;
+
+import java.util.Arrays;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Shows the rows of a process table in a JTable without copying them. Each
+ * refresh compares the pid, execution time and state of every row with what
+ * the view last saw and only reports the rows that changed, so a tick repaints a
+ * couple of rows and the columns are never rebuilt.
+ *
+ * @author Dipu
+ */
+public class ProcessTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {
+        "PID",
+        "Arrival Time",
+        "Burst Time",
+        "Priority",
+        "State",
+        "Execution Time",
+        "Progress",
+        "Start Time",
+        "Finish Time"
+    };
+
+    private ProcessTable mTable;
+    // number of rows the view knows of
+    private int mRows;
+    // pid, execution time and state of each row at the last refresh
+    private int[] mSeenPID = new int[16];
+    private int[] mSeenCounter = new int[16];
+    private ProcessState[] mSeenState = new ProcessState[16];
+    private int mRunningRow = -1;
+
+    /**
+     * Shows the rows of another table
+     *
+     * @param table
+     */
+    public void setTable(ProcessTable table) {
+        mTable = table;
+        mRows = 0;
+        mRunningRow = -1;
+        fireTableDataChanged();
+        refresh();
+    }
+
+    public ProcessTable getTable() {
+        return mTable;
+    }
+
+    /**
+     * Shows a newer copy of the same processes, such as the table of a later
+     * snapshot, telling the view only about the rows that differ
+     *
+     * @param table
+     */
+    public void refresh(ProcessTable table) {
+        mTable = table;
+        refresh();
+    }
+
+    /**
+     * Tells the view about the rows that were added or changed since the
+     * last refresh
+     */
+    public void refresh() {
+        int size = mTable == null ? 0 : mTable.size();
+        if (size > mSeenCounter.length) {
+            int capacity = Math.max(size, 2 * mSeenCounter.length);
+            mSeenPID = Arrays.copyOf(mSeenPID, capacity);
+            mSeenCounter = Arrays.copyOf(mSeenCounter, capacity);
+            mSeenState = Arrays.copyOf(mSeenState, capacity);
+        }
+        mRunningRow = -1;
+        if (size < mRows) {
+            // the table was cleared
+            for (int row = 0; row < size; ++row) {
+                see(row);
+            }
+            mRows = size;
+            fireTableDataChanged();
+            return;
+        }
+        int first = -1;
+        for (int row = 0; row < mRows; ++row) {
+            boolean changed = mSeenPID[row] != mTable.getPID(row)
+                    || mSeenCounter[row] != mTable.getCounter(row)
+                    || mSeenState[row] != mTable.getState(row);
+            if (changed) {
+                see(row);
+                if (first < 0) {
+                    first = row;
+                }
+            } else if (first >= 0) {
+                fireTableRowsUpdated(first, row - 1);
+                first = -1;
+            }
+            if (mSeenState[row] == ProcessState.RUNNING) {
+                mRunningRow = row;
+            }
+        }
+        if (first >= 0) {
+            fireTableRowsUpdated(first, mRows - 1);
+        }
+        if (size > mRows) {
+            int old = mRows;
+            for (int row = old; row < size; ++row) {
+                see(row);
+            }
+            mRows = size;
+            fireTableRowsInserted(old, size - 1);
+        }
+    }
+
+    private void see(int row) {
+        mSeenPID[row] = mTable.getPID(row);
+        mSeenCounter[row] = mTable.getCounter(row);
+        mSeenState[row] = mTable.getState(row);
+        if (mSeenState[row] == ProcessState.RUNNING) {
+            mRunningRow = row;
+        }
+    }
+
+    /**
+     * Gets the row of the running process as of the last refresh
+     *
+     * @return -1 if none is running
+     */
+    public int getRunningRow() {
+        return mRunningRow;
+    }
+
+    @Override
+    public int getRowCount() {
+        return mRows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0:
+                return mTable.getPID(row);
+            case 1:
+                return mTable.getArriveTime(row);
+            case 2:
+                return mTable.getBurstTime(row);
+            case 3:
+                return mTable.getPriority(row);
+            case 4:
+                return mTable.getState(row);
+            case 5:
+                return mTable.getCounter(row);
+            case 6:
+                int burst = mTable.getBurstTime(row);
+                return burst == 0 ? 100 : 100.0 * mTable.getCounter(row) / burst;
+            case 7:
+                return mTable.getStartTime(row);
+            case 8:
+                return mTable.getFinishTime(row);
+            default:
+                throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.model;
+
+import java.util.Arrays;
+
+/**
+ * What one CPU ran over time, as a run-length encoded list of segments. A
+ * segment is a process and the stretch of time it ran without a break;
+ * running the same process on consecutive time units only makes its segment
+ * longer, so the size grows with the context switches, not with the time.
+ * Segments are kept in order of time in primitive columns, and idle time
+ * has no segment. A column of the busy time before each segment lets the
+ * busy time of any range be found without visiting its segments.
+ * <p>
+ * One thread appends while others may read: the size is published after
+ * the segment is written, so a reader sees complete segments up to the size
+ * it read.
+ *
+ * @author Dipu
+ */
+public final class Timeline {
+
+    private int[] mPID;
+    private int[] mStart;
+    private int[] mLength;
+    // total length of the segments before each one
+    private int[] mBusy;
+    private volatile int mSize;
+    private volatile int mClears;
+
+    public Timeline() {
+        this(16);
+    }
+
+    public Timeline(int capacity) {
+        capacity = Math.max(1, capacity);
+        mPID = new int[capacity];
+        mStart = new int[capacity];
+        mLength = new int[capacity];
+        mBusy = new int[capacity];
+        mSize = 0;
+    }
+
+    /**
+     * Records that a process ran from a time for some units. It extends the
+     * last segment if that is of the same process and ends at the start.
+     *
+     * @param pid
+     * @param start no earlier than the end of the last segment
+     * @param length
+     */
+    public void append(int pid, int start, int length) {
+        int n = mSize;
+        int last = n - 1;
+        if (last >= 0) {
+            int end = mStart[last] + mLength[last];
+            if (start < end) {
+                throw new IllegalArgumentException("Segment at " + start
+                        + " overlaps the last one ending at " + end);
+            }
+            if (start == end && mPID[last] == pid) {
+                mLength[last] += length;
+                return;
+            }
+        }
+        if (n == mPID.length) {
+            int capacity = 2 * n;
+            mPID = Arrays.copyOf(mPID, capacity);
+            mStart = Arrays.copyOf(mStart, capacity);
+            mLength = Arrays.copyOf(mLength, capacity);
+            mBusy = Arrays.copyOf(mBusy, capacity);
+        }
+        mBusy[n] = last >= 0 ? mBusy[last] + mLength[last] : 0;
+        mPID[n] = pid;
+        mStart[n] = start;
+        mLength[n] = length;
+        mSize = n + 1;
+    }
+
+    /**
+     * Finds the first segment that ends after a time
+     *
+     * @param time
+     * @return size() if every segment ends at or before the time
+     */
+    public int indexAfter(int time) {
+        // the segment starting last at or before time is the only candidate
+        int i = upperBound(time) - 1;
+        if (i >= 0 && mStart[i] + mLength[i] > time) {
+            return i;
+        }
+        return i + 1;
+    }
+
+    /**
+     * Finds the first segment that starts at or after a time
+     *
+     * @param time
+     * @return size() if no segment does
+     */
+    public int indexFrom(int time) {
+        return upperBound(time - 1);
+    }
+
+    /**
+     * Gets the first segment starting after a time
+     */
+    private int upperBound(int time) {
+        int lo = 0;
+        int hi = mSize;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (mStart[mid] <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Finds the segment covering a time unit
+     *
+     * @param time
+     * @return -1 if the CPU was idle
+     */
+    public int indexAt(int time) {
+        int i = indexAfter(time);
+        return i < mSize && mStart[i] <= time ? i : -1;
+    }
+
+    /**
+     * Gets the process that ran at a time unit
+     *
+     * @param time
+     * @return -1 if the CPU was idle
+     */
+    public int pidAt(int time) {
+        int i = indexAt(time);
+        return i < 0 ? -1 : mPID[i];
+    }
+
+    /**
+     * Gets the number of segments that overlap a range of time. They are
+     * indexAfter(from) and the ones following it.
+     *
+     * @param from first time unit
+     * @param to time after the last unit
+     * @return
+     */
+    public int count(int from, int to) {
+        return Math.max(0, indexFrom(to) - indexAfter(from));
+    }
+
+    /**
+     * Gets the number of time units some process ran in a range of time
+     *
+     * @param from first time unit
+     * @param to time after the last unit
+     * @return
+     */
+    public int getBusyTime(int from, int to) {
+        return to <= from ? 0 : busyBefore(to) - busyBefore(from);
+    }
+
+    /**
+     * Gets the number of time units some process ran before a time
+     */
+    private int busyBefore(int time) {
+        int i = indexAfter(time);
+        if (i == 0 && mSize == 0) {
+            return 0;
+        }
+        if (i == mSize) {
+            return mBusy[i - 1] + mLength[i - 1];
+        }
+        return mBusy[i] + Math.max(0, time - mStart[i]);
+    }
+
+    public int getPID(int index) {
+        return mPID[index];
+    }
+
+    public int getStart(int index) {
+        return mStart[index];
+    }
+
+    public int getLength(int index) {
+        return mLength[index];
+    }
+
+    /**
+     * Gets the time right after a segment
+     *
+     * @param index
+     * @return
+     */
+    public int getEnd(int index) {
+        return mStart[index] + mLength[index];
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public void clear() {
+        mSize = 0;
+        mClears++;
+    }
+
+    /**
+     * Gets how many times the timeline was cleared, so a reader can tell it
+     * has started over
+     *
+     * @return
+     */
+    public int getClearCount() {
+        return mClears;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The static description of a set of processes: pid, arrival, burst,
+ * priority, relative deadline and period, without any progress. An entry
+ * with a period may stand for a periodic task, whose jobs are listed by
+ * expand. A workload is loaded into a scheduler as a
+ * private copy, so the same workload can be run many times, concurrently.
+ *
+ * @author Dipu
+ */
+public final class Workload {
+
+    private int[] mPID;
+    private int[] mArriveTime;
+    private int[] mBurstTime;
+    private int[] mPriority;
+    private int[] mDeadline;
+    private int[] mPeriod;
+    private int mSize;
+
+    public Workload() {
+        this(16);
+    }
+
+    public Workload(int capacity) {
+        capacity = Math.max(1, capacity);
+        mPID = new int[capacity];
+        mArriveTime = new int[capacity];
+        mBurstTime = new int[capacity];
+        mPriority = new int[capacity];
+        mDeadline = new int[capacity];
+        mPeriod = new int[capacity];
+        mSize = 0;
+    }
+
+    /**
+     * Takes a snapshot of the given processes
+     *
+     * @param list
+     * @return
+     */
+    public static Workload of(Collection<? extends Process> list) {
+        Workload w = new Workload(list.size());
+        for (Process p : list) {
+            w.add(p.getPID(), p.getArriveTime(), p.getBurstTime(), p.getPriority(),
+                    p.getDeadline(), p.getPeriod());
+        }
+        return w;
+    }
+
+    /**
+     * Add a process with a new process id
+     *
+     * @param arrival
+     * @param burstTime
+     * @param priority
+     */
+    public void add(int arrival, int burstTime, int priority) {
+        add(Process.PROCESS_ID_NUMBER++, arrival, burstTime, priority);
+    }
+
+    public void add(int pid, int arrival, int burstTime, int priority) {
+        add(pid, arrival, burstTime, priority, 0, 0);
+    }
+
+    /**
+     * Add a process with a deadline
+     *
+     * @param pid
+     * @param arrival
+     * @param burstTime
+     * @param priority
+     * @param deadline time after the arrival to finish by, 0 for none
+     * @param period period of its task, 0 if not periodic
+     */
+    public void add(int pid, int arrival, int burstTime, int priority,
+            int deadline, int period) {
+        if (mSize == mPID.length) {
+            int n = mSize * 2;
+            mPID = Arrays.copyOf(mPID, n);
+            mArriveTime = Arrays.copyOf(mArriveTime, n);
+            mBurstTime = Arrays.copyOf(mBurstTime, n);
+            mPriority = Arrays.copyOf(mPriority, n);
+            mDeadline = Arrays.copyOf(mDeadline, n);
+            mPeriod = Arrays.copyOf(mPeriod, n);
+        }
+        mPID[mSize] = pid;
+        mArriveTime[mSize] = arrival;
+        mBurstTime[mSize] = burstTime;
+        mPriority[mSize] = priority;
+        mDeadline[mSize] = deadline;
+        mPeriod[mSize] = period;
+        mSize++;
+    }
+
+    /**
+     * Lists the jobs of the tasks of this workload released before a time,
+     * in order of arrival. An entry with a period releases a job every
+     * period from its arrival, the first one keeping its pid; any other
+     * entry is a single job.
+     *
+     * @param until
+     * @return
+     */
+    public Workload expand(int until) {
+        long[] jobs = new long[mSize];
+        int count = 0;
+        for (int i = 0; i < mSize; ++i) {
+            long n = 1;
+            if (mPeriod[i] > 0) {
+                n = mArriveTime[i] < until
+                        ? ((long) until - mArriveTime[i] + mPeriod[i] - 1) / mPeriod[i] : 0;
+            }
+            for (long k = 0; k < n; ++k) {
+                if (count == jobs.length) {
+                    jobs = Arrays.copyOf(jobs, Math.max(16, 2 * count));
+                }
+                // release time and entry, so that sorting keeps the entry order
+                long release = mArriveTime[i] + k * mPeriod[i];
+                jobs[count++] = release << 32 | i;
+            }
+        }
+        Arrays.sort(jobs, 0, count);
+        Workload w = new Workload(count);
+        int[] released = new int[mSize];
+        for (int j = 0; j < count; ++j) {
+            int i = (int) jobs[j];
+            int pid = released[i]++ == 0 ? mPID[i] : Process.PROCESS_ID_NUMBER++;
+            w.add(pid, (int) (jobs[j] >>> 32), mBurstTime[i], mPriority[i],
+                    mDeadline[i], mPeriod[i]);
+        }
+        return w;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int getPID(int i) {
+        return mPID[i];
+    }
+
+    public int getArriveTime(int i) {
+        return mArriveTime[i];
+    }
+
+    public int getBurstTime(int i) {
+        return mBurstTime[i];
+    }
+
+    public int getPriority(int i) {
+        return mPriority[i];
+    }
+
+    public int getDeadline(int i) {
+        return mDeadline[i];
+    }
+
+    public int getPeriod(int i) {
+        return mPeriod[i];
+    }
+}
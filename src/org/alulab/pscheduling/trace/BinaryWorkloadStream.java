@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reads a binary workload written by BinaryWorkloadWriter. After a five byte
+ * header every process takes six varints: the time since the previous
+ * arrival, the burst time, the priority, the difference from the previous
+ * process id, the deadline and the period, the third and fourth zigzag
+ * encoded. A typical process takes six or seven bytes. Files of version 1
+ * have no deadline or period and are still read, with both 0.
+ *
+ * @author Dipu
+ */
+public class BinaryWorkloadStream extends WorkloadStream {
+
+    static final byte[] MAGIC = {'P', 'S', 'W', 'L'};
+    static final byte VERSION = 2;
+    static final int HEADER = MAGIC.length + 1;
+
+    private final MappedInput mIn;
+    private final byte mVersion;
+
+    public BinaryWorkloadStream(Path file) throws IOException {
+        this(file, MappedInput.DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param file
+     * @param window bytes mapped at a time
+     * @throws IOException
+     */
+    BinaryWorkloadStream(Path file, int window) throws IOException {
+        mIn = new MappedInput(file, window);
+        for (byte b : MAGIC) {
+            if (mIn.get() != b) {
+                throw new IOException(file + " is not a binary workload");
+            }
+        }
+        mVersion = mIn.get();
+        if (mVersion < 1 || mVersion > VERSION) {
+            throw new IOException("Unsupported binary workload version " + mVersion);
+        }
+    }
+
+    @Override
+    boolean read() throws IOException {
+        if (!mIn.hasRemaining()) {
+            return false;
+        }
+        mArriveTime += Varint.read(mIn);
+        mBurstTime = Varint.read(mIn);
+        mPriority = Varint.readSigned(mIn);
+        mPID += Varint.readSigned(mIn);
+        if (mVersion >= 2) {
+            mDeadline = Varint.read(mIn);
+            mPeriod = Varint.read(mIn);
+        }
+        return true;
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        super.rewind();
+        mIn.seek(HEADER);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mIn.close();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.alulab.pscheduling.model.Workload;
+
+/**
+ * Writes processes in the format read by BinaryWorkloadStream, one at a
+ * time, so that a workload of any size can be converted.
+ *
+ * @author Dipu
+ */
+public class BinaryWorkloadWriter implements Closeable {
+
+    private final OutputStream mOut;
+    private int mLastPID;
+    private int mLastArrival;
+    private long mCount;
+
+    public BinaryWorkloadWriter(Path file) throws IOException {
+        mOut = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        mOut.write(BinaryWorkloadStream.MAGIC);
+        mOut.write(BinaryWorkloadStream.VERSION);
+    }
+
+    /**
+     * Writes all processes of a workload, which must be sorted by arrival
+     *
+     * @param w
+     * @param file
+     * @throws IOException
+     */
+    public static void write(Workload w, Path file) throws IOException {
+        try (BinaryWorkloadWriter out = new BinaryWorkloadWriter(file)) {
+            for (int i = 0; i < w.size(); ++i) {
+                out.add(w.getPID(i), w.getArriveTime(i), w.getBurstTime(i),
+                        w.getPriority(i), w.getDeadline(i), w.getPeriod(i));
+            }
+        }
+    }
+
+    /**
+     * Writes the next process, without a deadline or period
+     *
+     * @param pid
+     * @param arrival no earlier than the previous process
+     * @param burstTime
+     * @param priority
+     * @throws IOException
+     */
+    public void add(int pid, int arrival, int burstTime, int priority) throws IOException {
+        add(pid, arrival, burstTime, priority, 0, 0);
+    }
+
+    /**
+     * Writes the next process
+     *
+     * @param pid
+     * @param arrival no earlier than the previous process
+     * @param burstTime
+     * @param priority
+     * @param deadline time after the arrival to finish by, 0 for none
+     * @param period period of its task, 0 if not periodic
+     * @throws IOException
+     */
+    public void add(int pid, int arrival, int burstTime, int priority,
+            int deadline, int period) throws IOException {
+        if (arrival < mLastArrival || arrival < 0) {
+            throw new IllegalArgumentException("Process " + pid + " arrives at "
+                    + arrival + ", before the previous one at " + mLastArrival);
+        }
+        if (deadline < 0 || period < 0) {
+            throw new IllegalArgumentException("Process " + pid
+                    + " has a negative deadline or period");
+        }
+        Varint.write(mOut, arrival - mLastArrival);
+        Varint.write(mOut, burstTime);
+        Varint.writeSigned(mOut, priority);
+        Varint.writeSigned(mOut, pid - mLastPID);
+        Varint.write(mOut, deadline);
+        Varint.write(mOut, period);
+        mLastArrival = arrival;
+        mLastPID = pid;
+        mCount++;
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mOut.close();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reads a text workload. Each line holds the arrival time, burst time and
+ * priority separated by commas or spaces, and optionally the relative
+ * deadline and period. Blank lines, lines starting with #
+ * and a header line are skipped. Processes are numbered from 1 in the order
+ * of the file.
+ *
+ * @author Dipu
+ */
+public class CsvWorkloadStream extends WorkloadStream {
+
+    private final MappedInput mIn;
+    private final int[] mFields = new int[5];
+    private long mLine;
+
+    public CsvWorkloadStream(Path file) throws IOException {
+        this(file, MappedInput.DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param file
+     * @param window bytes mapped at a time
+     * @throws IOException
+     */
+    CsvWorkloadStream(Path file, int window) throws IOException {
+        mIn = new MappedInput(file, window);
+    }
+
+    @Override
+    boolean read() throws IOException {
+        while (mIn.hasRemaining()) {
+            mLine++;
+            int n = parseLine();
+            if (n == 0) {
+                continue;
+            }
+            if (n < 2) {
+                throw new IOException("Line " + mLine + ": expected arrival,burst[,priority[,deadline[,period]]]");
+            }
+            mPID = (int) getCount() + 1;
+            mArriveTime = mFields[0];
+            mBurstTime = mFields[1];
+            mPriority = n > 2 ? mFields[2] : 0;
+            mDeadline = n > 3 ? mFields[3] : 0;
+            mPeriod = n > 4 ? mFields[4] : 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parses the fields of one line
+     *
+     * @return the number of fields, 0 for a line to skip
+     */
+    private int parseLine() throws IOException {
+        int c = mIn.peek();
+        if (c == '#' || Character.isLetter(c)) {
+            skipLine();
+            return 0;
+        }
+        int n = 0;
+        while (true) {
+            c = mIn.peek();
+            if (c == ',' || c == ' ' || c == '\t' || c == '\r') {
+                mIn.get();
+            } else if (c == '\n' || c < 0) {
+                if (c == '\n') {
+                    mIn.get();
+                }
+                return n;
+            } else if (n == mFields.length) {
+                // ignore extra columns
+                skipLine();
+                return n;
+            } else {
+                mFields[n++] = parseInt();
+            }
+        }
+    }
+
+    private int parseInt() throws IOException {
+        boolean negative = mIn.peek() == '-';
+        if (negative) {
+            mIn.get();
+        }
+        long value = 0;
+        int digits = 0;
+        int c;
+        while ((c = mIn.peek()) >= '0' && c <= '9') {
+            mIn.get();
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Line " + mLine + ": number too large");
+            }
+            digits++;
+        }
+        if (digits == 0) {
+            throw new IOException("Line " + mLine + ": unexpected '" + (char) c + "'");
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = mIn.peek()) >= 0) {
+            mIn.get();
+            if (c == '\n') {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        super.rewind();
+        mIn.seek(0);
+        mLine = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mIn.close();
+    }
+}
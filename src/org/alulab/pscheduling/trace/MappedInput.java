@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file of any size through a memory-mapped window that slides along
+ * as the file is read, so only the window is ever mapped.
+ *
+ * @author Dipu
+ */
+final class MappedInput implements Closeable {
+
+    static final int DEFAULT_WINDOW = 64 << 20;
+
+    private final FileChannel mChannel;
+    private final long mSize;
+    private final int mWindow;
+    private MappedByteBuffer mBuffer;
+    // file offset of the start of the window
+    private long mStart;
+
+    MappedInput(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW);
+    }
+
+    MappedInput(Path file, int window) throws IOException {
+        mChannel = FileChannel.open(file, StandardOpenOption.READ);
+        mSize = mChannel.size();
+        mWindow = window;
+        seek(0);
+    }
+
+    /**
+     * Moves to an offset of the file
+     *
+     * @param position
+     * @throws IOException
+     */
+    void seek(long position) throws IOException {
+        mStart = position;
+        long length = Math.min(mWindow, mSize - position);
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    long position() {
+        return mStart + mBuffer.position();
+    }
+
+    long size() {
+        return mSize;
+    }
+
+    boolean hasRemaining() {
+        return position() < mSize;
+    }
+
+    /**
+     * Gets the next byte, sliding the window along when it runs out
+     *
+     * @return
+     * @throws IOException
+     * @throws EOFException at the end of the file
+     */
+    byte get() throws IOException {
+        if (!mBuffer.hasRemaining()) {
+            if (!slide()) {
+                throw new EOFException("Unexpected end of file at " + position());
+            }
+        }
+        return mBuffer.get();
+    }
+
+    /**
+     * Gets the next byte without moving past it
+     *
+     * @return -1 at the end of the file
+     * @throws IOException
+     */
+    int peek() throws IOException {
+        if (!mBuffer.hasRemaining() && !slide()) {
+            return -1;
+        }
+        return mBuffer.get(mBuffer.position()) & 0xFF;
+    }
+
+    /**
+     * Maps the next window of the file
+     *
+     * @return false at the end of the file
+     */
+    private boolean slide() throws IOException {
+        if (mStart + mBuffer.limit() >= mSize) {
+            return false;
+        }
+        seek(position());
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mBuffer = null;
+        mChannel.close();
+    }
+}
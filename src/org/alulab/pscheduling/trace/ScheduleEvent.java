@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+/**
+ * What happened to a process on a CPU.
+ *
+ * @author Dipu
+ */
+public enum ScheduleEvent {
+
+    /**
+     * The process started running on the CPU
+     */
+    DISPATCH,
+    /**
+     * The process stopped running before it was done
+     */
+    PREEMPT,
+    /**
+     * The process completed its burst
+     */
+    FINISH;
+
+    static final ScheduleEvent[] VALUES = values();
+}
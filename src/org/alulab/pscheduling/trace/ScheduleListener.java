@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+/**
+ * Receives the dispatch history of a scheduler as it runs. Events of one CPU
+ * come in order of time; a process is dispatched, then preempted or finished.
+ *
+ * @author Dipu
+ */
+public interface ScheduleListener {
+
+    /**
+     * Called when a process starts or stops running on a CPU
+     *
+     * @param event
+     * @param time when it happened
+     * @param cpu
+     * @param pid
+     */
+    void scheduled(ScheduleEvent event, int time, int cpu, int pid);
+}
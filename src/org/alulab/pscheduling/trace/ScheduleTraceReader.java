@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads the events written by ScheduleTraceWriter one at a time, through a
+ * memory-mapped window so that traces larger than the heap can be read.
+ *
+ * @author Dipu
+ */
+public class ScheduleTraceReader implements Closeable {
+
+    /**
+     * Receives the stretches of time during which a process ran on a CPU
+     */
+    public interface SegmentHandler {
+
+        /**
+         * @param cpu
+         * @param pid
+         * @param start first time unit the process ran
+         * @param end time the process stopped running
+         */
+        void segment(int cpu, int pid, int start, int end);
+    }
+
+    private final MappedInput mIn;
+    private ScheduleEvent mEvent;
+    private int mTime;
+    private int mCpu;
+    private int mPID;
+    private int mLastPID;
+    // pid last dispatched on each CPU
+    private int[] mRunning;
+    private long mCount;
+
+    public ScheduleTraceReader(Path file) throws IOException {
+        mIn = new MappedInput(file);
+        for (byte b : ScheduleTraceWriter.MAGIC) {
+            if (mIn.get() != b) {
+                throw new IOException(file + " is not a schedule trace");
+            }
+        }
+        byte version = mIn.get();
+        if (version != ScheduleTraceWriter.VERSION) {
+            throw new IOException("Unsupported schedule trace version " + version);
+        }
+        mRunning = new int[1];
+    }
+
+    /**
+     * Reads the next event
+     *
+     * @return false at the end of the file
+     * @throws IOException if the file is malformed
+     */
+    public boolean next() throws IOException {
+        if (!mIn.hasRemaining()) {
+            return false;
+        }
+        int head = Varint.read(mIn);
+        int event = head & 3;
+        if (event >= ScheduleEvent.VALUES.length) {
+            throw new IOException("Malformed event " + (mCount + 1));
+        }
+        mEvent = ScheduleEvent.VALUES[event];
+        mCpu = head >>> 2;
+        mTime += Varint.readSigned(mIn);
+        if (mCpu >= mRunning.length) {
+            mRunning = Arrays.copyOf(mRunning, Math.max(mCpu + 1, 2 * mRunning.length));
+        }
+        if (mEvent == ScheduleEvent.DISPATCH) {
+            mLastPID += Varint.readSigned(mIn);
+            mRunning[mCpu] = mLastPID;
+        }
+        mPID = mRunning[mCpu];
+        mCount++;
+        return true;
+    }
+
+    /**
+     * Passes the remaining events to a listener
+     *
+     * @param listener
+     * @throws IOException
+     */
+    public void replay(ScheduleListener listener) throws IOException {
+        while (next()) {
+            listener.scheduled(mEvent, mTime, mCpu, mPID);
+        }
+    }
+
+    /**
+     * Turns the remaining events into the segments of a Gantt chart. A
+     * process still running at the end of the trace is taken to run until
+     * the time of the last event.
+     *
+     * @param handler
+     * @throws IOException
+     */
+    public void segments(SegmentHandler handler) throws IOException {
+        // the process running on each CPU and since when, -1 if idle
+        int[] pid = new int[0];
+        int[] start = new int[0];
+        int last = 0;
+        while (next()) {
+            last = Math.max(last, mTime);
+            if (mCpu >= pid.length) {
+                int old = pid.length;
+                pid = Arrays.copyOf(pid, Math.max(mCpu + 1, 2 * old));
+                start = Arrays.copyOf(start, pid.length);
+                Arrays.fill(pid, old, pid.length, -1);
+            }
+            int open = pid[mCpu];
+            if (mEvent == ScheduleEvent.DISPATCH) {
+                if (open >= 0) {
+                    handler.segment(mCpu, open, start[mCpu], mTime);
+                }
+                pid[mCpu] = mPID;
+                start[mCpu] = mTime;
+            } else if (open == mPID) {
+                handler.segment(mCpu, open, start[mCpu], mTime);
+                pid[mCpu] = -1;
+            }
+        }
+        for (int cpu = 0; cpu < pid.length; ++cpu) {
+            if (pid[cpu] >= 0) {
+                handler.segment(cpu, pid[cpu], start[cpu], last);
+            }
+        }
+    }
+
+    /**
+     * Goes back to the first event
+     *
+     * @throws IOException
+     */
+    public void rewind() throws IOException {
+        mIn.seek(ScheduleTraceWriter.HEADER);
+        mTime = 0;
+        mPID = 0;
+        mLastPID = 0;
+        mCount = 0;
+        mEvent = null;
+    }
+
+    public ScheduleEvent getEvent() {
+        return mEvent;
+    }
+
+    public int getTime() {
+        return mTime;
+    }
+
+    public int getCpu() {
+        return mCpu;
+    }
+
+    public int getPID() {
+        return mPID;
+    }
+
+    /**
+     * Gets the number of events read
+     *
+     * @return
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mIn.close();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the dispatch history of a run to a binary file, read back by
+ * ScheduleTraceReader. After a header of "PSST" and a version byte, each
+ * event is a varint of the CPU shifted left by two with the event in the low
+ * bits, then the zigzag difference of the time from the previous event. A
+ * dispatch adds the zigzag difference of the pid from the previous dispatch;
+ * a preemption or completion is always of the process last dispatched on
+ * its CPU, so it has no pid. A typical event takes two or three bytes.
+ * <p>
+ * Events are put in a direct buffer and written to the channel when it
+ * fills, so the scheduler pays a few byte stores per event.
+ *
+ * @author Dipu
+ */
+public class ScheduleTraceWriter implements ScheduleListener, Closeable {
+
+    static final byte[] MAGIC = {'P', 'S', 'S', 'T'};
+    static final byte VERSION = 1;
+    static final int HEADER = MAGIC.length + 1;
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    // three varints of at most five bytes
+    private static final int MAX_EVENT = 15;
+
+    private final FileChannel mChannel;
+    private final ByteBuffer mBuffer;
+    private int mLastTime;
+    // pid of the last dispatch
+    private int mLastPID;
+    private long mCount;
+
+    public ScheduleTraceWriter(Path file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ScheduleTraceWriter(Path file, int bufferSize) throws IOException {
+        if (bufferSize < MAX_EVENT) {
+            throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+        }
+        mChannel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        mBuffer = ByteBuffer.allocateDirect(bufferSize);
+        mBuffer.put(MAGIC).put(VERSION);
+    }
+
+    /**
+     * Writes an event
+     *
+     * @throws UncheckedIOException if the buffer could not be written
+     */
+    @Override
+    public void scheduled(ScheduleEvent event, int time, int cpu, int pid) {
+        if (mBuffer.remaining() < MAX_EVENT) {
+            try {
+                drain();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        Varint.write(mBuffer, cpu << 2 | event.ordinal());
+        Varint.writeSigned(mBuffer, time - mLastTime);
+        if (event == ScheduleEvent.DISPATCH) {
+            Varint.writeSigned(mBuffer, pid - mLastPID);
+            mLastPID = pid;
+        }
+        mLastTime = time;
+        mCount++;
+    }
+
+    private void drain() throws IOException {
+        mBuffer.flip();
+        while (mBuffer.hasRemaining()) {
+            mChannel.write(mBuffer);
+        }
+        mBuffer.clear();
+    }
+
+    /**
+     * Writes the buffered events to the file
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * Gets the number of events written
+     *
+     * @return
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            mChannel.close();
+        }
+    }
+}
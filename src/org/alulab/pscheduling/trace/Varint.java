@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Variable length integers, seven bits per byte with the high bit set on
+ * every byte but the last. Signed values are zigzag encoded first so that
+ * small negative numbers stay short.
+ *
+ * @author Dipu
+ */
+final class Varint {
+
+    private Varint() {
+    }
+
+    static void write(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static void writeSigned(OutputStream out, int value) throws IOException {
+        write(out, (value << 1) ^ (value >> 31));
+    }
+
+    static void write(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static void writeSigned(ByteBuffer out, int value) {
+        write(out, (value << 1) ^ (value >> 31));
+    }
+
+    static int read(MappedInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint at " + in.position());
+    }
+
+    static int readSigned(MappedInput in) throws IOException {
+        int value = read(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads the processes of a workload file one at a time, without holding the
+ * file in memory. The processes must come in order of arrival, which lets a
+ * scheduler take each one only when the simulation reaches its arrive time.
+ *
+ * @author Dipu
+ */
+public abstract class WorkloadStream implements Closeable {
+
+    int mPID;
+    int mArriveTime;
+    int mBurstTime;
+    int mPriority;
+    int mDeadline;
+    int mPeriod;
+    private long mCount;
+    private boolean mOrdered = true;
+
+    /**
+     * Opens a workload file, binary if it starts with the binary header and
+     * text otherwise
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static WorkloadStream open(Path file) throws IOException {
+        return isBinary(file) ? new BinaryWorkloadStream(file) : new CsvWorkloadStream(file);
+    }
+
+    /**
+     * Checks if a file starts with the header of a binary workload
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static boolean isBinary(Path file) throws IOException {
+        byte[] head = new byte[BinaryWorkloadStream.MAGIC.length];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n = in.read(head);
+            return n == head.length && Arrays.equals(head, BinaryWorkloadStream.MAGIC);
+        }
+    }
+
+    /**
+     * Reads the next process
+     *
+     * @return false at the end of the file
+     * @throws IOException if the file is malformed or not in order of arrival
+     */
+    public final boolean next() throws IOException {
+        int last = mArriveTime;
+        if (!read()) {
+            return false;
+        }
+        if (mOrdered && mCount > 0 && mArriveTime < last) {
+            throw new IOException("Process " + (mCount + 1) + " arrives at "
+                    + mArriveTime + ", before the previous one at " + last
+                    + "; the workload must be sorted by arrival");
+        }
+        if (mBurstTime <= 0) {
+            throw new IOException("Process " + (mCount + 1)
+                    + " has a burst time of " + mBurstTime);
+        }
+        if (mDeadline < 0 || mPeriod < 0) {
+            throw new IOException("Process " + (mCount + 1)
+                    + " has a negative deadline or period");
+        }
+        mCount++;
+        return true;
+    }
+
+    /**
+     * Sets whether the processes must come in order of arrival, which they
+     * need not for a reader that loads the whole workload before simulating
+     * it
+     *
+     * @param ordered
+     */
+    public void setOrdered(boolean ordered) {
+        mOrdered = ordered;
+    }
+
+    /**
+     * Reads the next record into the fields
+     *
+     * @return false at the end of the file
+     * @throws IOException
+     */
+    abstract boolean read() throws IOException;
+
+    /**
+     * Goes back to the first process
+     *
+     * @throws IOException
+     */
+    public void rewind() throws IOException {
+        mCount = 0;
+        mPID = mArriveTime = mBurstTime = mPriority = 0;
+        mDeadline = mPeriod = 0;
+    }
+
+    /**
+     * Gets the number of processes read so far
+     *
+     * @return
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    public int getPID() {
+        return mPID;
+    }
+
+    public int getArriveTime() {
+        return mArriveTime;
+    }
+
+    public int getBurstTime() {
+        return mBurstTime;
+    }
+
+    public int getPriority() {
+        return mPriority;
+    }
+
+    /**
+     * Gets the relative deadline of the process
+     *
+     * @return 0 if it has none
+     */
+    public int getDeadline() {
+        return mDeadline;
+    }
+
+    /**
+     * Gets the period of the process. A stream does not release further jobs
+     * of a periodic process.
+     *
+     * @return 0 if it is not periodic
+     */
+    public int getPeriod() {
+        return mPeriod;
+    }
+}
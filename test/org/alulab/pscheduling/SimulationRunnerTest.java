@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a stop waits for a short step and gives up on a long one
+ *
+ * @author Dipu
+ */
+public class SimulationRunnerTest {
+
+    @Test
+    public void stopEndsTheLoop() throws InterruptedException {
+        SimulationRunner runner = new SimulationRunner();
+        AtomicInteger steps = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        runner.start(() -> {
+            steps.incrementAndGet();
+            started.countDown();
+            return true;
+        }, () -> 1000, failure -> {
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(runner.stop());
+        assertFalse(runner.isRunning());
+        assertFalse(runner.isAbandoned());
+        int count = steps.get();
+        Thread.sleep(50);
+        assertEquals(count, steps.get());
+    }
+
+    @Test
+    public void stopAbandonsAStepThatWillNotEnd() throws InterruptedException {
+        SimulationRunner runner = new SimulationRunner();
+        AtomicBoolean release = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        runner.start(() -> {
+            started.countDown();
+            // ignores interrupts
+            while (!release.get()) {
+                Thread.yield();
+            }
+            return true;
+        }, () -> 0, failure -> {
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        long begin = System.nanoTime();
+        assertFalse(runner.stop());
+        assertTrue(System.nanoTime() - begin < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(runner.isAbandoned());
+        assertTrue(runner.isRunning());
+
+        release.set(true);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (runner.isRunning() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(runner.isRunning());
+        assertFalse(runner.isAbandoned());
+        // the runner can be used again
+        CountDownLatch again = new CountDownLatch(1);
+        runner.start(() -> {
+            again.countDown();
+            return false;
+        }, () -> 0, failure -> {
+        });
+        assertTrue(again.await(5, TimeUnit.SECONDS));
+        assertTrue(runner.stop());
+    }
+}
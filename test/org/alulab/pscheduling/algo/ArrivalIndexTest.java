@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that the arrival index admits its entries in order of arrival
+ * however they were inserted
+ *
+ * @author Dipu
+ */
+public class ArrivalIndexTest {
+
+    private static long key(int arrival, int index) {
+        return ((long) arrival << 32) | index;
+    }
+
+    @Test
+    public void outOfOrderInsertsComeOutSorted() {
+        Random r = new Random(1);
+        ArrivalIndex index = new ArrivalIndex();
+        TreeSet<Long> waiting = new TreeSet<>();
+        int admitted = 0;
+        for (int i = 0; i < 100000; ++i) {
+            if (r.nextInt(3) > 0) {
+                // mostly in order, some far out of it
+                int arrival = r.nextInt(4) == 0 ? r.nextInt(1000) : i / 50 + r.nextInt(5);
+                index.insert(arrival, i);
+                waiting.add(key(arrival, i));
+            } else if (!waiting.isEmpty()) {
+                long first = waiting.pollFirst();
+                assertEquals((int) (first >> 32), index.nextArrival());
+                assertEquals((int) first, index.next());
+                admitted++;
+            }
+            assertEquals(admitted, index.admitted());
+            assertEquals(admitted + waiting.size(), index.size());
+        }
+        while (!waiting.isEmpty()) {
+            assertEquals((int) (long) waiting.pollFirst(), index.next());
+        }
+        assertEquals(Integer.MAX_VALUE, index.nextArrival());
+    }
+
+    @Test
+    public void rewindAdmitsEverythingAgain() {
+        Random r = new Random(2);
+        ArrivalIndex index = new ArrivalIndex();
+        TreeSet<Long> all = new TreeSet<>();
+        for (int i = 0; i < 5000; ++i) {
+            int arrival = r.nextInt(2000);
+            index.insert(arrival, i);
+            all.add(key(arrival, i));
+            if (r.nextBoolean()) {
+                index.next();
+            }
+        }
+        index.rewind();
+        assertEquals(0, index.admitted());
+        assertEquals(all.size(), index.size());
+        for (long key : all) {
+            assertEquals((int) (key >> 32), index.nextArrival());
+            assertEquals((int) key, index.next());
+        }
+    }
+
+    @Test
+    public void appendedEntriesAreSortedOnce() {
+        ArrivalIndex index = new ArrivalIndex();
+        index.insert(5, 0);
+        index.insert(1, 1);
+        index.append(9, 2);
+        index.append(3, 3);
+        assertFalse(index.isSorted());
+        index.sort();
+        for (int row : new int[]{1, 3, 0, 2}) {
+            assertEquals(row, index.next());
+        }
+        assertEquals(4, index.admitted());
+    }
+}
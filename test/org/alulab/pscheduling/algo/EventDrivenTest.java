@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Random;
+import org.alulab.pscheduling.model.Process;
+import org.alulab.pscheduling.model.ProcessState;
+import org.alulab.pscheduling.model.ProcessTable;
+import org.alulab.pscheduling.model.Workload;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that skipping to the next decision gives the same schedule as
+ * stepping one time unit at a time, for every algorithm
+ *
+ * @author Dipu
+ */
+public class EventDrivenTest {
+
+    private static final int SEEDS = 20;
+
+    @Test
+    public void eventStepsMatchTicks() {
+        for (Algorithm a : Algorithm.values()) {
+            for (int seed = 0; seed < SEEDS; ++seed) {
+                String tick = Schedules.describe(
+                        Schedules.run(a.create(), Schedules.random(seed, 200), false));
+                String event = Schedules.describe(
+                        Schedules.run(a.create(), Schedules.random(seed, 200), true));
+                assertEquals(a + " seed " + seed, tick, event);
+            }
+        }
+    }
+
+    @Test
+    public void lateAddsMatchTicks() {
+        for (Algorithm a : Algorithm.values()) {
+            for (int seed = 0; seed < SEEDS; ++seed) {
+                String tick = Schedules.describe(runPaused(a.create(), seed, false));
+                String event = Schedules.describe(runPaused(a.create(), seed, true));
+                assertEquals(a + " seed " + seed, tick, event);
+            }
+        }
+    }
+
+    /**
+     * Steps a scheduler by random amounts, adding processes between the
+     * steps, some with deadlines and some arriving before the current time
+     */
+    private static Scheduler runPaused(Scheduler s, long seed, boolean eventDriven) {
+        Random r = new Random(seed);
+        // both runs number their processes alike
+        Process.PROCESS_ID_NUMBER = 1;
+        s.setEventDriven(eventDriven);
+        for (int i = 0; i < 10; ++i) {
+            add(s, r, r.nextInt(60));
+        }
+        for (int steps = 0; !s.isFinished(); ++steps) {
+            assertTrue(s.getName() + " does not finish", steps < 100000);
+            s.stepForward(1 + r.nextInt(8));
+            if (r.nextInt(4) == 0) {
+                add(s, r, Math.max(0, s.getCurrentTime() - 10 + r.nextInt(40)));
+            }
+        }
+        ProcessTable table = s.getProcessTable();
+        for (int row = 0; row < table.size(); ++row) {
+            assertEquals(ProcessState.TERMINATED, table.getState(row));
+        }
+        return s;
+    }
+
+    private static void add(Scheduler s, Random r, int arrival) {
+        int row = s.addProcess(arrival, 1 + r.nextInt(15), 1 + r.nextInt(10));
+        if (r.nextInt(3) == 0) {
+            s.getProcessTable().setTiming(row, 5 + r.nextInt(40), 0);
+        }
+    }
+
+    @Test
+    public void lateProcessRunsToCompletion() {
+        Scheduler s = Algorithm.ROUND_ROBIN.create();
+        s.addProcess(5, 3, 1);
+        s.stepForward(7);
+        s.addProcess(2, 4, 1);
+        s.stepForward(100);
+        assertTrue(s.isFinished());
+        assertEquals(12, s.getCurrentTime());
+        assertEquals(ProcessState.TERMINATED, s.getProcessTable().getState(1));
+    }
+
+    @Test
+    public void hugeBurstsRunToCompletion() {
+        Scheduler s = Algorithm.FCFS.create();
+        s.setEventDriven(true);
+        s.addProcess(0, 1000000000, 1);
+        s.addProcess(0, 1000000000, 1);
+        assertEquals(2000000000, s.getTotalBurst());
+        s.stepForward(1500000000);
+        assertFalse(s.isFinished());
+        Schedules.finish(s, Integer.MAX_VALUE);
+        assertEquals(2000000000, s.getCurrentTime());
+        assertEquals(2, s.countInState(ProcessState.TERMINATED));
+    }
+
+    @Test
+    public void runsPastTheClockAreRejected() {
+        Scheduler s = Algorithm.FCFS.create();
+        s.addProcess(10, 5, 1);
+        s.addProcess(0, 2000000000, 1);
+        try {
+            s.addProcess(0, 2000000000, 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        Workload w = new Workload();
+        w.add(1, 5, 1, 1);
+        w.add(2, 3, 200000000, 1);
+        try {
+            s.addProcesses(w);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(2, s.getProcessTable().size());
+        assertEquals(2000000005, s.getTotalBurst());
+        try {
+            s.addProcess(0, 0, 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        Schedules.run(s, new Workload(), true);
+        assertEquals(2000000005, s.getCurrentTime());
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+import org.alulab.pscheduling.model.Workload;
+import org.junit.Test;
+
+/**
+ * Checks the completely fair scheduler against a plain simulation that
+ * keeps the ready processes in a sorted set and decides every time unit
+ *
+ * @author Dipu
+ */
+public class FairSchedulerTest {
+
+    private static final int COUNT = 2000;
+
+    @Test
+    public void matchesReference() {
+        check(FairScheduler.DEFAULT_LATENCY, FairScheduler.DEFAULT_MIN_GRANULARITY);
+        check(10, 1);
+        check(48, 6);
+    }
+
+    private static void check(int latency, int minGranularity) {
+        Workload w = Schedules.random(7, COUNT);
+        Reference r = new Reference(w, latency, minGranularity);
+        r.run();
+        Scheduler s = Schedules.run(new FairScheduler(latency, minGranularity), w, true);
+        Schedules.assertSchedule(s, r.mStart, r.mFinish);
+    }
+
+    @Test
+    public void eventStepsMatchTicks() {
+        Workload w = Schedules.random(3, 500);
+        Schedules.assertEventMatchesTicks(FairScheduler::new, w);
+        Schedules.assertEventMatchesTicks(() -> new FairScheduler(10, 1), w);
+    }
+
+    /**
+     * Simulates a workload one time unit at a time. The process with the
+     * least virtual runtime runs for a slice of the latency in proportion to
+     * its weight; a newly arrived process starts half a latency behind the
+     * least virtual runtime and preempts the running one if that is more
+     * than the minimum granularity ahead of it.
+     */
+    static final class Reference {
+
+        // nice -20 to 19 as in Linux
+        private static final int[] WEIGHTS = {
+            88761, 71755, 56483, 46273, 36291, 29154, 23254, 18705, 14949, 11916,
+            9548, 7620, 6100, 4904, 3906, 3121, 2501, 1991, 1586, 1277,
+            1024, 820, 655, 526, 423, 335, 272, 215, 172, 137,
+            110, 87, 70, 56, 45, 36, 29, 23, 18, 15
+        };
+
+        private final Workload mWorkload;
+        private final int mLatency;
+        private final int mMinGranularity;
+        private final long[] mVruntime;
+        private final TreeSet<Integer> mReady;
+        final int[] mStart;
+        final int[] mFinish;
+        private long mMinVruntime;
+        private long mLoad;
+        private int mTime;
+        private int mRunStart;
+        private int mSliceEnd;
+
+        Reference(Workload w, int latency, int minGranularity) {
+            mWorkload = w;
+            mLatency = latency;
+            mMinGranularity = minGranularity;
+            mVruntime = new long[w.size()];
+            mReady = new TreeSet<>((a, b) -> mVruntime[a] != mVruntime[b]
+                    ? Long.compare(mVruntime[a], mVruntime[b]) : Integer.compare(a, b));
+            mStart = new int[w.size()];
+            mFinish = new int[w.size()];
+            Arrays.fill(mStart, -1);
+        }
+
+        private int weight(int i) {
+            int nice = Math.max(-20, Math.min(19, 5 - mWorkload.getPriority(i)));
+            return WEIGHTS[nice + 20];
+        }
+
+        private static long virtual(long time, int weight) {
+            return (time << 20) / weight;
+        }
+
+        private void updateMin(long vruntime) {
+            long least = vruntime;
+            if (!mReady.isEmpty()) {
+                least = Math.min(least, mVruntime[mReady.first()]);
+            }
+            if (least != Long.MAX_VALUE) {
+                mMinVruntime = Math.max(mMinVruntime, least);
+            }
+        }
+
+        private int dispatch(int i) {
+            long period = Math.max(mLatency, (long) (mReady.size() + 1) * mMinGranularity);
+            long slice = Math.max(mMinGranularity, period * weight(i) / Math.max(1, mLoad));
+            mRunStart = mTime;
+            mSliceEnd = (int) (mTime + slice);
+            return i;
+        }
+
+        private void charge(int i) {
+            mVruntime[i] += virtual(mTime - mRunStart, weight(i));
+            mRunStart = mTime;
+            updateMin(mVruntime[i]);
+        }
+
+        void run() {
+            int n = mWorkload.size();
+            int[] remaining = new int[n];
+            for (int i = 0; i < n; ++i) {
+                remaining[i] = mWorkload.getBurstTime(i);
+            }
+            int running = -1;
+            int next = 0;
+            int done = 0;
+            for (mTime = 0; done < n; ++mTime) {
+                boolean woken = false;
+                while (next < n && mWorkload.getArriveTime(next) <= mTime) {
+                    mVruntime[next] = mMinVruntime - virtual(mLatency / 2, 1024);
+                    mLoad += weight(next);
+                    mReady.add(next++);
+                    woken = true;
+                }
+                int chosen = -2;
+                if (running >= 0) {
+                    if (remaining[running] == 0) {
+                        mLoad -= weight(running);
+                        updateMin(Long.MAX_VALUE);
+                    } else if (mTime >= mSliceEnd) {
+                        charge(running);
+                        if (mReady.isEmpty() || mVruntime[mReady.first()] >= mVruntime[running]) {
+                            chosen = dispatch(running);
+                        } else {
+                            mReady.add(running);
+                        }
+                    } else {
+                        boolean preempt = false;
+                        if (woken && !mReady.isEmpty()) {
+                            int first = mReady.first();
+                            long current = mVruntime[running]
+                                    + virtual(mTime - mRunStart, weight(running));
+                            preempt = current - mVruntime[first]
+                                    > virtual(mMinGranularity, weight(first));
+                        }
+                        if (preempt) {
+                            charge(running);
+                            mReady.add(running);
+                        } else {
+                            chosen = running;
+                        }
+                    }
+                }
+                if (chosen == -2) {
+                    chosen = mReady.isEmpty() ? -1 : dispatch(mReady.pollFirst());
+                }
+                running = chosen;
+                if (running >= 0) {
+                    if (mStart[running] < 0) {
+                        mStart[running] = mTime;
+                    }
+                    if (--remaining[running] == 0) {
+                        mFinish[running] = mTime;
+                        done++;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the horizon against running the processes first come first served
+ *
+ * @author Dipu
+ */
+public class HorizonTest {
+
+    /**
+     * Works out when packed (arrival, burst) jobs finish first come first
+     * served
+     */
+    private static long fcfs(long[] jobs, int count) {
+        long[] sorted = Arrays.copyOf(jobs, count);
+        Arrays.sort(sorted);
+        long end = 0;
+        for (long job : sorted) {
+            end = Math.max(end, job >> 32) + (int) job;
+        }
+        return end;
+    }
+
+    @Test
+    public void matchesFirstComeFirstServed() {
+        Random r = new Random(1);
+        for (int round = 0; round < 50; ++round) {
+            Horizon horizon = new Horizon();
+            long[] jobs = new long[400];
+            int arrival = 0;
+            for (int i = 0; i < jobs.length; ++i) {
+                // in order for a while, then anywhere
+                arrival = i < round * 8 ? arrival + r.nextInt(30) : r.nextInt(6000);
+                int burst = 1 + r.nextInt(30);
+                horizon.add(arrival, burst);
+                jobs[i] = (long) arrival << 32 | burst;
+                assertEquals(fcfs(jobs, i + 1), horizon.getEnd());
+            }
+        }
+    }
+
+    @Test
+    public void removeTakesBackAdds() {
+        Random r = new Random(2);
+        Horizon horizon = new Horizon();
+        long[] jobs = new long[300];
+        for (int i = 0; i < jobs.length; ++i) {
+            int arrival = i < 100 ? 10 * i : r.nextInt(3000);
+            int burst = 1 + r.nextInt(30);
+            if (i == 50 || i == 200) {
+                // taken back straight away in order, then out of order
+                horizon.add(arrival + 7, 1);
+                horizon.remove(arrival + 7, 1);
+                horizon.add(5, 40);
+                horizon.remove(5, 40);
+            }
+            horizon.add(arrival, burst);
+            jobs[i] = (long) arrival << 32 | burst;
+            assertEquals(fcfs(jobs, i + 1), horizon.getEnd());
+        }
+    }
+
+    @Test
+    public void appendFollowsAStream() {
+        Horizon horizon = new Horizon();
+        horizon.append(0, 5);
+        horizon.append(10, 1);
+        horizon.append(10, Integer.MAX_VALUE);
+        assertEquals(11L + Integer.MAX_VALUE, horizon.getEnd());
+        horizon.clear();
+        assertEquals(0, horizon.getEnd());
+        horizon.add(3, 2);
+        horizon.add(0, 2);
+        assertEquals(5, horizon.getEnd());
+    }
+
+    @Test
+    public void shuffledAddsFinishWhenTheRunDoes() {
+        for (int seed = 0; seed < 20; ++seed) {
+            Random r = new Random(seed);
+            Scheduler s = Algorithm.ROUND_ROBIN.create();
+            for (int i = 0; i < 500; ++i) {
+                s.addProcess(r.nextInt(5000), 1 + r.nextInt(30), 1);
+            }
+            int horizon = s.getTotalBurst();
+            Schedules.finish(s, Integer.MAX_VALUE);
+            assertEquals(horizon, s.getCurrentTime());
+            int last = 0;
+            for (int row = 0; row < s.getProcessTable().size(); ++row) {
+                last = Math.max(last, s.getProcessTable().getFinishTime(row) + 1);
+            }
+            assertEquals(last, horizon);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the indexed heap against a sorted set under random offers, polls,
+ * removals and key changes
+ *
+ * @author Dipu
+ */
+public class IndexedHeapTest {
+
+    private static final int INDICES = 300;
+
+    private final int[] mKeys = new int[INDICES];
+    private final Comparator<Integer> mOrder = (a, b) -> mKeys[a] != mKeys[b]
+            ? Integer.compare(mKeys[a], mKeys[b]) : Integer.compare(a, b);
+
+    private IndexedHeap heap() {
+        return new IndexedHeap((a, b) -> mOrder.compare(a, b));
+    }
+
+    @Test
+    public void pollsInKeyOrder() {
+        Random r = new Random(1);
+        IndexedHeap heap = heap();
+        for (int i = 0; i < INDICES; ++i) {
+            mKeys[i] = r.nextInt(50);
+            heap.offer(i);
+        }
+        int last = -1;
+        for (int i = 0; i < INDICES; ++i) {
+            int index = heap.poll();
+            assertTrue(last < 0 || mOrder.compare(last, index) < 0);
+            assertFalse(heap.contains(index));
+            last = index;
+        }
+        assertTrue(heap.isEmpty());
+        assertEquals(-1, heap.poll());
+        assertEquals(-1, heap.peek());
+    }
+
+    @Test
+    public void matchesSortedSet() {
+        Random r = new Random(2);
+        IndexedHeap heap = heap();
+        TreeSet<Integer> set = new TreeSet<>(mOrder);
+        for (int step = 0; step < 200000; ++step) {
+            int index = r.nextInt(INDICES);
+            switch (r.nextInt(6)) {
+                case 0:
+                case 1:
+                    if (!set.contains(index)) {
+                        mKeys[index] = r.nextInt(1000);
+                        set.add(index);
+                    }
+                    heap.offer(index);
+                    break;
+                case 2:
+                    Integer first = set.pollFirst();
+                    assertEquals(first == null ? -1 : first, heap.poll());
+                    break;
+                case 3:
+                    assertEquals(set.remove(index), heap.remove(index));
+                    break;
+                case 4:
+                    // decrease-key
+                    if (set.remove(index)) {
+                        mKeys[index] -= r.nextInt(100);
+                        set.add(index);
+                        heap.decreaseKey(index);
+                    }
+                    break;
+                default:
+                    // a key may move either way
+                    if (set.remove(index)) {
+                        mKeys[index] += r.nextInt(200) - 100;
+                        set.add(index);
+                        heap.update(index);
+                    }
+                    break;
+            }
+            assertEquals(set.size(), heap.size());
+            assertEquals(set.isEmpty() ? -1 : set.first(), heap.peek());
+            assertEquals(set.contains(index), heap.contains(index));
+        }
+    }
+
+    @Test
+    public void offerOfQueuedIndexUpdatesIt() {
+        IndexedHeap heap = heap();
+        for (int i = 0; i < 10; ++i) {
+            mKeys[i] = i;
+            heap.offer(i);
+        }
+        mKeys[7] = -1;
+        heap.offer(7);
+        assertEquals(10, heap.size());
+        assertEquals(7, heap.poll());
+    }
+
+    @Test
+    public void clearForgetsIndices() {
+        IndexedHeap heap = heap();
+        heap.offer(3);
+        heap.offer(200);
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(3));
+        assertFalse(heap.contains(200));
+        assertFalse(heap.remove(3));
+    }
+}
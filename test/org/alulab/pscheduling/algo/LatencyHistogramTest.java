@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the bucketing of the latency histogram, its percentiles and that
+ * adding and saving keep every count
+ *
+ * @author Dipu
+ */
+public class LatencyHistogramTest {
+
+    private static final int[] PRECISIONS = {1, 3, LatencyHistogram.DEFAULT_PRECISION, 12};
+
+    static void assertSame(LatencyHistogram expected, LatencyHistogram actual) {
+        assertEquals(expected.getPrecision(), actual.getPrecision());
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMean(), actual.getMean(), 0);
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+        for (int i = 0; i < expected.getBucketCount(); ++i) {
+            assertEquals("bucket " + i, expected.getBucketCount(i), actual.getBucketCount(i));
+        }
+    }
+
+    private static LatencyHistogram copy(LatencyHistogram h) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        h.writeTo(new DataOutputStream(bytes));
+        return LatencyHistogram.readFrom(new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static int[] random(long seed, int count) {
+        Random r = new Random(seed);
+        int[] values = new int[count];
+        for (int i = 0; i < count; ++i) {
+            // spread over every magnitude
+            values[i] = r.nextInt(Integer.MAX_VALUE) >>> r.nextInt(31);
+        }
+        return values;
+    }
+
+    @Test
+    public void bucketsTileTheValues() {
+        for (int precision : PRECISIONS) {
+            LatencyHistogram h = new LatencyHistogram(precision);
+            int exact = 1 << precision;
+            int next = 0;
+            for (int i = 0; i < h.getBucketCount(); ++i) {
+                int low = h.getBucketLow(i);
+                int high = h.getBucketHigh(i);
+                assertEquals(precision + " bucket " + i, next, low);
+                assertTrue(high >= low);
+                if (low < exact) {
+                    assertEquals(low, high);
+                } else {
+                    assertTrue(high - low < 2L * low / exact);
+                }
+                h.record(low);
+                if (high != low) {
+                    h.record(high);
+                }
+                next = high + 1;
+            }
+            assertEquals(Integer.MAX_VALUE, next - 1);
+            // both ends of each bucket are counted in it
+            for (int i = 0; i < h.getBucketCount(); ++i) {
+                long ends = h.getBucketLow(i) == h.getBucketHigh(i) ? 1 : 2;
+                assertEquals(precision + " bucket " + i, ends, h.getBucketCount(i));
+            }
+        }
+    }
+
+    @Test
+    public void percentilesWithinPrecision() {
+        for (int precision : PRECISIONS) {
+            int[] values = random(precision, 10000);
+            LatencyHistogram h = new LatencyHistogram(precision);
+            long sum = 0;
+            for (int v : values) {
+                h.record(v);
+                sum += v;
+            }
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            assertEquals(values.length, h.getCount());
+            assertEquals((double) sum / values.length, h.getMean(), 1e-6);
+            assertEquals(sorted[0], h.getMin());
+            assertEquals(sorted[sorted.length - 1], h.getMax());
+            for (double p : new double[]{0, 1, 50, 90, 99, 99.9, 100}) {
+                int expected = sorted[Math.max(0, (int) Math.ceil(p / 100 * sorted.length) - 1)];
+                int actual = h.getValueAtPercentile(p);
+                assertTrue(p + ": " + actual + " below " + expected, actual >= expected);
+                assertTrue(p + ": " + actual + " too far above " + expected,
+                        actual - expected <= (long) expected >> (precision - 1));
+            }
+        }
+    }
+
+    @Test
+    public void addAndSaveKeepEveryCount() throws IOException {
+        for (int precision : PRECISIONS) {
+            LatencyHistogram all = new LatencyHistogram(precision);
+            LatencyHistogram merged = new LatencyHistogram(precision);
+            for (int part = 0; part < 3; ++part) {
+                LatencyHistogram h = new LatencyHistogram(precision);
+                for (int v : random(10 * precision + part, 1000 * part)) {
+                    h.record(v);
+                    all.record(v);
+                }
+                merged.add(copy(h));
+            }
+            assertSame(all, merged);
+            assertSame(all, copy(merged));
+        }
+    }
+
+    @Test
+    public void emptyHistogram() throws IOException {
+        LatencyHistogram h = new LatencyHistogram();
+        h.add(new LatencyHistogram());
+        LatencyHistogram loaded = copy(h);
+        assertEquals(0, loaded.getCount());
+        assertEquals(0, loaded.getMin());
+        assertEquals(0, loaded.getMax());
+        assertEquals(0, loaded.getValueAtPercentile(50));
+        loaded.record(5, 3);
+        assertEquals(5, loaded.getMin());
+        assertEquals(5, loaded.getValueAtPercentile(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRejectsOtherPrecisions() {
+        new LatencyHistogram(7).add(new LatencyHistogram(8));
+    }
+}
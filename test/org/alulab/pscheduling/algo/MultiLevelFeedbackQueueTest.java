@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import org.alulab.pscheduling.model.Workload;
+import org.junit.Test;
+
+/**
+ * Checks the multi-level feedback queue against a plain simulation that
+ * keeps one queue per level and scans them every time unit
+ *
+ * @author Dipu
+ */
+public class MultiLevelFeedbackQueueTest {
+
+    private static final int COUNT = 2000;
+
+    @Test
+    public void matchesReference() {
+        check(new int[]{2, 4, 8}, 37);
+        check(MultiLevelFeedbackQueue.DEFAULT_QUANTA, MultiLevelFeedbackQueue.DEFAULT_BOOST_INTERVAL);
+        check(new int[]{1, 3, 9, 27}, 0);
+        check(new int[]{4}, 10);
+    }
+
+    private static void check(int[] quanta, int boost) {
+        Workload w = Schedules.random(7, COUNT);
+        int[][] expected = reference(w, quanta, boost);
+        Scheduler s = Schedules.run(new MultiLevelFeedbackQueue(quanta, boost), w, true);
+        Schedules.assertSchedule(s, expected[0], expected[1]);
+    }
+
+    @Test
+    public void eventStepsMatchTicks() {
+        Workload w = Schedules.random(3, 500);
+        Schedules.assertEventMatchesTicks(MultiLevelFeedbackQueue::new, w);
+        Schedules.assertEventMatchesTicks(() -> new MultiLevelFeedbackQueue(new int[]{2, 4, 8}, 37), w);
+    }
+
+    /**
+     * Simulates a workload one time unit at a time. A process that used up
+     * its slice goes down a level, one preempted by a higher level keeps the
+     * rest of its slice at the head of its queue, and every boost interval
+     * all processes go back to the top level.
+     *
+     * @return the start and finish time of each process
+     */
+    static int[][] reference(Workload w, int[] quanta, int boost) {
+        int n = w.size();
+        int levels = quanta.length;
+        @SuppressWarnings("unchecked")
+        ArrayDeque<Integer>[] queues = new ArrayDeque[levels];
+        for (int l = 0; l < levels; ++l) {
+            queues[l] = new ArrayDeque<>();
+        }
+        int[] left = new int[n];
+        int[] stamp = new int[n];
+        int[] remaining = new int[n];
+        int[] start = new int[n];
+        int[] finish = new int[n];
+        Arrays.fill(start, -1);
+        for (int i = 0; i < n; ++i) {
+            remaining[i] = w.getBurstTime(i);
+        }
+        int boosts = 0;
+        int running = -1;
+        int runLevel = 0;
+        int sliceEnd = 0;
+        int next = 0;
+        int done = 0;
+        for (int time = 0; done < n; ++time) {
+            while (next < n && w.getArriveTime(next) <= time) {
+                left[next] = quanta[0];
+                stamp[next] = boosts;
+                queues[0].add(next++);
+            }
+            if (boost > 0 && time >= (boosts + 1) * boost) {
+                boosts = time / boost;
+                for (int l = 1; l < levels; ++l) {
+                    queues[0].addAll(queues[l]);
+                    queues[l].clear();
+                }
+                if (running >= 0) {
+                    left[running] = quanta[0];
+                    stamp[running] = boosts;
+                    runLevel = 0;
+                    sliceEnd = time + quanta[0];
+                }
+            }
+            int chosen = -2;
+            if (running >= 0 && remaining[running] > 0) {
+                int level = runLevel;
+                if (time >= sliceEnd) {
+                    level = Math.min(level + 1, levels - 1);
+                    if (top(queues) > level) {
+                        runLevel = level;
+                        sliceEnd = time + quanta[level];
+                        chosen = running;
+                    } else {
+                        left[running] = quanta[level];
+                        stamp[running] = boosts;
+                        queues[level].add(running);
+                    }
+                } else if (top(queues) < level) {
+                    left[running] = sliceEnd - time;
+                    stamp[running] = boosts;
+                    queues[level].addFirst(running);
+                } else {
+                    chosen = running;
+                }
+            }
+            if (chosen == -2) {
+                int level = top(queues);
+                if (level == levels) {
+                    chosen = -1;
+                } else {
+                    chosen = queues[level].poll();
+                    int slice = stamp[chosen] < boosts ? quanta[level] : left[chosen];
+                    runLevel = level;
+                    sliceEnd = time + Math.min(slice, quanta[level]);
+                }
+            }
+            running = chosen;
+            if (running >= 0) {
+                if (start[running] < 0) {
+                    start[running] = time;
+                }
+                if (--remaining[running] == 0) {
+                    finish[running] = time;
+                    done++;
+                }
+            }
+        }
+        return new int[][]{start, finish};
+    }
+
+    private static int top(ArrayDeque<Integer>[] queues) {
+        for (int l = 0; l < queues.length; ++l) {
+            if (!queues[l].isEmpty()) {
+                return l;
+            }
+        }
+        return queues.length;
+    }
+}
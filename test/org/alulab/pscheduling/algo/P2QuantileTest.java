@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the P² estimates against the exact quantiles of the same values
+ *
+ * @author Dipu
+ */
+public class P2QuantileTest {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    /**
+     * Gets how far, in fraction of the values, the values within a slack of
+     * an estimate are from holding a p quantile of them, which stays
+     * meaningful when many values are the same
+     */
+    private static double rankError(double[] sorted, double estimate, double slack, double p) {
+        int below = 0;
+        while (below < sorted.length && sorted[below] < estimate - slack) {
+            below++;
+        }
+        int atOrBelow = below;
+        while (atOrBelow < sorted.length && sorted[atOrBelow] <= estimate + slack) {
+            atOrBelow++;
+        }
+        double lo = (double) below / sorted.length;
+        double hi = (double) atOrBelow / sorted.length;
+        return p < lo ? lo - p : p > hi ? p - hi : 0;
+    }
+
+    private static void check(DoubleSupplier source, double tolerance) {
+        double[] values = new double[100000];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = source.getAsDouble();
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double p : QUANTILES) {
+            P2Quantile q = new P2Quantile(p);
+            for (double x : values) {
+                q.add(x);
+            }
+            assertEquals(String.valueOf(p), 0, rankError(sorted, q.get(), 0, p), tolerance);
+        }
+    }
+
+    @Test
+    public void estimatesCommonDistributions() {
+        Random r = new Random(1);
+        check(r::nextDouble, 0.01);
+        check(r::nextGaussian, 0.01);
+        check(() -> -Math.log(1 - r.nextDouble()), 0.01);
+        // heavy tailed, like the slowdown of short processes
+        check(() -> 1 / (1 - r.nextDouble()), 0.02);
+    }
+
+    @Test
+    public void exactForFewValues() {
+        P2Quantile q = new P2Quantile(0.5);
+        assertEquals(Double.NaN, q.get(), 0);
+        q.add(7);
+        q.add(3);
+        q.add(5);
+        assertEquals(5, q.get(), 0);
+        assertEquals(3, q.getCount());
+        q.clear();
+        assertEquals(0, q.getCount());
+    }
+
+    @Test
+    public void runsOfTheSameValue() {
+        for (int seed = 0; seed < 10; ++seed) {
+            Random r = new Random(seed);
+            // like the idle or busy windows the run metrics add at once
+            double run = seed % 3 * 0.5;
+            for (double p : QUANTILES) {
+                P2Quantile single = new P2Quantile(p);
+                P2Quantile bulk = new P2Quantile(p);
+                double[] values = new double[400000];
+                int size = 0;
+                while (size < values.length - 1000) {
+                    if (r.nextInt(4) == 0) {
+                        int n = 1 + r.nextInt(seed < 5 ? 50 : 1000);
+                        for (int i = 0; i < n; ++i) {
+                            single.add(run);
+                            values[size++] = run;
+                        }
+                        bulk.add(run, n);
+                    } else {
+                        double x = r.nextDouble();
+                        single.add(x);
+                        bulk.add(x);
+                        values[size++] = x;
+                    }
+                }
+                double[] sorted = Arrays.copyOf(values, size);
+                Arrays.sort(sorted);
+                assertEquals(single.getCount(), bulk.getCount());
+                assertEquals(0, rankError(sorted, single.get(), 0.01, p), 0.01);
+                assertEquals(0, rankError(sorted, bulk.get(), 0.01, p), 0.01);
+            }
+        }
+    }
+
+    @Test
+    public void bulkBeforeFiveValues() {
+        P2Quantile q = new P2Quantile(0.5);
+        q.add(4, 3);
+        assertEquals(4, q.get(), 0);
+        q.add(1, 1000000);
+        q.add(9);
+        assertEquals(1000004, q.getCount());
+        assertEquals(1, q.get(), 0);
+    }
+}
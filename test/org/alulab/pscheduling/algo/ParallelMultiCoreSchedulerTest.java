@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Random;
+import org.alulab.pscheduling.algo.MultiCoreScheduler.QueueMode;
+import org.alulab.pscheduling.model.Workload;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that running the CPUs on worker threads gives exactly the schedule
+ * of the sequential scheduler with the same balance interval
+ *
+ * @author Dipu
+ */
+public class ParallelMultiCoreSchedulerTest {
+
+    private static final int CPUS = 4;
+    private static final int[] INTERVALS = {1, 50, 1000};
+    private static final Algorithm[] ALGORITHMS = {
+        Algorithm.FCFS, Algorithm.PREEMPTIVE_SJF, Algorithm.ROUND_ROBIN,
+        Algorithm.MLFQ, Algorithm.CFS, Algorithm.EDF};
+
+    @Test
+    public void matchesSequential() {
+        Workload w = crowded(1, 3000);
+        for (Algorithm a : ALGORITHMS) {
+            for (int interval : INTERVALS) {
+                String expected = describe(run(sequential(a, interval), w, Integer.MAX_VALUE));
+                for (int threads = 1; threads <= CPUS; ++threads) {
+                    try (ParallelMultiCoreScheduler s = parallel(a, interval, threads)) {
+                        assertEquals(a + " interval " + interval + " threads " + threads,
+                                expected, describe(run(s, w, Integer.MAX_VALUE)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stepsInPiecesMatchOneStep() {
+        Workload w = crowded(2, 3000);
+        for (Algorithm a : ALGORITHMS) {
+            String expected = describe(run(sequential(a, 50), w, Integer.MAX_VALUE));
+            try (ParallelMultiCoreScheduler s = parallel(a, 50, CPUS)) {
+                assertEquals(a.toString(), expected, describe(run(s, w, 37)));
+            }
+        }
+    }
+
+    @Test
+    public void usesWorkerThreads() {
+        try (ParallelMultiCoreScheduler s = parallel(Algorithm.ROUND_ROBIN, 50, CPUS)) {
+            run(s, crowded(3, 3000), Integer.MAX_VALUE);
+            boolean started = false;
+            for (Thread t : Thread.getAllStackTraces().keySet()) {
+                started |= t.getName().startsWith("cpu-worker-");
+            }
+            assertTrue("the CPUs never ran in parallel", started);
+        }
+    }
+
+    private static MultiCoreScheduler sequential(Algorithm a, int interval) {
+        MultiCoreScheduler s = new MultiCoreScheduler(a, CPUS, QueueMode.PER_CPU);
+        s.setBalanceInterval(interval);
+        return s;
+    }
+
+    private static ParallelMultiCoreScheduler parallel(Algorithm a, int interval, int threads) {
+        ParallelMultiCoreScheduler s = new ParallelMultiCoreScheduler(a::create, CPUS, threads);
+        s.setBalanceInterval(interval);
+        return s;
+    }
+
+    private static Scheduler run(Scheduler s, Workload w, int amount) {
+        s.setEventDriven(true);
+        s.addProcesses(w);
+        return Schedules.finish(s, amount);
+    }
+
+    private static String describe(Scheduler s) {
+        return Schedules.describe(s) + "migrations "
+                + ((MultiCoreScheduler) s).getMigrations() + '\n';
+    }
+
+    /**
+     * Makes a workload arriving faster than four CPUs can serve it, so the
+     * run queues grow long enough for the workers to be used
+     */
+    private static Workload crowded(long seed, int count) {
+        Random r = new Random(seed);
+        Workload w = new Workload();
+        int arrival = 0;
+        for (int i = 0; i < count; ++i) {
+            arrival += r.nextInt(4);
+            w.add(i + 1, arrival, 1 + r.nextInt(30), 1 + r.nextInt(10));
+        }
+        return w;
+    }
+}
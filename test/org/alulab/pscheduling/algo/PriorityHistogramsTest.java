@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that histograms of runs saved, loaded and added keep every count
+ *
+ * @author Dipu
+ */
+public class PriorityHistogramsTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private static PriorityHistograms run(long seed) {
+        Scheduler s = new PreemptivePS();
+        PriorityHistograms h = new PriorityHistograms(5);
+        s.setHistograms(h);
+        Schedules.run(s, Schedules.random(seed, 500), true);
+        return h;
+    }
+
+    private static void assertSame(PriorityHistograms expected, PriorityHistograms actual) {
+        assertEquals(expected.getPrecision(), actual.getPrecision());
+        assertEquals(expected.getPriorities(), actual.getPriorities());
+        for (int priority : expected.getPriorities()) {
+            LatencyHistogramTest.assertSame(expected.getWaiting(priority), actual.getWaiting(priority));
+            LatencyHistogramTest.assertSame(expected.getResponse(priority), actual.getResponse(priority));
+        }
+    }
+
+    private PriorityHistograms reload(PriorityHistograms h) throws IOException {
+        Path file = mFolder.newFile().toPath();
+        h.save(file);
+        return PriorityHistograms.load(file);
+    }
+
+    @Test
+    public void savedRunsAddUp() throws IOException {
+        PriorityHistograms expected = new PriorityHistograms(5);
+        PriorityHistograms merged = new PriorityHistograms(5);
+        for (int seed = 1; seed <= 3; ++seed) {
+            PriorityHistograms h = run(seed);
+            assertEquals(500, count(h));
+            expected.add(h);
+            merged.add(reload(h));
+        }
+        assertEquals(1500, count(merged));
+        assertSame(expected, merged);
+        assertSame(expected, reload(merged));
+        assertEquals(expected.toString(), reload(merged).toString());
+    }
+
+    private static long count(PriorityHistograms h) {
+        long count = 0;
+        for (int priority : h.getPriorities()) {
+            count += h.getWaiting(priority).getCount();
+            assertEquals(h.getWaiting(priority).getCount(), h.getResponse(priority).getCount());
+        }
+        return count;
+    }
+
+    @Test
+    public void loadRejectsOtherFiles() throws IOException {
+        byte[] valid = {'P', 'S', 'L', 'H', PriorityHistograms.VERSION, 7, 0, 0, 0, 0};
+        assertEquals(0, load(valid).getPriorities().size());
+        byte[][] bad = {
+            {'P', 'S', 'L', 'X', PriorityHistograms.VERSION, 7, 0, 0, 0, 0},
+            {'P', 'S', 'L', 'H', PriorityHistograms.VERSION + 1, 7, 0, 0, 0, 0},
+            {'P', 'S', 'L', 'H', PriorityHistograms.VERSION, 0, 0, 0, 0, 0},
+            {'P', 'S', 'L', 'H', PriorityHistograms.VERSION, 7, 0, 0, 0, 1}};
+        for (byte[] b : bad) {
+            try {
+                load(b);
+                fail("loaded " + new String(b, 0, 6, "ISO-8859-1"));
+            } catch (IOException expected) {
+                // rejected
+            }
+        }
+    }
+
+    private PriorityHistograms load(byte[] bytes) throws IOException {
+        Path file = mFolder.newFile().toPath();
+        Files.write(file, bytes);
+        return PriorityHistograms.load(file);
+    }
+}
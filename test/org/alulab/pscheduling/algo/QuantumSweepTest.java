@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.alulab.pscheduling.algo.MultiCoreScheduler.QueueMode;
+import org.alulab.pscheduling.model.Workload;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the quanta a sweep runs and that each matches a run of its own
+ *
+ * @author Dipu
+ */
+public class QuantumSweepTest {
+
+    private static Workload workload() {
+        Random r = new Random(3);
+        Workload w = new Workload();
+        int arrival = 0;
+        for (int i = 0; i < 60; ++i) {
+            arrival += r.nextInt(8);
+            w.add(arrival, 1 + r.nextInt(20), 1);
+        }
+        return w;
+    }
+
+    @Test
+    public void quantaNearTheLimitDoNotOverflow() {
+        int from = Integer.MAX_VALUE - 20;
+        QuantumSweep sweep = QuantumSweep.run(workload(), from, Integer.MAX_VALUE, 3,
+                ForkJoinPool.commonPool());
+        List<QuantumSweep.Point> points = sweep.getPoints();
+        assertEquals(7, points.size());
+        for (int i = 0; i < points.size(); ++i) {
+            assertEquals(from + 3 * i, points.get(i).getQuantum());
+        }
+        assertEquals(Integer.MAX_VALUE - 2, points.get(6).getQuantum());
+    }
+
+    @Test
+    public void pointsMatchSingleRuns() {
+        Workload w = workload();
+        QuantumSweep sweep = QuantumSweep.run(w,
+                q -> new MultiCoreScheduler(() -> new RoundRobin(q), 2, QueueMode.GLOBAL),
+                1, 19, 2, ForkJoinPool.commonPool());
+        assertEquals(10, sweep.getPoints().size());
+        for (QuantumSweep.Point p : sweep.getPoints()) {
+            Scheduler s = new MultiCoreScheduler(() -> new RoundRobin(p.getQuantum()), 2,
+                    QueueMode.GLOBAL);
+            s.addProcesses(w);
+            Schedules.finish(s, Integer.MAX_VALUE);
+            RunStatistics stats = RunStatistics.of(s);
+            assertEquals(stats.getMakespan(), p.getStatistics().getMakespan());
+            assertEquals(stats.getContextSwitches(), p.getStatistics().getContextSwitches());
+            assertEquals(stats.getAverageWaiting(), p.getStatistics().getAverageWaiting(), 0);
+            assertEquals(2, p.getStatistics().getCpuCount());
+        }
+    }
+}
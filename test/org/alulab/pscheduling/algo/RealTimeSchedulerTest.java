@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.alulab.pscheduling.model.Process;
+import org.alulab.pscheduling.model.Workload;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks earliest deadline first and rate monotonic against a plain
+ * simulation that runs the most urgent released job every time unit, and
+ * checks that task sets passing the admission test meet their deadlines
+ *
+ * @author Dipu
+ */
+public class RealTimeSchedulerTest {
+
+    private static final int[] PERIODS = {4, 5, 6, 8, 10, 12, 15, 20};
+    private static final int HORIZON = 600;
+    private static final int SEEDS = 200;
+
+    @Test
+    public void matchesReference() {
+        for (int seed = 0; seed < SEEDS; ++seed) {
+            Workload w = jobs(tasks(seed));
+            check(new EarliestDeadlineFirst(), w, true);
+            check(new RateMonotonic(), w, false);
+        }
+    }
+
+    private static void check(Scheduler s, Workload w, boolean edf) {
+        int[] start = new int[w.size()];
+        int[] finish = new int[w.size()];
+        long[] misses = reference(w, edf, start, finish);
+        Schedules.run(s, w, true);
+        Schedules.assertSchedule(s, start, finish);
+        assertEquals(s.getName() + " misses", misses[0], s.getDeadlineMisses());
+        assertEquals(s.getName() + " max lateness", misses[1], s.getMaxLateness());
+    }
+
+    @Test
+    public void admittedTasksMeetDeadlines() {
+        int admitted = 0;
+        for (int seed = 0; seed < SEEDS; ++seed) {
+            Workload tasks = tasks(seed);
+            for (RealTimeScheduler s : new RealTimeScheduler[]{
+                new EarliestDeadlineFirst(), new RateMonotonic()}) {
+                if (s.admissionTest(tasks).isAdmitted()) {
+                    admitted++;
+                    Schedules.run(s, jobs(tasks), true);
+                    assertEquals(s.getName() + " seed " + seed, 0, s.getDeadlineMisses());
+                }
+            }
+        }
+        assertTrue("too few task sets admitted: " + admitted, admitted > SEEDS / 4);
+    }
+
+    @Test
+    public void admissionTestBounds() {
+        Workload tasks = new Workload();
+        tasks.add(1, 0, 1, 1, 0, 4);
+        tasks.add(2, 0, 2, 1, 5, 10);
+        tasks.add(3, 0, 7, 1, 0, 0);
+        AdmissionTest edf = new EarliestDeadlineFirst().admissionTest(tasks);
+        assertEquals(2, edf.getTaskCount());
+        assertEquals(1.0 / 4 + 2.0 / 5, edf.getUtilization(), 1e-12);
+        assertEquals(1, edf.getBound(), 0);
+        assertTrue(edf.isAdmitted());
+        AdmissionTest rm = new RateMonotonic().admissionTest(tasks);
+        assertEquals(2 * (Math.sqrt(2) - 1), rm.getBound(), 1e-12);
+        assertTrue(rm.isAdmitted());
+        tasks.add(4, 0, 3, 1, 0, 10);
+        assertFalse(new RateMonotonic().admissionTest(tasks).isAdmitted());
+        assertTrue(new EarliestDeadlineFirst().admissionTest(tasks).isAdmitted());
+    }
+
+    @Test
+    public void periodIsTheDefaultDeadline() {
+        Workload tasks = new Workload();
+        tasks.add(1, 0, 3, 1, 0, 4);
+        tasks.add(2, 0, 3, 1, 0, 5);
+        Scheduler s = Schedules.run(new EarliestDeadlineFirst(), tasks.expand(20), true);
+        assertEquals(9, s.getDeadlineCount());
+        assertTrue(s.getDeadlineMisses() > 0);
+    }
+
+    @Test
+    public void eventStepsMatchTicks() {
+        for (int seed = 0; seed < 20; ++seed) {
+            Workload w = jobs(tasks(seed));
+            Schedules.assertEventMatchesTicks(EarliestDeadlineFirst::new, w);
+            Schedules.assertEventMatchesTicks(RateMonotonic::new, w);
+        }
+    }
+
+    /**
+     * Makes two to five periodic tasks with harmonic-ish periods, some with
+     * a deadline before the end of their period
+     */
+    private static Workload tasks(long seed) {
+        Random r = new Random(seed);
+        Workload w = new Workload();
+        int n = 2 + r.nextInt(4);
+        for (int i = 0; i < n; ++i) {
+            int period = PERIODS[r.nextInt(PERIODS.length)];
+            int burst = 1 + r.nextInt(Math.max(1, period / n));
+            int deadline = r.nextBoolean() ? 0 : burst + r.nextInt(period - burst + 1);
+            w.add(i + 1, r.nextInt(10), burst, 1 + r.nextInt(10), deadline, period);
+        }
+        return w;
+    }
+
+    private static Workload jobs(Workload tasks) {
+        // the later jobs are numbered alike in every run
+        Process.PROCESS_ID_NUMBER = tasks.size() + 1;
+        return tasks.expand(HORIZON);
+    }
+
+    /**
+     * Simulates a workload one time unit at a time, running the released
+     * job with the earliest absolute deadline, or with the shortest period,
+     * ties broken as by the schedulers
+     *
+     * @return the number of deadline misses and the largest lateness
+     */
+    static long[] reference(Workload w, boolean edf, int[] start, int[] finish) {
+        int n = w.size();
+        int[] remaining = new int[n];
+        for (int i = 0; i < n; ++i) {
+            remaining[i] = w.getBurstTime(i);
+        }
+        Arrays.fill(start, -1);
+        long misses = 0;
+        long lateness = 0;
+        int done = 0;
+        for (int time = 0; done < n; ++time) {
+            int best = -1;
+            for (int i = 0; i < n && w.getArriveTime(i) <= time; ++i) {
+                if (remaining[i] > 0 && (best < 0 || before(w, i, best, edf))) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                continue;
+            }
+            if (start[best] < 0) {
+                start[best] = time;
+            }
+            if (--remaining[best] == 0) {
+                finish[best] = time;
+                done++;
+                long late = time + 1 - (long) w.getArriveTime(best) - deadline(w, best);
+                if (deadline(w, best) > 0 && late > 0) {
+                    misses++;
+                    lateness = Math.max(lateness, late);
+                }
+            }
+        }
+        return new long[]{misses, lateness};
+    }
+
+    private static int deadline(Workload w, int i) {
+        return w.getDeadline(i) > 0 ? w.getDeadline(i) : w.getPeriod(i);
+    }
+
+    private static boolean before(Workload w, int a, int b, boolean edf) {
+        long ka;
+        long kb;
+        if (edf) {
+            ka = (long) w.getArriveTime(a) + deadline(w, a);
+            kb = (long) w.getArriveTime(b) + deadline(w, b);
+        } else {
+            ka = w.getPeriod(a);
+            kb = w.getPeriod(b);
+            if (ka == kb) {
+                ka = -w.getPriority(a);
+                kb = -w.getPriority(b);
+            }
+        }
+        if (ka != kb) {
+            return ka < kb;
+        }
+        if (w.getArriveTime(a) != w.getArriveTime(b)) {
+            return w.getArriveTime(a) < w.getArriveTime(b);
+        }
+        return w.getPID(a) < w.getPID(b);
+    }
+}
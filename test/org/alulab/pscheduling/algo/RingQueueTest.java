@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the ring queue against a deque while its head wraps around the
+ * array and the array grows
+ *
+ * @author Dipu
+ */
+public class RingQueueTest {
+
+    @Test
+    public void wrapsAndGrows() {
+        RingQueue queue = new RingQueue();
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        int next = 0;
+        // move the head around the initial array several times
+        for (int round = 0; round < 100; ++round) {
+            for (int i = 0; i < 11; ++i) {
+                queue.offer(next);
+                deque.add(next++);
+            }
+            for (int i = 0; i < 10; ++i) {
+                assertEquals((int) deque.poll(), queue.poll());
+            }
+        }
+        // then grow it while the head is in the middle
+        for (int i = 0; i < 1000; ++i) {
+            queue.offer(next);
+            deque.add(next++);
+        }
+        assertEquals(deque.size(), queue.size());
+        while (!deque.isEmpty()) {
+            assertEquals((int) deque.poll(), queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertEquals(-1, queue.poll());
+        assertEquals(-1, queue.peek());
+    }
+
+    @Test
+    public void matchesDeque() {
+        Random r = new Random(1);
+        RingQueue queue = new RingQueue();
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        for (int step = 0; step < 200000; ++step) {
+            int index = r.nextInt(100);
+            switch (r.nextInt(5)) {
+                case 0:
+                    queue.offer(index);
+                    deque.addLast(index);
+                    break;
+                case 1:
+                    queue.offerFirst(index);
+                    deque.addFirst(index);
+                    break;
+                case 2:
+                    Integer head = deque.pollFirst();
+                    assertEquals(head == null ? -1 : head, queue.poll());
+                    break;
+                case 3:
+                    assertEquals(deque.removeFirstOccurrence(index), queue.remove(index));
+                    break;
+                default:
+                    if (r.nextInt(500) == 0) {
+                        queue.clear();
+                        deque.clear();
+                    }
+                    break;
+            }
+            assertEquals(deque.size(), queue.size());
+            assertEquals(deque.isEmpty() ? -1 : deque.peekFirst(), queue.peek());
+        }
+    }
+}
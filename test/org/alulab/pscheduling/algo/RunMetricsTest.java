@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the windows of the run metrics, including runs of windows closed at
+ * once
+ *
+ * @author Dipu
+ */
+public class RunMetricsTest {
+
+    private static RunMetrics run(int window, int[][] processes) {
+        Scheduler s = new FirstComeFirstServe();
+        s.setEventDriven(true);
+        RunMetrics metrics = new RunMetrics(window);
+        s.setMetrics(metrics);
+        for (int[] p : processes) {
+            s.addProcess(p[0], p[1], 1);
+        }
+        Schedules.finish(s, Integer.MAX_VALUE);
+        return metrics;
+    }
+
+    @Test
+    public void windowsMatchTheSchedule() {
+        // busy 0-9, idle 10-24, busy 25-29
+        RunMetrics m = run(5, new int[][]{{0, 10}, {25, 5}});
+        assertEquals(2, m.getCount());
+        // the last window is still open
+        assertEquals(5, m.getUtilization().getCount());
+        assertEquals(0.4, m.getUtilization().getMean(), 1e-12);
+        assertEquals(0, m.getUtilization().getMin(), 0);
+        assertEquals(1, m.getUtilization().getMax(), 0);
+        // the first process finished at 9, in the second window
+        assertEquals(0.2 / 5, m.getThroughput().getMean(), 1e-12);
+        assertEquals(0.2, m.getThroughput().getMax(), 0);
+    }
+
+    @Test
+    public void longIdleAndBusyStretchesCloseAtOnce() {
+        int gap = 2000000000;
+        RunMetrics m = run(1, new int[][]{{0, 100000000}, {gap, 1}});
+        assertEquals(gap, m.getUtilization().getCount());
+        assertEquals(100000000.0 / gap, m.getUtilization().getMean(), 1e-12);
+        assertEquals(0, m.getUtilization().getP50(), 0);
+        assertEquals(1, m.getUtilization().getP99(), 1e-3);
+        assertEquals(gap, m.getThroughput().getCount());
+        assertEquals(1.0 / gap, m.getThroughput().getMean(), 1e-15);
+    }
+}
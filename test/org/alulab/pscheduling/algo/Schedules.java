@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.util.Random;
+import java.util.function.Supplier;
+import org.alulab.pscheduling.algo.MultiCoreScheduler.QueueMode;
+import org.alulab.pscheduling.model.ProcessTable;
+import org.alulab.pscheduling.model.Workload;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Helpers shared by the scheduler tests: random workloads, running a
+ * scheduler to the end and a summary of the schedule to compare runs by.
+ *
+ * @author Dipu
+ */
+final class Schedules {
+
+    // most steps a run may take before it is taken to be stuck
+    private static final int MAX_STEPS = 10000000;
+
+    private Schedules() {
+    }
+
+    /**
+     * Makes a workload of random processes in order of arrival
+     *
+     * @param seed
+     * @param count
+     * @return
+     */
+    static Workload random(long seed, int count) {
+        Random r = new Random(seed);
+        Workload w = new Workload();
+        int arrival = 0;
+        for (int i = 0; i < count; ++i) {
+            arrival += r.nextInt(12);
+            w.add(i + 1, arrival, 1 + r.nextInt(30), 1 + r.nextInt(10));
+        }
+        return w;
+    }
+
+    /**
+     * Loads a workload and steps the scheduler until every process has
+     * finished
+     *
+     * @param s
+     * @param w
+     * @param eventDriven
+     * @return the scheduler
+     */
+    static Scheduler run(Scheduler s, Workload w, boolean eventDriven) {
+        s.setEventDriven(eventDriven);
+        s.addProcesses(w);
+        return finish(s, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Steps the scheduler by the given amount until it has finished
+     *
+     * @param s
+     * @param amount
+     * @return the scheduler
+     * @throws AssertionError if it does not finish
+     */
+    static Scheduler finish(Scheduler s, int amount) {
+        for (int steps = 0; !s.isFinished(); ++steps) {
+            if (steps == MAX_STEPS) {
+                throw new AssertionError(s.getName() + " does not finish, stuck at "
+                        + s.getCurrentTime());
+            }
+            s.stepForward(amount);
+        }
+        return s;
+    }
+
+    /**
+     * Checks that an algorithm gives the same schedule stepping by ticks and
+     * by events, on one CPU and on three CPUs with either kind of run queue
+     *
+     * @param algorithm
+     * @param w
+     */
+    static void assertEventMatchesTicks(Supplier<Scheduler> algorithm, Workload w) {
+        for (int config = 0; config < 3; ++config) {
+            String tick = describe(run(create(algorithm, config), w, false));
+            String event = describe(run(create(algorithm, config), w, true));
+            assertEquals(algorithm.get().getName() + " config " + config, tick, event);
+        }
+    }
+
+    private static Scheduler create(Supplier<Scheduler> algorithm, int config) {
+        switch (config) {
+            case 0:
+                return algorithm.get();
+            case 1:
+                return new MultiCoreScheduler(algorithm, 3, QueueMode.PER_CPU);
+            default:
+                return new MultiCoreScheduler(algorithm, 3, QueueMode.GLOBAL);
+        }
+    }
+
+    /**
+     * Checks the start and finish time of every process against those of a
+     * reference simulation
+     *
+     * @param s
+     * @param start
+     * @param finish
+     */
+    static void assertSchedule(Scheduler s, int[] start, int[] finish) {
+        ProcessTable table = s.getProcessTable();
+        int[] actualStart = new int[table.size()];
+        int[] actualFinish = new int[table.size()];
+        for (int row = 0; row < table.size(); ++row) {
+            actualStart[row] = table.getStartTime(row);
+            actualFinish[row] = table.getFinishTime(row);
+        }
+        assertArrayEquals(s.getName() + " start times", start, actualStart);
+        assertArrayEquals(s.getName() + " finish times", finish, actualFinish);
+    }
+
+    /**
+     * Describes the schedule a run produced: the end time, the number of
+     * context switches and the start and finish time of every process
+     *
+     * @param s
+     * @return
+     */
+    static String describe(Scheduler s) {
+        ProcessTable table = s.getProcessTable();
+        StringBuilder sb = new StringBuilder();
+        sb.append("time ").append(s.getCurrentTime())
+                .append(" switches ").append(s.getContextSwitches())
+                .append(" misses ").append(s.getDeadlineMisses()).append('\n');
+        for (int row = 0; row < table.size(); ++row) {
+            sb.append(table.getPID(row)).append(' ')
+                    .append(table.getState(row)).append(' ')
+                    .append(table.getStartTime(row)).append(' ')
+                    .append(table.getFinishTime(row)).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.algo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.alulab.pscheduling.model.Workload;
+import org.alulab.pscheduling.trace.WorkloadStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that streaming a workload file runs like loading it first
+ *
+ * @author Dipu
+ */
+public class StreamingRunTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void streamRunsLikeTheLoadedWorkload() throws IOException {
+        Random r = new Random(4);
+        Workload w = new Workload();
+        StringBuilder csv = new StringBuilder();
+        int arrival = 0;
+        for (int i = 0; i < 2000; ++i) {
+            arrival += r.nextInt(12);
+            int burst = 1 + r.nextInt(20);
+            int priority = 1 + r.nextInt(5);
+            w.add(i + 1, arrival, burst, priority);
+            csv.append(arrival).append(',').append(burst).append(',')
+                    .append(priority).append('\n');
+        }
+        Path file = mFolder.newFile("workload.csv").toPath();
+        Files.write(file, csv.toString().getBytes(StandardCharsets.US_ASCII));
+
+        Scheduler loaded = new RoundRobin(4);
+        loaded.addProcesses(w);
+        Schedules.finish(loaded, Integer.MAX_VALUE);
+        RunStatistics expected = RunStatistics.of(loaded);
+
+        Scheduler streamed = new RoundRobin(4);
+        try (StreamingRun run = new StreamingRun(streamed, WorkloadStream.open(file))) {
+            assertTrue(run.getScheduler() == streamed);
+            Schedules.finish(streamed, Integer.MAX_VALUE);
+        }
+        RunStatistics actual = RunStatistics.of(streamed);
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMakespan(), actual.getMakespan());
+        assertEquals(expected.getContextSwitches(), actual.getContextSwitches());
+        assertEquals(expected.getAverageWaiting(), actual.getAverageWaiting(), 1e-9);
+        // finished rows are reused
+        assertTrue(streamed.getProcessTable().size() < w.size());
+    }
+
+    @Test
+    public void severalCpusAreRefused() throws IOException {
+        Path file = mFolder.newFile("one.csv").toPath();
+        Files.write(file, "0,5,1\n".getBytes(StandardCharsets.US_ASCII));
+        Scheduler s = new MultiCoreScheduler(Algorithm.FCFS, 2,
+                MultiCoreScheduler.QueueMode.GLOBAL);
+        try (WorkloadStream in = WorkloadStream.open(file)) {
+            new StreamingRun(s, in);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(0, s.getProcessTable().size());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.model;
+
+import java.util.EnumSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the allowed moves between process states and that the table
+ * refuses the others
+ *
+ * @author Dipu
+ */
+public class ProcessStateTest {
+
+    private static EnumSet<ProcessState> next(ProcessState state) {
+        EnumSet<ProcessState> next = EnumSet.noneOf(ProcessState.class);
+        for (ProcessState s : ProcessState.values()) {
+            if (state.canMoveTo(s)) {
+                next.add(s);
+            }
+        }
+        return next;
+    }
+
+    @Test
+    public void followsTheLifeCycle() {
+        assertEquals(EnumSet.of(ProcessState.READY), next(ProcessState.NEW));
+        assertEquals(EnumSet.of(ProcessState.RUNNING), next(ProcessState.READY));
+        assertEquals(EnumSet.of(ProcessState.WAITING, ProcessState.TERMINATED),
+                next(ProcessState.RUNNING));
+        assertEquals(EnumSet.of(ProcessState.RUNNING), next(ProcessState.WAITING));
+        assertEquals(EnumSet.noneOf(ProcessState.class), next(ProcessState.TERMINATED));
+    }
+
+    @Test
+    public void tableRefusesIllegalMoves() {
+        for (ProcessState from : ProcessState.values()) {
+            for (ProcessState to : ProcessState.values()) {
+                if (from == to || from.canMoveTo(to)) {
+                    continue;
+                }
+                ProcessTable table = new ProcessTable();
+                int row = table.add(7, 0, 5, 1);
+                moveTo(table, row, from);
+                try {
+                    table.setState(row, to);
+                    fail(from + " -> " + to);
+                } catch (IllegalStateException ex) {
+                    // the row and the counts are left alone
+                    assertEquals(from, table.getState(row));
+                    assertEquals(1, table.count(from));
+                    assertEquals(0, table.count(to));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void loneProcessRefusesIllegalMoves() {
+        Process p = new Process(0, 5, 1);
+        try {
+            p.setState(ProcessState.RUNNING);
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals(ProcessState.NEW, p.getState());
+        }
+        // work can only start once the process is ready
+        try {
+            p.dowork(0);
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals(0, p.getCounter());
+        }
+    }
+
+    @Test
+    public void settingTheSameStateIsAllowed() {
+        ProcessTable table = new ProcessTable();
+        int row = table.add(1, 0, 5, 1);
+        moveTo(table, row, ProcessState.TERMINATED);
+        table.setState(row, ProcessState.TERMINATED);
+        assertEquals(1, table.count(ProcessState.TERMINATED));
+    }
+
+    /**
+     * Walks a new row along the life cycle to a state
+     */
+    private static void moveTo(ProcessTable table, int row, ProcessState state) {
+        ProcessState[] path = {ProcessState.READY, ProcessState.RUNNING,
+            state == ProcessState.TERMINATED ? ProcessState.TERMINATED : ProcessState.WAITING};
+        for (ProcessState s : path) {
+            if (table.is(row, state)) {
+                return;
+            }
+            table.setState(row, s);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that a process created on its own keeps its data through adoption
+ *
+ * @author Dipu
+ */
+public class ProcessTest {
+
+    @Test
+    public void adoptionKeepsTheData() {
+        Process p = new Process(3, 10, 2);
+        p.setTiming(0, 20);
+        p.setState(ProcessState.READY);
+        p.dowork(5, 4);
+        assertNull(p.mTable);
+        assertEquals(20, p.getDeadline());
+        assertEquals(ProcessState.RUNNING, p.getState());
+
+        ProcessTable table = new ProcessTable();
+        table.add(0, 0, 1, 0);
+        int row = table.adopt(p);
+        assertSame(table, p.mTable);
+        assertEquals(1, row);
+        assertEquals(p.getPID(), table.getPID(row));
+        assertEquals(3, table.getArriveTime(row));
+        assertEquals(10, table.getBurstTime(row));
+        assertEquals(2, table.getPriority(row));
+        assertEquals(20, table.getPeriod(row));
+        assertEquals(4, table.getCounter(row));
+        assertEquals(5, table.getStartTime(row));
+        assertEquals(1, table.count(ProcessState.RUNNING));
+        assertEquals(1, table.count(ProcessState.NEW));
+
+        // the process is now a view of the row
+        p.dowork(9, 6);
+        assertEquals(ProcessState.TERMINATED, table.getState(row));
+        assertEquals(14, table.getFinishTime(row));
+        assertEquals(1, table.count(ProcessState.TERMINATED));
+    }
+
+    @Test
+    public void detachedWorkFollowsTheTable() {
+        Process p = new Process(0, 3, 1);
+        ProcessTable table = new ProcessTable();
+        int row = table.add(p.getPID(), 0, 3, 1);
+        p.setState(ProcessState.READY);
+        table.setState(row, ProcessState.READY);
+        for (int t = 0; t < 4; ++t) {
+            p.dowork(t);
+            table.dowork(row, t, 1);
+            assertEquals(table.getState(row), p.getState());
+            assertEquals(table.getCounter(row), p.getCounter());
+        }
+        assertEquals(table.getStartTime(row), p.getStartTime());
+        assertEquals(table.getFinishTime(row), p.getFinishTime());
+        p.reset();
+        assertEquals(ProcessState.NEW, p.getState());
+        assertEquals(0, p.getCounter());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.model;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the timeline against the process run at every time unit
+ *
+ * @author Dipu
+ */
+public class TimelineTest {
+
+    @Test
+    public void mergesRunsOfTheSameProcess() {
+        Timeline t = new Timeline(1);
+        t.append(1, 0, 2);
+        t.append(1, 2, 3);
+        t.append(1, 5, 1);
+        assertEquals(1, t.size());
+        assertEquals(6, t.getEnd(0));
+        // a gap or another process starts a new segment
+        t.append(1, 7, 1);
+        t.append(2, 8, 1);
+        t.append(1, 9, 4);
+        assertEquals(4, t.size());
+        assertEquals(7, t.getStart(1));
+        assertEquals(2, t.getPID(2));
+        assertEquals(4, t.getLength(3));
+        try {
+            t.append(3, 12, 1);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(4, t.size());
+        }
+        t.clear();
+        assertEquals(0, t.size());
+        assertEquals(1, t.getClearCount());
+        assertEquals(-1, t.pidAt(0));
+        assertEquals(0, t.getBusyTime(0, 100));
+    }
+
+    @Test
+    public void matchesEveryTimeUnit() {
+        Random r = new Random(1);
+        for (int round = 0; round < 20; ++round) {
+            // the process run at each time unit, -1 when idle
+            int[] ran = new int[3000];
+            Arrays.fill(ran, -1);
+            Timeline t = new Timeline();
+            int time = r.nextInt(5);
+            int segments = 0;
+            int lastPid = -1;
+            int lastEnd = -1;
+            while (true) {
+                int pid = r.nextInt(4);
+                int length = 1 + r.nextInt(6);
+                if (time + length > ran.length) {
+                    break;
+                }
+                t.append(pid, time, length);
+                if (pid != lastPid || time != lastEnd) {
+                    segments++;
+                }
+                Arrays.fill(ran, time, time + length, pid);
+                lastPid = pid;
+                lastEnd = time + length;
+                time = lastEnd + (r.nextInt(3) == 0 ? r.nextInt(5) : 0);
+            }
+            assertEquals(segments, t.size());
+
+            int[] busy = new int[ran.length + 1];
+            for (int i = 0; i < ran.length; ++i) {
+                busy[i + 1] = busy[i] + (ran[i] >= 0 ? 1 : 0);
+                assertEquals(ran[i], t.pidAt(i));
+                int index = t.indexAt(i);
+                if (ran[i] < 0) {
+                    assertEquals(-1, index);
+                } else {
+                    assertEquals(ran[i], t.getPID(index));
+                    assertTrue(t.getStart(index) <= i && i < t.getEnd(index));
+                }
+            }
+            for (int k = 0; k < 500; ++k) {
+                int from = r.nextInt(ran.length + 1);
+                int to = r.nextInt(ran.length + 1);
+                assertEquals(to <= from ? 0 : busy[to] - busy[from], t.getBusyTime(from, to));
+            }
+            assertEquals(busy[ran.length], t.getBusyTime(0, Integer.MAX_VALUE));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.alulab.pscheduling.algo.Algorithm;
+import org.alulab.pscheduling.algo.MultiCoreScheduler;
+import org.alulab.pscheduling.algo.MultiCoreScheduler.QueueMode;
+import org.alulab.pscheduling.algo.Scheduler;
+import org.alulab.pscheduling.model.Workload;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a schedule trace reads back exactly the events that were
+ * written
+ *
+ * @author Dipu
+ */
+public class ScheduleTraceTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void schedulesReadBack() throws IOException {
+        Workload w = workload(1, 300);
+        for (Algorithm a : Algorithm.values()) {
+            check(a.create(), w);
+            check(new MultiCoreScheduler(a, 3, QueueMode.PER_CPU), w);
+        }
+    }
+
+    @Test
+    public void segmentsCoverEveryBurst() throws IOException {
+        Workload w = workload(2, 300);
+        Path file = mFolder.newFile().toPath();
+        try (ScheduleTraceWriter out = new ScheduleTraceWriter(file)) {
+            Scheduler s = new MultiCoreScheduler(Algorithm.ROUND_ROBIN, 4, QueueMode.GLOBAL);
+            run(s, w, out);
+        }
+        Map<Integer, Integer> ran = new HashMap<>();
+        try (ScheduleTraceReader in = new ScheduleTraceReader(file)) {
+            in.segments((cpu, pid, start, end) -> {
+                assertTrue(cpu < 4 && start < end);
+                ran.merge(pid, end - start, Integer::sum);
+            });
+        }
+        for (int i = 0; i < w.size(); ++i) {
+            assertEquals("pid " + w.getPID(i), w.getBurstTime(i), (int) ran.get(w.getPID(i)));
+        }
+    }
+
+    @Test
+    public void extremeValuesReadBack() throws IOException {
+        Random r = new Random(3);
+        Path file = mFolder.newFile().toPath();
+        List<String> written = new ArrayList<>();
+        // small buffer, so it is drained many times
+        try (ScheduleTraceWriter out = new ScheduleTraceWriter(file, 16)) {
+            int[] times = new int[64];
+            for (int i = 0; i < 5000; ++i) {
+                int cpu = r.nextInt(times.length);
+                int pid = r.nextBoolean() ? r.nextInt(Integer.MAX_VALUE) : r.nextInt(100);
+                times[cpu] = r.nextBoolean() ? times[cpu] + r.nextInt(10)
+                        : times[cpu] + r.nextInt(Integer.MAX_VALUE - times[cpu]);
+                record(written, out).scheduled(ScheduleEvent.DISPATCH, times[cpu], cpu, pid);
+                ScheduleEvent end = r.nextBoolean() ? ScheduleEvent.PREEMPT : ScheduleEvent.FINISH;
+                times[cpu] += r.nextInt(Integer.MAX_VALUE - times[cpu]);
+                record(written, out).scheduled(end, times[cpu], cpu, pid);
+                if (times[cpu] > Integer.MAX_VALUE / 2) {
+                    times[cpu] = 0;
+                }
+            }
+            assertEquals(written.size(), out.getCount());
+        }
+        assertEquals(written, read(file));
+    }
+
+    private void check(Scheduler s, Workload w) throws IOException {
+        Path file = mFolder.newFile().toPath();
+        List<String> written = new ArrayList<>();
+        try (ScheduleTraceWriter out = new ScheduleTraceWriter(file)) {
+            run(s, w, record(written, out));
+        }
+        assertTrue(s.getName() + " wrote nothing", written.size() >= 2 * w.size());
+        assertEquals(s.getName(), written, read(file));
+    }
+
+    private static void run(Scheduler s, Workload w, ScheduleListener listener) {
+        s.setListener(listener);
+        s.setEventDriven(true);
+        s.addProcesses(w);
+        while (!s.isFinished()) {
+            s.stepForward(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Reads a trace twice, checking that rewinding starts it over
+     */
+    private static List<String> read(Path file) throws IOException {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        try (ScheduleTraceReader in = new ScheduleTraceReader(file)) {
+            in.replay(record(first, null));
+            assertEquals(first.size(), in.getCount());
+            in.rewind();
+            in.replay(record(second, null));
+        }
+        assertEquals(first, second);
+        return first;
+    }
+
+    /**
+     * Makes a listener that notes every event and passes it on
+     */
+    private static ScheduleListener record(List<String> events, ScheduleListener next) {
+        return (event, time, cpu, pid) -> {
+            events.add(event + " " + time + " " + cpu + " " + pid);
+            if (next != null) {
+                next.scheduled(event, time, cpu, pid);
+            }
+        };
+    }
+
+    private static Workload workload(long seed, int count) {
+        Random r = new Random(seed);
+        Workload w = new Workload();
+        int arrival = 0;
+        for (int i = 0; i < count; ++i) {
+            arrival += r.nextInt(12);
+            w.add(i + 1, arrival, 1 + r.nextInt(30), 1 + r.nextInt(10));
+        }
+        return w;
+    }
+}
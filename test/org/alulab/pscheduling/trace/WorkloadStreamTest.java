@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016 Dipu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Dipu - initial API and implementation and/or initial documentation
+ */
+package org.alulab.pscheduling.trace;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.alulab.pscheduling.model.Workload;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that text and binary workloads parse the same whatever size of
+ * window they are mapped through, so records, numbers and varints split
+ * across window boundaries read back whole
+ *
+ * @author Dipu
+ */
+public class WorkloadStreamTest {
+
+    // window sizes in bytes, from one byte to the whole file
+    private static final int[] WINDOWS = {1, 2, 3, 5, 7, 13, 64, 1000, 1 << 20};
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private static Workload workload(long seed) {
+        Random r = new Random(seed);
+        Workload w = new Workload();
+        int arrival = 0;
+        for (int i = 0; i < 500; ++i) {
+            // some gaps and bursts large enough to need several digits and
+            // several varint bytes
+            arrival += r.nextInt(4) == 0 ? r.nextInt(1 << 20) : r.nextInt(10);
+            int burst = 1 + (r.nextBoolean() ? r.nextInt(30) : r.nextInt(1 << 24));
+            w.add(i + 1, arrival, burst, r.nextInt(11) - 5);
+        }
+        return w;
+    }
+
+    /**
+     * Writes a workload as text with the separators, comments and line
+     * endings the reader accepts
+     */
+    private Path writeCsv(Workload w, Random r) throws IOException {
+        StringBuilder sb = new StringBuilder("arrival,burst,priority\n");
+        for (int i = 0; i < w.size(); ++i) {
+            if (r.nextInt(20) == 0) {
+                sb.append("# comment\n\n");
+            }
+            String sep = r.nextBoolean() ? "," : (r.nextBoolean() ? " \t" : ", ");
+            sb.append(w.getArriveTime(i)).append(sep).append(w.getBurstTime(i))
+                    .append(sep).append(w.getPriority(i))
+                    .append(r.nextBoolean() ? "\r\n" : "\n");
+        }
+        Path file = mFolder.newFile().toPath();
+        Files.write(file, sb.toString().getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    private static void check(Workload w, WorkloadStream in) throws IOException {
+        try {
+            for (int pass = 0; pass < 2; ++pass) {
+                for (int i = 0; i < w.size(); ++i) {
+                    assertTrue(in.next());
+                    assertEquals(w.getPID(i), in.getPID());
+                    assertEquals(w.getArriveTime(i), in.getArriveTime());
+                    assertEquals(w.getBurstTime(i), in.getBurstTime());
+                    assertEquals(w.getPriority(i), in.getPriority());
+                    assertEquals(w.getDeadline(i), in.getDeadline());
+                    assertEquals(w.getPeriod(i), in.getPeriod());
+                }
+                assertFalse(in.next());
+                assertEquals(w.size(), in.getCount());
+                in.rewind();
+            }
+        } finally {
+            in.close();
+            // the small windows leave thousands of mappings that are only
+            // released when collected, and would run into the process limit
+            System.gc();
+        }
+    }
+
+    @Test
+    public void csvReadsAcrossWindows() throws IOException {
+        Workload w = workload(1);
+        Path file = writeCsv(w, new Random(2));
+        for (int window : WINDOWS) {
+            check(w, new CsvWorkloadStream(file, window));
+        }
+    }
+
+    @Test
+    public void csvWithoutFinalNewline() throws IOException {
+        Path file = mFolder.newFile().toPath();
+        Files.write(file, "0,5,1\n12,3,2".getBytes(StandardCharsets.US_ASCII));
+        Workload w = new Workload();
+        w.add(1, 0, 5, 1);
+        w.add(2, 12, 3, 2);
+        for (int window : WINDOWS) {
+            check(w, new CsvWorkloadStream(file, window));
+        }
+    }
+
+    @Test
+    public void binaryReadsAcrossWindows() throws IOException {
+        Workload w = workload(3);
+        Path file = mFolder.newFile().toPath();
+        BinaryWorkloadWriter.write(w, file);
+        assertTrue(WorkloadStream.isBinary(file));
+        for (int window : WINDOWS) {
+            check(w, new BinaryWorkloadStream(file, window));
+        }
+    }
+
+    @Test
+    public void binaryKeepsDeadlineAndPeriod() throws IOException {
+        Random r = new Random(4);
+        Workload w = new Workload();
+        for (int i = 0; i < 500; ++i) {
+            boolean timed = r.nextBoolean();
+            w.add(i + 1, 3 * i, 1 + r.nextInt(30), r.nextInt(11) - 5,
+                    timed ? 1 + r.nextInt(1 << 20) : 0, timed ? r.nextInt(1000) : 0);
+        }
+        Path file = mFolder.newFile().toPath();
+        BinaryWorkloadWriter.write(w, file);
+        for (int window : WINDOWS) {
+            check(w, new BinaryWorkloadStream(file, window));
+        }
+    }
+
+    @Test
+    public void binaryVersion1StillReads() throws IOException {
+        // arrival gap, burst, zigzag priority and zigzag pid gap per process
+        byte[] bytes = {'P', 'S', 'W', 'L', 1, 0, 5, 2, 2, 10, (byte) 0x96, 0x01, 1, 4};
+        Path file = mFolder.newFile().toPath();
+        Files.write(file, bytes);
+        Workload w = new Workload();
+        w.add(1, 0, 5, 1);
+        w.add(3, 10, 150, -1);
+        for (int window : WINDOWS) {
+            check(w, new BinaryWorkloadStream(file, window));
+        }
+    }
+}